@@ -0,0 +1,58 @@
+package com.onboarding.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Drops the cached invoice pages, counts and summaries of accounts that just received new invoices, so readers
+ * see an ingested batch as soon as it is committed rather than after the cache TTL.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AccountCacheInvalidator {
+    public static final String ACCOUNT_INVOICES = "accountInvoices";
+    public static final String ACCOUNT_INVOICE_COUNTS = "accountInvoiceCounts";
+    public static final String ACCOUNT_SUMMARIES = "accountSummaries";
+
+    private final CacheManager cacheManager;
+
+    public void evictAccounts(Collection<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        Cache pages = cacheManager.getCache(ACCOUNT_INVOICES);
+        Cache counts = cacheManager.getCache(ACCOUNT_INVOICE_COUNTS);
+        Cache summaries = cacheManager.getCache(ACCOUNT_SUMMARIES);
+        if (pages != null && !(pages instanceof TwoTierCache)) {
+            pages.clear();
+        }
+        for (String accountId : accountIds) {
+            if (pages instanceof TwoTierCache indexed) {
+                indexed.evictAccount(accountId);
+            }
+            if (counts != null) {
+                counts.evict(accountId);
+            }
+            if (summaries != null) {
+                summaries.evict(accountId);
+            }
+        }
+        log.debug("Evicted cached invoices of {} accounts", accountIds.size());
+    }
+
+    /**
+     * Account id of an {@code accountInvoices} key, which has the form {@code accountId_page_size}.
+     */
+    public static String accountIdOfPageKey(Object key) {
+        String value = key.toString();
+        int sizeSeparator = value.lastIndexOf('_');
+        int pageSeparator = sizeSeparator > 0 ? value.lastIndexOf('_', sizeSeparator - 1) : -1;
+        return pageSeparator < 0 ? value : value.substring(0, pageSeparator);
+    }
+}
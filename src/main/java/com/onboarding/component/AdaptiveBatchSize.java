@@ -0,0 +1,145 @@
+package com.onboarding.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines per batch, steered by how MongoDB and SQS cope with the batches cut so far instead of a fixed
+ * {@code processing.batch.size}. It follows AIMD, like TCP congestion control: every write that stays
+ * under {@code target-write-millis} with at most {@code max-error-rate} failed invoices grows the size by
+ * {@code increase}; a slow or failing write, or a publish slower than {@code target-publish-millis},
+ * multiplies it by {@code decrease-factor}. The size stays between {@code min} and {@code max}.
+ * <p>
+ * One size is shared by all files, since they all write to the same cluster. Several batches are in
+ * flight at once, so a batch only grows the size if it was cut at the current size, and only shrinks it
+ * if it was not cut before an earlier decrease; otherwise one slow spell would halve the size once per
+ * batch in flight.
+ */
+@Component
+@Slf4j
+public class AdaptiveBatchSize implements MeterBinder {
+    private final boolean enabled;
+    private final int min;
+    private final int max;
+    private final int increase;
+    private final double decreaseFactor;
+    private final long targetWriteNanos;
+    private final long targetPublishNanos;
+    private final double maxErrorRate;
+
+    private volatile int current;
+    private DistributionSummary applied;
+    private MeterRegistry registry;
+
+    public AdaptiveBatchSize(@Value("${processing.batch.adaptive.enabled}") boolean enabled,
+                             @Value("${processing.batch.size}") int initial,
+                             @Value("${processing.batch.adaptive.min}") int min,
+                             @Value("${processing.batch.adaptive.max}") int max,
+                             @Value("${processing.batch.adaptive.increase}") int increase,
+                             @Value("${processing.batch.adaptive.decrease-factor}") double decreaseFactor,
+                             @Value("${processing.batch.adaptive.target-write-millis}") long targetWriteMillis,
+                             @Value("${processing.batch.adaptive.target-publish-millis}") long targetPublishMillis,
+                             @Value("${processing.batch.adaptive.max-error-rate}") double maxErrorRate) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Adaptive batch size needs 1 <= min <= max, got " + min + " and " + max);
+        }
+        this.enabled = enabled;
+        this.min = min;
+        this.max = max;
+        this.increase = increase;
+        this.decreaseFactor = decreaseFactor;
+        this.targetWriteNanos = TimeUnit.MILLISECONDS.toNanos(targetWriteMillis);
+        this.targetPublishNanos = TimeUnit.MILLISECONDS.toNanos(targetPublishMillis);
+        this.maxErrorRate = maxErrorRate;
+        this.current = enabled ? Math.max(min, Math.min(max, initial)) : initial;
+    }
+
+    /**
+     * Exposes the size as {@code invoice.batch.size.current}, every write's size as the
+     * {@code invoice.batch.size.applied} distribution and each change as {@code invoice.batch.size.adjustments}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("invoice.batch.size.current", this, AdaptiveBatchSize::current)
+                .description("Lines per batch for the next batch that is cut")
+                .register(registry);
+        this.applied = DistributionSummary.builder("invoice.batch.size.applied")
+                .description("Size of each batch written, to follow the adaptive size over time")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int current() {
+        return current;
+    }
+
+    /**
+     * @param size     invoices in the written batch
+     * @param nanos    time the write took
+     * @param failures invoices the write rejected, duplicates excluded, or {@code size} if it failed as a whole
+     */
+    public void recordWrite(int size, long nanos, int failures) {
+        if (!enabled || size == 0) {
+            return;
+        }
+        if (applied != null) {
+            applied.record(size);
+        }
+        if (nanos > targetWriteNanos) {
+            decrease(size, "write-latency");
+        } else if (failures > maxErrorRate * size) {
+            decrease(size, "write-errors");
+        } else {
+            increase(size);
+        }
+    }
+
+    /**
+     * A slow publish only ever shrinks the size; growing is left to the writes.
+     */
+    public void recordPublish(int size, long nanos) {
+        if (enabled && size > 0 && nanos > targetPublishNanos) {
+            decrease(size, "publish-lag");
+        }
+    }
+
+    private synchronized void increase(int size) {
+        if (size < current || current == max) {
+            return;
+        }
+        current = Math.min(max, current + increase);
+        count("increase", "healthy");
+    }
+
+    private synchronized void decrease(int size, String reason) {
+        if (size > current || current == min) {
+            return;
+        }
+        int previous = current;
+        current = Math.max(min, (int) (current * decreaseFactor));
+        count("decrease", reason);
+        log.info("Batch size lowered from {} to {} ({})", previous, current, reason);
+    }
+
+    private void count(String direction, String reason) {
+        if (registry != null) {
+            Counter.builder("invoice.batch.size.adjustments")
+                    .tag("direction", direction)
+                    .tag("reason", reason)
+                    .register(registry)
+                    .increment();
+        }
+    }
+}
@@ -33,9 +33,11 @@ public class CSVParser {
                     .netAmount(new BigDecimal(fields[16].trim()))
                     .taxAmount(new BigDecimal(fields[17].trim()))
                     .rawLine(csvLine)
+                    .lineNumber(lineNumber)
                     .build();
         } catch (Exception e) {
-            log.error("Error Parsing Line {} : {}",lineNumber, csvLine);
+            log.warn("Error parsing line {}: {}", lineNumber, e.getMessage());
+            log.debug("Rejected line {}: {}", lineNumber, csvLine);
             throw new InvoiceProcessingException(
                     String.format("Line %d: %s", lineNumber, e.getMessage()), e);
         }
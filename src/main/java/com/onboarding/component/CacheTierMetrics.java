@@ -0,0 +1,86 @@
+package com.onboarding.component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes hits and misses of each {@link TwoTierCache} per tier, plus the hit ratio of each tier
+ * and the bytes held in L1. The L2 counters only see lookups that missed L1. Loads are split into
+ * real loads, misses coalesced onto a running load, and refresh-ahead reloads.
+ * <p>
+ * The L1 Caffeine statistics are bound as well, which Boot only does for its own Caffeine caches, so
+ * {@code cache.gets}, {@code cache.puts}, {@code cache.evictions} and {@code cache.size} keep being
+ * published. Those describe L1 alone; evictions are the ones Caffeine makes for size or expiry.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheTierMetrics implements MeterBinder {
+    private final CacheManager cacheManager;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof TwoTierCache tiered) {
+                bind(registry, name, tiered);
+            }
+        }
+    }
+
+    private static void bind(MeterRegistry registry, String name, TwoTierCache cache) {
+        gets(registry, name, cache, "l1", "hit", TwoTierCache::getL1Hits);
+        gets(registry, name, cache, "l1", "miss", TwoTierCache::getL1Misses);
+        gets(registry, name, cache, "l2", "hit", TwoTierCache::getL2Hits);
+        gets(registry, name, cache, "l2", "miss", TwoTierCache::getL2Misses);
+        gets(registry, name, cache, "l2", "error", TwoTierCache::getL2Errors);
+        loads(registry, name, cache, "load", TwoTierCache::getLoads);
+        loads(registry, name, cache, "coalesced", TwoTierCache::getCoalescedLoads);
+        loads(registry, name, cache, "refresh", TwoTierCache::getRefreshes);
+        hitRatio(registry, name, cache, "l1", c -> ratio(c.getL1Hits(), c.getL1Misses()));
+        hitRatio(registry, name, cache, "l2", c -> ratio(c.getL2Hits(), c.getL2Misses()));
+        Gauge.builder("cache.tier.size.bytes", cache, TwoTierCache::getL1WeightBytes)
+                .description("Serialized bytes held in the near cache")
+                .baseUnit("bytes")
+                .tags("cache", name, "tier", "l1")
+                .register(registry);
+        CaffeineCacheMetrics.monitor(registry, cache.l1(), name);
+    }
+
+    private static void gets(MeterRegistry registry, String name, TwoTierCache cache, String tier, String result,
+                             ToDoubleFunction<TwoTierCache> count) {
+        FunctionCounter.builder("cache.tier.gets", cache, count)
+                .description("Cache lookups per tier")
+                .tags("cache", name, "tier", tier, "result", result)
+                .register(registry);
+    }
+
+    private static void loads(MeterRegistry registry, String name, TwoTierCache cache, String type,
+                              ToDoubleFunction<TwoTierCache> count) {
+        FunctionCounter.builder("cache.loads", cache, count)
+                .description("Loads from the backing store, misses that joined a running load, and background refreshes")
+                .tags("cache", name, "type", type)
+                .register(registry);
+    }
+
+    private static void hitRatio(MeterRegistry registry, String name, TwoTierCache cache, String tier,
+                                 ToDoubleFunction<TwoTierCache> ratio) {
+        Gauge.builder("cache.tier.hit.ratio", cache, ratio)
+                .description("Share of lookups reaching the tier that it answered")
+                .tags("cache", name, "tier", tier)
+                .register(registry);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,204 @@
+package com.onboarding.component;
+
+import com.onboarding.entity.AccountSummary;
+import com.onboarding.entity.Invoice;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of the values the invoice caches hold: invoice counts, pages of invoices and
+ * account summaries.
+ * Fields are written positionally (dates as epoch days, amounts as scale plus unscaled bytes), which
+ * is several times smaller than the object graph on the heap and needs no class metadata, so the
+ * bytes can be shared with other nodes through a {@link SharedCacheStore}. Page sort orders are not
+ * kept; the cached queries are unsorted.
+ */
+public class CacheValueCodec {
+    private static final byte COUNT = 1;
+    private static final byte INVOICE_PAGE = 2;
+    private static final byte ACCOUNT_SUMMARY = 3;
+
+    public byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (value instanceof Long count) {
+                out.writeByte(COUNT);
+                out.writeLong(count);
+            } else if (value instanceof Page<?> page) {
+                out.writeByte(INVOICE_PAGE);
+                writePage(out, page);
+            } else if (value instanceof AccountSummary summary) {
+                out.writeByte(ACCOUNT_SUMMARY);
+                writeSummary(out, summary);
+            } else {
+                throw new IllegalArgumentException("Cannot cache values of type " + value.getClass().getName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public Object decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte type = in.readByte();
+            return switch (type) {
+                case COUNT -> in.readLong();
+                case INVOICE_PAGE -> readPage(in);
+                case ACCOUNT_SUMMARY -> readSummary(in);
+                default -> throw new IllegalArgumentException("Unknown cached value type " + type);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writePage(DataOutputStream out, Page<?> page) throws IOException {
+        out.writeInt(page.getPageable().isPaged() ? page.getNumber() : -1);
+        out.writeInt(page.getPageable().isPaged() ? page.getSize() : -1);
+        out.writeLong(page.getTotalElements());
+        out.writeInt(page.getNumberOfElements());
+        for (Object element : page.getContent()) {
+            if (!(element instanceof Invoice invoice)) {
+                throw new IllegalArgumentException("Cannot cache pages of " + element.getClass().getName());
+            }
+            writeInvoice(out, invoice);
+        }
+    }
+
+    private static Page<Invoice> readPage(DataInputStream in) throws IOException {
+        int number = in.readInt();
+        int size = in.readInt();
+        long total = in.readLong();
+        int count = in.readInt();
+        List<Invoice> content = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            content.add(readInvoice(in));
+        }
+        return size < 0 ? new PageImpl<>(content) : new PageImpl<>(content, PageRequest.of(number, size), total);
+    }
+
+    private static void writeInvoice(DataOutputStream out, Invoice invoice) throws IOException {
+        writeString(out, invoice.getId());
+        writeString(out, invoice.getBillId());
+        writeString(out, invoice.getAccountId());
+        writeDate(out, invoice.getIssueDate());
+        writeDate(out, invoice.getBillPeriodFrom());
+        writeDate(out, invoice.getBillPeriodTo());
+        writeString(out, invoice.getName());
+        writeDecimal(out, invoice.getGrossAmount());
+        writeDecimal(out, invoice.getNetAmount());
+        writeDecimal(out, invoice.getTaxAmount());
+        writeDateTime(out, invoice.getCreatedAt());
+    }
+
+    private static Invoice readInvoice(DataInputStream in) throws IOException {
+        return Invoice.builder()
+                .id(readString(in))
+                .billId(readString(in))
+                .accountId(readString(in))
+                .issueDate(readDate(in))
+                .billPeriodFrom(readDate(in))
+                .billPeriodTo(readDate(in))
+                .name(readString(in))
+                .grossAmount(readDecimal(in))
+                .netAmount(readDecimal(in))
+                .taxAmount(readDecimal(in))
+                .createdAt(readDateTime(in))
+                .build();
+    }
+
+    private static void writeSummary(DataOutputStream out, AccountSummary summary) throws IOException {
+        writeString(out, summary.getAccountId());
+        out.writeLong(summary.getInvoiceCount());
+        writeDate(out, summary.getFirstIssueDate());
+        writeDate(out, summary.getLastIssueDate());
+        writeDecimal(out, summary.getGrossAmount());
+        writeDecimal(out, summary.getNetAmount());
+        writeDecimal(out, summary.getTaxAmount());
+        writeDateTime(out, summary.getUpdatedAt());
+    }
+
+    private static AccountSummary readSummary(DataInputStream in) throws IOException {
+        return AccountSummary.builder()
+                .accountId(readString(in))
+                .invoiceCount(in.readLong())
+                .firstIssueDate(readDate(in))
+                .lastIssueDate(readDate(in))
+                .grossAmount(readDecimal(in))
+                .netAmount(readDecimal(in))
+                .taxAmount(readDecimal(in))
+                .updatedAt(readDateTime(in))
+                .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt((int) value.toEpochDay());
+        }
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readInt()) : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeByte(value.scale());
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int length = in.readUnsignedByte();
+        if (length == 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readByte());
+    }
+}
@@ -0,0 +1,205 @@
+package com.onboarding.component;
+
+import com.onboarding.exception.DependencyUnavailableException;
+import com.onboarding.exception.InvoiceProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries and a circuit breaker for the calls to one backing service. A call that fails with a
+ * transient failure, as told by {@code transientFailure}, is tried again up to {@code maxAttempts} times
+ * in all, sleeping a random time between zero and {@code baseDelay * 2^(attempt - 1)}, capped at
+ * {@code maxDelay} ("full jitter", so callers that failed together do not come back together). Any other
+ * failure is thrown straight away.
+ * <p>
+ * After {@code failureThreshold} transient failures in a row the circuit opens: for {@code openFor}
+ * every call fails with a {@link DependencyUnavailableException} without reaching the service. Then a
+ * single call is let through as a probe; it closes the circuit if it succeeds and opens it again if it
+ * fails. Failures that are not transient mean the service answered and count as successes here.
+ */
+@Slf4j
+public class DependencyGuard {
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Predicate<Throwable> transientFailure;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private MeterRegistry registry;
+
+    /**
+     * @param transientFailure tells failures worth retrying, and counted against the circuit, from the rest
+     * @param nanoClock        defaults to {@link System#nanoTime()}
+     */
+    @Builder
+    public DependencyGuard(String name, int maxAttempts, Duration baseDelay, Duration maxDelay,
+                           int failureThreshold, Duration openFor, Predicate<Throwable> transientFailure,
+                           LongSupplier nanoClock) {
+        if (maxAttempts < 1 || failureThreshold < 1) {
+            throw new IllegalArgumentException("maxAttempts and failureThreshold of " + name + " must be at least 1");
+        }
+        this.name = name;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelay == null ? 0 : baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay == null ? baseDelayMillis : maxDelay.toMillis();
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openFor == null ? 0 : openFor.toNanos();
+        this.transientFailure = transientFailure == null ? failure -> false : transientFailure;
+        this.nanoClock = nanoClock == null ? System::nanoTime : nanoClock;
+    }
+
+    /**
+     * Exposes the circuit as {@code resilience.circuit.state} (0 closed, 1 half-open, 2 open), calls by
+     * outcome as {@code resilience.calls} and retries as {@code resilience.retries}, all tagged with the
+     * dependency.
+     */
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("resilience.circuit.state", this, guard -> guard.getState().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .tag("dependency", name)
+                .register(registry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public boolean isOpen() {
+        return getState() == State.OPEN;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            if (!tryAcquire()) {
+                throw new DependencyUnavailableException(name + " is unavailable, circuit is open");
+            }
+            try {
+                T result = call.get();
+                onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                boolean retry = transientFailure.test(e);
+                onFailure(e);
+                if (!retry || attempt >= maxAttempts || isOpen()) {
+                    throw e;
+                }
+                long delay = backoffMillis(attempt);
+                log.warn("Call to {} failed (attempt {} of {}), retrying in {} ms: {}",
+                        name, attempt, maxAttempts, delay, e.getMessage());
+                count("resilience.retries", null);
+                sleep(delay);
+            }
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * For callers that cannot use {@link #call}, such as asynchronous requests: asks for permission to
+     * make one request, whose outcome must then be reported with {@link #onSuccess()} or
+     * {@link #onFailure(Throwable)}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probing = false;
+            log.info("Circuit of {} half-open, letting a probe through", name);
+        }
+        if (state == State.CLOSED || state == State.HALF_OPEN && !probing) {
+            probing = state == State.HALF_OPEN;
+            return true;
+        }
+        count("resilience.calls", "rejected");
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit of {} closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+        count("resilience.calls", "success");
+    }
+
+    public synchronized void onFailure(Throwable failure) {
+        if (!transientFailure.test(failure)) {
+            onSuccess();
+            return;
+        }
+        count("resilience.calls", "failure");
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.error("Circuit of {} opened after {} failures in a row, last: {}",
+                        name, consecutiveFailures, failure.getMessage());
+            }
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+            probing = false;
+        }
+    }
+
+    /**
+     * @param attempt the attempt that just failed, starting at 1
+     */
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void count(String meter, String outcome) {
+        if (registry == null) {
+            return;
+        }
+        Counter.Builder counter = Counter.builder(meter).tag("dependency", name);
+        if (outcome != null) {
+            counter.tag("outcome", outcome);
+        }
+        counter.register(registry).increment();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvoiceProcessingException("Interrupted while backing off", e);
+        }
+    }
+}
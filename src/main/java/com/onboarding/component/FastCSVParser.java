@@ -0,0 +1,212 @@
+package com.onboarding.component;
+
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.exception.InvoiceProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Single-pass parser for the {@code |;} invoice format.
+ * <p>
+ * Scans the delimiter by hand over a per-thread char buffer and decodes only the fields that end up
+ * in {@link InvoiceDTO} (0-4, 10, 11, 15-17) straight from their offsets. Any line the fast path does
+ * not fully understand is handed to {@link CSVParser#parseLine}, so results and error messages stay
+ * identical to the regex parser.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "processing.parser.mode", havingValue = "fast", matchIfMissing = true)
+@Slf4j
+public class FastCSVParser extends CSVParser {
+    private static final int FIELD_COUNT = 18;
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    @Override
+    public InvoiceDTO parseLine(String csvLine, int lineNumber) throws InvoiceProcessingException {
+        InvoiceDTO dto = csvLine == null ? null : tryParse(csvLine, lineNumber);
+        if (dto == null) {
+            return super.parseLine(csvLine, lineNumber);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Parsing line {}: {}", lineNumber, csvLine);
+        }
+        return dto;
+    }
+
+    /**
+     * @return the parsed invoice, or {@code null} when the line has to go through the regex parser
+     */
+    private InvoiceDTO tryParse(String csvLine, int lineNumber) {
+        Scratch scratch = SCRATCH.get();
+        char[] buf = scratch.chars(csvLine.length());
+        int length = csvLine.length();
+        csvLine.getChars(0, length, buf, 0);
+
+        if (!splitFields(buf, length, scratch.starts, scratch.ends)) {
+            return null;
+        }
+        int[] starts = scratch.starts;
+        int[] ends = scratch.ends;
+
+        LocalDate issueDate = parseDate(buf, starts[2], ends[2]);
+        LocalDate periodFrom = parseDate(buf, starts[3], ends[3]);
+        LocalDate periodTo = parseDate(buf, starts[4], ends[4]);
+        BigDecimal gross = parseDecimal(buf, starts[15], ends[15]);
+        BigDecimal net = parseDecimal(buf, starts[16], ends[16]);
+        BigDecimal tax = parseDecimal(buf, starts[17], ends[17]);
+        if (issueDate == null || periodFrom == null || periodTo == null
+                || gross == null || net == null || tax == null) {
+            return null;
+        }
+
+        int firstNameLength = ends[10] - starts[10];
+        int lastNameLength = ends[11] - starts[11];
+        String name = new StringBuilder(firstNameLength + lastNameLength + 1)
+                .append(buf, starts[10], firstNameLength)
+                .append(' ')
+                .append(buf, starts[11], lastNameLength)
+                .toString();
+
+        return InvoiceDTO.builder()
+                .billId(trimmed(buf, starts[0], ends[0]))
+                .accountId(trimmed(buf, starts[1], ends[1]))
+                .issueDate(issueDate)
+                .billPeriodFrom(periodFrom)
+                .billPeriodTo(periodTo)
+                .name(name)
+                .grossAmount(gross)
+                .netAmount(net)
+                .taxAmount(tax)
+                .rawLine(csvLine)
+                .lineNumber(lineNumber)
+                .build();
+    }
+
+    /**
+     * Records the offsets of the first {@value #FIELD_COUNT} fields, splitting on {@code |;} the same
+     * way {@code String.split("\\|;", -1)} does.
+     */
+    static boolean splitFields(char[] buf, int length, int[] starts, int[] ends) {
+        int field = 0;
+        starts[0] = 0;
+        for (int i = 0; i < length - 1; i++) {
+            if (buf[i] == '|' && buf[i + 1] == ';') {
+                ends[field] = i;
+                if (++field == FIELD_COUNT) {
+                    return true;
+                }
+                starts[field] = i + 2;
+                i++;
+            }
+        }
+        if (field == FIELD_COUNT - 1) {
+            ends[field] = length;
+            return true;
+        }
+        return false;
+    }
+
+    private static String trimmed(char[] buf, int start, int end) {
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+        return new String(buf, start, end - start);
+    }
+
+    /**
+     * Decodes {@code dd.MM.yyyy}. Returns {@code null} for anything that is not a plain, valid date so
+     * the regex parser can apply its own resolution rules or report the error.
+     */
+    static LocalDate parseDate(char[] buf, int start, int end) {
+        if (end - start != 10 || buf[start + 2] != '.' || buf[start + 5] != '.') {
+            return null;
+        }
+        int day = digits(buf, start, 2);
+        int month = digits(buf, start + 3, 2);
+        int year = digits(buf, start + 6, 4);
+        if (day < 1 || month < 1 || month > 12 || year < 1) {
+            return null;
+        }
+        if (day > 28 && day > LocalDate.of(year, month, 1).lengthOfMonth()) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digits(char[] buf, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a trimmed {@code [+-]digits[.digits]} value into a {@link BigDecimal} with the same scale
+     * {@code new BigDecimal(String)} would give. Returns {@code null} for exponents, more than
+     * {@value #MAX_LONG_DIGITS} digits or anything malformed.
+     */
+    static BigDecimal parseDecimal(char[] buf, int start, int end) {
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        boolean negative = buf[start] == '-';
+        if (negative || buf[start] == '+') {
+            start++;
+        }
+        long unscaled = 0;
+        int digitCount = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digitCount > MAX_LONG_DIGITS) {
+                return null;
+            }
+            unscaled = unscaled * 10 + (c - '0');
+            if (fraction) {
+                scale++;
+            }
+        }
+        if (digitCount == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static final class Scratch {
+        private char[] chars = new char[512];
+        private final int[] starts = new int[FIELD_COUNT];
+        private final int[] ends = new int[FIELD_COUNT];
+
+        char[] chars(int length) {
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            return chars;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.onboarding.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local stand-in for a shared store, bounded by total bytes. Each group is held as one immutable map
+ * that is replaced on every write, so Caffeine re-weighs it and a group is evicted in one step.
+ * Useful for a single replica and for tests; it is not shared between JVMs.
+ */
+public class InMemorySharedCacheStore implements SharedCacheStore {
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final Cache<String, Map<String, Entry>> groups;
+
+    public InMemorySharedCacheStore(long maxBytes) {
+        this.groups = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String group, Map<String, Entry> entries) -> weigh(entries))
+                .build();
+    }
+
+    @Override
+    public byte[] get(String cacheName, String group, String key) {
+        Map<String, Entry> entries = groups.getIfPresent(groupKey(cacheName, group));
+        Entry entry = entries == null ? null : entries.get(key);
+        if (entry == null || entry.expiresAtMillis < System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public void put(String cacheName, String group, String key, byte[] value, Duration ttl) {
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttl.toMillis());
+        groups.asMap().compute(groupKey(cacheName, group), (ignored, entries) -> {
+            Map<String, Entry> updated = entries == null ? new HashMap<>() : new HashMap<>(entries);
+            updated.put(key, entry);
+            return Map.copyOf(updated);
+        });
+    }
+
+    @Override
+    public void evict(String cacheName, String group, String key) {
+        groups.asMap().computeIfPresent(groupKey(cacheName, group), (ignored, entries) -> {
+            Map<String, Entry> updated = new HashMap<>(entries);
+            updated.remove(key);
+            return updated.isEmpty() ? null : Map.copyOf(updated);
+        });
+    }
+
+    @Override
+    public void evictGroup(String cacheName, String group) {
+        groups.invalidate(groupKey(cacheName, group));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        String prefix = cacheName + '\u0000';
+        groups.asMap().keySet().removeIf(group -> group.startsWith(prefix));
+    }
+
+    private static String groupKey(String cacheName, String group) {
+        return cacheName + '\u0000' + group;
+    }
+
+    private static int weigh(Map<String, Entry> entries) {
+        long bytes = 0;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            bytes += ENTRY_OVERHEAD_BYTES + 2L * entry.getKey().length() + entry.getValue().value.length;
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAtMillis;
+
+        private Entry(byte[] value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
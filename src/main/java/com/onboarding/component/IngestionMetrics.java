@@ -0,0 +1,134 @@
+package com.onboarding.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the ingestion path, exported through Actuator ({@code /actuator/prometheus}). Rates such as
+ * S3 bytes/s or parsed lines/s come from the counters; the per-file summaries show how individual files
+ * behaved, which is what {@code processing.batch.size} and pod sizing are tuned against.
+ */
+@Component
+public class IngestionMetrics {
+    private final MeterRegistry registry;
+    private final Timer s3FirstByte;
+    private final Timer s3RangeRead;
+    private final Counter s3Bytes;
+    private final Counter linesParsed;
+    private final Counter parseErrors;
+    private final DistributionSummary fileLinesPerSecond;
+    private final DistributionSummary fileParseErrorRatio;
+    private final Counter sqsFailures;
+
+    public IngestionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.s3FirstByte = Timer.builder("invoice.s3.first.byte")
+                .description("Time until S3 returned the response headers of a GetObject")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.s3RangeRead = Timer.builder("invoice.s3.range.read")
+                .description("Time to download one ranged chunk")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.s3Bytes = Counter.builder("invoice.s3.bytes")
+                .description("Bytes read from S3")
+                .baseUnit("bytes")
+                .register(registry);
+        this.linesParsed = Counter.builder("invoice.parse.lines")
+                .description("Invoice lines parsed")
+                .register(registry);
+        this.parseErrors = Counter.builder("invoice.parse.errors")
+                .description("Invoice lines rejected by the parser")
+                .register(registry);
+        this.fileLinesPerSecond = DistributionSummary.builder("invoice.file.lines.per.second")
+                .description("Lines processed per second, one sample per file")
+                .register(registry);
+        this.fileParseErrorRatio = DistributionSummary.builder("invoice.file.parse.error.ratio")
+                .description("Share of a file's lines rejected by the parser, one sample per file")
+                .register(registry);
+        this.sqsFailures = Counter.builder("invoice.sqs.failures")
+                .description("Messages that could not be published to SQS")
+                .register(registry);
+    }
+
+    public void recordS3FirstByte(long nanos) {
+        s3FirstByte.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordS3RangeRead(long nanos, int bytes) {
+        s3RangeRead.record(nanos, TimeUnit.NANOSECONDS);
+        s3Bytes.increment(bytes);
+    }
+
+    /**
+     * @param outcome {@code issued} when a second request for a slow chunk goes out, {@code won} when it answers first
+     */
+    public void recordS3Hedge(String outcome) {
+        registry.counter("invoice.s3.hedges", "outcome", outcome).increment();
+    }
+
+    public void recordS3Bytes(int bytes) {
+        s3Bytes.increment(bytes);
+    }
+
+    public void recordParsed(int lines, int errors) {
+        linesParsed.increment(lines);
+        if (errors > 0) {
+            parseErrors.increment(errors);
+        }
+    }
+
+    public void recordFile(int lines, int parseErrors, long nanos) {
+        if (lines == 0) {
+            return;
+        }
+        fileLinesPerSecond.record(lines / (nanos / 1e9));
+        fileParseErrorRatio.record((double) parseErrors / lines);
+    }
+
+    /**
+     * @param operation {@code insert} for unordered bulk inserts, {@code save} for {@code saveAll}
+     */
+    public void recordMongoBatch(String operation, int size, long nanos, boolean success) {
+        Timer.builder("invoice.mongo.batch")
+                .description("Latency of one batch write to MongoDB")
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("invoice.mongo.batch.size")
+                .tag("operation", operation)
+                .register(registry)
+                .record(size);
+    }
+
+    /**
+     * @param api {@code batch} for SendMessageBatch, {@code single} for SendMessage
+     */
+    public void recordSqsSend(String api, long nanos, boolean success) {
+        Timer.builder("invoice.sqs.send")
+                .description("Latency of one SQS send request")
+                .tag("api", api)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSqsFailures(int messages) {
+        sqsFailures.increment(messages);
+    }
+
+    /**
+     * @param reason {@code file-limit}, {@code queue-full} or {@code dependency-unavailable}
+     */
+    public void recordJobRejected(String reason) {
+        registry.counter("invoice.jobs.rejected", "reason", reason).increment();
+    }
+}
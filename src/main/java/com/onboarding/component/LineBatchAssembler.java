@@ -0,0 +1,141 @@
+package com.onboarding.component;
+
+import com.onboarding.dto.LineBatch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Turns consecutive byte chunks of a file, cut at arbitrary positions, into numbered {@link LineBatch}es.
+ * Lines are terminated the same way {@link java.io.BufferedReader#readLine()} terminates them. A partial
+ * line at the end of a chunk is carried over to the next one, so line numbers and byte offsets stay
+ * global. Lines are split on the raw bytes, which is safe for UTF-8 because {@code \n} and {@code \r}
+ * never occur inside a multi-byte sequence.
+ * <p>
+ * Not thread-safe: feed chunks in file order from a single thread.
+ */
+public class LineBatchAssembler {
+    private final IntSupplier linesPerBatch;
+    private final Consumer<LineBatch> sink;
+    private final ByteArrayOutputStream carry = new ByteArrayOutputStream();
+    private List<String> lines;
+    private int batchLimit;
+    private int nextLineNumber;
+    private int batchFirstLineNumber;
+    private long offset;
+
+    public LineBatchAssembler(int firstLineNumber, int linesPerBatch, Consumer<LineBatch> sink) {
+        this(firstLineNumber, 0, linesPerBatch, sink);
+    }
+
+    /**
+     * @param startOffset byte offset in the file of the first chunk that will be fed
+     */
+    public LineBatchAssembler(int firstLineNumber, long startOffset, int linesPerBatch, Consumer<LineBatch> sink) {
+        this(firstLineNumber, startOffset, () -> linesPerBatch, sink);
+    }
+
+    /**
+     * @param linesPerBatch asked once per batch, when the batch is started
+     */
+    public LineBatchAssembler(int firstLineNumber, long startOffset, IntSupplier linesPerBatch, Consumer<LineBatch> sink) {
+        this.linesPerBatch = linesPerBatch;
+        this.sink = sink;
+        this.nextLineNumber = firstLineNumber;
+        this.batchFirstLineNumber = firstLineNumber;
+        this.offset = startOffset;
+        startBatch();
+    }
+
+    public void accept(byte[] chunk) {
+        accept(chunk, 0, chunk.length);
+    }
+
+    public void accept(byte[] chunk, int offset, int length) {
+        int lastNewline = -1;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            if (chunk[i] == '\n') {
+                lastNewline = i;
+                break;
+            }
+        }
+        if (lastNewline < 0) {
+            carry.write(chunk, offset, length);
+            return;
+        }
+
+        if (carry.size() == 0) {
+            split(chunk, offset, lastNewline + 1);
+        } else {
+            carry.write(chunk, offset, lastNewline + 1 - offset);
+            byte[] complete = carry.toByteArray();
+            carry.reset();
+            split(complete, 0, complete.length);
+        }
+        carry.write(chunk, lastNewline + 1, offset + length - lastNewline - 1);
+    }
+
+    /**
+     * Emits the trailing unterminated line, if any, and the last partial batch.
+     */
+    public void finish() {
+        if (carry.size() > 0) {
+            byte[] rest = carry.toByteArray();
+            carry.reset();
+            split(rest, 0, rest.length);
+        }
+        flush();
+    }
+
+    /**
+     * @return the number the next emitted line will get
+     */
+    public int getNextLineNumber() {
+        return nextLineNumber;
+    }
+
+    private void split(byte[] bytes, int from, int to) {
+        int start = from;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '\n' || b == '\r') {
+                int end = i;
+                if (b == '\r' && i + 1 < to && bytes[i + 1] == '\n') {
+                    i++;
+                }
+                add(bytes, start, end, i + 1 - start);
+                start = i + 1;
+            }
+        }
+        if (start < to) {
+            add(bytes, start, to, to - start);
+        }
+    }
+
+    private void add(byte[] bytes, int start, int end, int consumed) {
+        lines.add(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        offset += consumed;
+        nextLineNumber++;
+        if (lines.size() >= batchLimit) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (lines.isEmpty()) {
+            return;
+        }
+        sink.accept(new LineBatch(batchFirstLineNumber, lines, offset));
+        batchFirstLineNumber = nextLineNumber;
+        startBatch();
+    }
+
+    private void startBatch() {
+        batchLimit = Math.max(1, linesPerBatch.getAsInt());
+        lines = new ArrayList<>(batchLimit);
+    }
+}
@@ -0,0 +1,116 @@
+package com.onboarding.component;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The {@link DependencyGuard}s of S3, MongoDB and SQS, built by {@code ResilienceConfig}. While any of
+ * their circuits is open, ingestion is paused: new files are turned away instead of being started
+ * against a service that is known to be down.
+ */
+public class Resilience implements MeterBinder {
+    private final DependencyGuard s3;
+    private final DependencyGuard mongo;
+    private final DependencyGuard sqs;
+
+    public Resilience(DependencyGuard s3, DependencyGuard mongo, DependencyGuard sqs) {
+        this.s3 = s3;
+        this.mongo = mongo;
+        this.sqs = sqs;
+    }
+
+    /**
+     * Guards that make every call once and never open, for {@code resilience.enabled: false} and tests.
+     */
+    public static Resilience passThrough() {
+        return new Resilience(passThrough("s3"), passThrough("mongo"), passThrough("sqs"));
+    }
+
+    private static DependencyGuard passThrough(String name) {
+        return DependencyGuard.builder()
+                .name(name)
+                .maxAttempts(1)
+                .failureThreshold(Integer.MAX_VALUE)
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        guards().forEach(guard -> guard.bindTo(registry));
+    }
+
+    public DependencyGuard s3() {
+        return s3;
+    }
+
+    public DependencyGuard mongo() {
+        return mongo;
+    }
+
+    public DependencyGuard sqs() {
+        return sqs;
+    }
+
+    public boolean isIngestPaused() {
+        return guards().stream().anyMatch(DependencyGuard::isOpen);
+    }
+
+    /**
+     * The open circuits, for the rejection message.
+     */
+    public List<String> openCircuits() {
+        return guards().stream().filter(DependencyGuard::isOpen).map(DependencyGuard::getName).toList();
+    }
+
+    private List<DependencyGuard> guards() {
+        return List.of(s3, mongo, sqs);
+    }
+
+    /**
+     * Server errors, throttling and failures to reach AWS at all; a 4xx such as a missing key is an
+     * answer, not an outage.
+     */
+    public static boolean isTransientAwsFailure(Throwable failure) {
+        return anyCause(failure, cause -> cause instanceof AwsServiceException aws
+                        && (aws.statusCode() >= 500 || aws.isThrottlingException())
+                || cause instanceof SdkClientException
+                || cause instanceof IOException
+                || cause instanceof UncheckedIOException);
+    }
+
+    /**
+     * Lost connections, elections and timeouts; a duplicate key or validation error is not retried.
+     */
+    public static boolean isTransientMongoFailure(Throwable failure) {
+        return anyCause(failure, cause -> cause instanceof MongoSocketException
+                || cause instanceof MongoTimeoutException
+                || cause instanceof MongoNotPrimaryException
+                || cause instanceof MongoNodeIsRecoveringException
+                || cause instanceof MongoExecutionTimeoutException
+                || cause instanceof TransientDataAccessException
+                || cause instanceof DataAccessResourceFailureException);
+    }
+
+    private static boolean anyCause(Throwable failure, Predicate<Throwable> test) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (test.test(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
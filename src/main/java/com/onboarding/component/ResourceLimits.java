@@ -0,0 +1,92 @@
+package com.onboarding.component;
+
+import com.onboarding.exception.InvoiceProcessingException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps how much work runs against each backing resource at once. With virtual threads there is no pool
+ * size left to do this, so files in flight, S3 requests and Mongo writes each get their own semaphore.
+ * Files are admitted with {@link #tryAcquireFile()} so an overloaded service says no straight away;
+ * S3 and Mongo calls wait for a permit.
+ */
+@Component
+public class ResourceLimits implements MeterBinder {
+    private final int fileLimit;
+    private final int s3Limit;
+    private final int mongoLimit;
+    private final Semaphore files;
+    private final Semaphore s3;
+    private final Semaphore mongo;
+
+    public ResourceLimits(@Value("${processing.limits.files}") int files,
+                          @Value("${processing.limits.s3}") int s3,
+                          @Value("${processing.limits.mongo}") int mongo) {
+        this.fileLimit = files;
+        this.s3Limit = s3;
+        this.mongoLimit = mongo;
+        this.files = new Semaphore(files);
+        this.s3 = new Semaphore(s3);
+        this.mongo = new Semaphore(mongo);
+    }
+
+    /**
+     * Exposes the permits in use per resource as {@code invoice.limits.in.use}, which is the queue depth
+     * equivalent once files run on virtual threads.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        inUse(registry, "files", files, fileLimit);
+        inUse(registry, "s3", s3, s3Limit);
+        inUse(registry, "mongo", mongo, mongoLimit);
+    }
+
+    private static void inUse(MeterRegistry registry, String resource, Semaphore permits, int limit) {
+        Gauge.builder("invoice.limits.in.use", permits, p -> limit - p.availablePermits())
+                .tag("resource", resource)
+                .register(registry);
+        Gauge.builder("invoice.limits.queued", permits, Semaphore::getQueueLength)
+                .tag("resource", resource)
+                .register(registry);
+    }
+
+    public boolean tryAcquireFile() {
+        return files.tryAcquire();
+    }
+
+    public void releaseFile() {
+        files.release();
+    }
+
+    public int filesInProgress() {
+        return fileLimit - files.availablePermits();
+    }
+
+    public <T> T s3(Supplier<T> call) {
+        return withPermit(s3, "S3", call);
+    }
+
+    public <T> T mongo(Supplier<T> call) {
+        return withPermit(mongo, "MongoDB", call);
+    }
+
+    private static <T> T withPermit(Semaphore permits, String resource, Supplier<T> call) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvoiceProcessingException("Interrupted while waiting for " + resource, e);
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.onboarding.component;
+
+import java.time.Duration;
+
+/**
+ * Second cache tier shared by all replicas. Values are opaque serialized bytes. Entries are grouped
+ * (per account for the invoice caches) so that a whole group can be dropped at once, e.g. as one
+ * hash per group in a key-value server.
+ */
+public interface SharedCacheStore {
+
+    byte[] get(String cacheName, String group, String key);
+
+    void put(String cacheName, String group, String key, byte[] value, Duration ttl);
+
+    void evict(String cacheName, String group, String key);
+
+    void evictGroup(String cacheName, String group);
+
+    void clear(String cacheName);
+}
@@ -0,0 +1,466 @@
+package com.onboarding.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with a per-JVM Caffeine near cache (L1) in front of an
+ * optional {@link SharedCacheStore} (L2). Both tiers hold values in their {@link CacheValueCodec} form,
+ * and L1 is bounded by the total size of those bytes rather than by entry count. An L2 hit is copied
+ * into L1. L2 failures are logged and treated as misses, so a shared tier outage only costs hit rate.
+ * <p>
+ * Keys are indexed by account, so every entry of one account can be dropped in time proportional to
+ * that account's keys ({@link #evictAccount(String)}). Entries Caffeine evicts on its own are removed
+ * from the index as they go.
+ * <p>
+ * Misses are loaded once per key however many callers ask at the same time, and each entry expires
+ * after the TTL plus or minus a random jitter so entries written together do not all expire together.
+ * Callers of {@link #getOrLoad(Object, Supplier)} also get refresh-ahead: reading an entry older than
+ * {@code refreshAfter} reloads it in the background while the current value is still served. A load
+ * that overlaps an eviction of its account, or a {@link #clear()}, is returned to its caller but not
+ * cached, so it cannot put back data the eviction was meant to drop. Evictions of other accounts do not
+ * matter, so loads keep being cached while ingest evicts accounts batch after batch.
+ * <p>
+ * For that, a load takes the current generation token of its account and caches its value only if the
+ * token is still the same, checked and written to L1 atomically for the account. Evictions drop the
+ * token, so tokens are only kept for accounts loaded within the TTL, up to
+ * {@value #MAX_TRACKED_ACCOUNTS}; a token lost to that bound only costs a load its caching.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+    static final int MAX_TRACKED_ACCOUNTS = 10_000;
+
+    private final String name;
+    private final Cache<Object, Entry> l1;
+    private final SharedCacheStore l2;
+    private final Duration ttl;
+    private final double ttlJitter;
+    private final long refreshAfterNanos;
+    private final Executor refreshExecutor;
+    private final CacheValueCodec codec;
+    private final Function<Object, String> accountOf;
+    private final Map<String, Set<Object>> keysByAccount;
+    private final Map<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    private final Cache<String, Generation> generations;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder l2Errors = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    /**
+     * @param sharedStore     shared tier, or {@code null} to run with L1 only
+     * @param ttlJitter       fraction of the TTL by which each entry's expiry is randomly moved, e.g. 0.1
+     * @param refreshAfter    age after which a read through {@link #getOrLoad} reloads the entry; {@code null}
+     *                        disables refresh-ahead
+     * @param refreshExecutor runs background refreshes
+     * @param accountOf       extracts the account id from a cache key
+     */
+    @Builder
+    public TwoTierCache(String name, long l1MaxBytes, Duration ttl, double ttlJitter, Duration refreshAfter,
+                        Executor refreshExecutor, SharedCacheStore sharedStore, CacheValueCodec codec,
+                        Function<Object, String> accountOf) {
+        super(false);
+        this.name = name;
+        this.l2 = sharedStore;
+        this.ttl = ttl;
+        this.ttlJitter = ttlJitter;
+        this.refreshAfterNanos = refreshAfter == null ? Long.MAX_VALUE : refreshAfter.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.codec = codec;
+        this.accountOf = accountOf;
+        Map<String, Set<Object>> index = new ConcurrentHashMap<>();
+        this.keysByAccount = index;
+        this.l1 = Caffeine.newBuilder()
+                .expireAfter(new JitteredExpiry())
+                .maximumWeight(l1MaxBytes)
+                .weigher((Object key, Entry entry) -> entry.bytes.length)
+                .recordStats()
+                .evictionListener((Object key, Entry entry, RemovalCause cause) ->
+                        unindex(index, accountOf.apply(key), key))
+                .build();
+        this.generations = Caffeine.newBuilder()
+                .expireAfterAccess(ttl)
+                .maximumSize(MAX_TRACKED_ACCOUNTS)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l1;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry = lookupEntry(key);
+        return entry == null ? null : codec.decode(entry.bytes);
+    }
+
+    /**
+     * Spring's {@code @Cacheable(sync = true)} entry point: concurrent misses on one key share a single
+     * load. The loader is bound to the calling invocation, so it is never used for refreshes.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        try {
+            return (T) load(key, () -> {
+                try {
+                    return valueLoader.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+        } catch (CompletionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    /**
+     * Returns the cached value or loads it once for all concurrent callers. A hit on an entry older than
+     * {@code refreshAfter} schedules a background reload with {@code loader} and returns the current value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(Object key, Supplier<T> loader) {
+        Entry entry = lookupEntry(key);
+        if (entry == null) {
+            try {
+                return (T) load(key, loader);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        if (System.nanoTime() - entry.writtenAtNanos >= refreshAfterNanos) {
+            refresh(key, loader);
+        }
+        return (T) codec.decode(entry.bytes);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        byte[] bytes = codec.encode(value);
+        index(key);
+        l1.put(key, new Entry(bytes));
+        if (l2 != null) {
+            l2Call(() -> l2.put(name, accountOf.apply(key), key.toString(), bytes, jitteredTtl()));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object existing = lookup(key);
+        if (existing != null) {
+            return toValueWrapper(existing);
+        }
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String account = accountOf.apply(key);
+        generations.invalidate(account);
+        l1.invalidate(key);
+        unindex(keysByAccount, account, key);
+        if (l2 != null) {
+            l2Call(() -> l2.evict(name, account, key.toString()));
+        }
+    }
+
+    @Override
+    public void clear() {
+        generations.invalidateAll();
+        l1.invalidateAll();
+        keysByAccount.clear();
+        if (l2 != null) {
+            l2Call(() -> l2.clear(name));
+        }
+    }
+
+    /**
+     * Drops every entry of the account from both tiers.
+     */
+    public void evictAccount(String accountId) {
+        generations.invalidate(accountId);
+        Set<Object> keys = keysByAccount.remove(accountId);
+        if (keys != null) {
+            l1.invalidateAll(keys);
+        }
+        if (l2 != null) {
+            l2Call(() -> l2.evictGroup(name, accountId));
+        }
+    }
+
+    public long getL1Hits() {
+        return l1Hits.sum();
+    }
+
+    public long getL1Misses() {
+        return l1Misses.sum();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public long getL2Misses() {
+        return l2Misses.sum();
+    }
+
+    public long getL2Errors() {
+        return l2Errors.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * @return misses that waited for another caller's load instead of loading themselves
+     */
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * @return serialized bytes currently held in L1
+     */
+    public long getL1WeightBytes() {
+        return l1.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * The near cache itself, for binding its Caffeine statistics.
+     */
+    Cache<Object, ?> l1() {
+        return l1;
+    }
+
+    long trackedGenerationCount() {
+        generations.cleanUp();
+        return generations.estimatedSize();
+    }
+
+    int indexedKeyCount(String accountId) {
+        Set<Object> keys = keysByAccount.get(accountId);
+        return keys == null ? 0 : keys.size();
+    }
+
+    private Entry lookupEntry(Object key) {
+        Entry entry = l1.getIfPresent(key);
+        if (entry != null) {
+            l1Hits.increment();
+            return entry;
+        }
+        l1Misses.increment();
+        if (l2 == null) {
+            return null;
+        }
+        byte[] bytes = l2Get(key);
+        if (bytes == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        entry = new Entry(bytes);
+        index(key);
+        l1.put(key, entry);
+        return entry;
+    }
+
+    private Object load(Object key, Supplier<?> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            return inFlight.join();
+        }
+        try {
+            Object value = loadAndCache(key, loader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private void refresh(Object key, Supplier<?> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, mine) != null) {
+            return;
+        }
+        refreshes.increment();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    mine.complete(loadAndCache(key, loader));
+                } catch (RuntimeException e) {
+                    log.warn("Refreshing {} in {} failed: {}", key, name, e.getMessage());
+                    mine.completeExceptionally(e);
+                } finally {
+                    loading.remove(key, mine);
+                }
+            });
+        } catch (RuntimeException e) {
+            loading.remove(key, mine);
+            mine.complete(null);
+            log.warn("Could not schedule refresh of {} in {}: {}", key, name, e.getMessage());
+        }
+    }
+
+    private Object loadAndCache(Object key, Supplier<?> loader) {
+        String account = accountOf.apply(key);
+        Generation generation = generations.get(account, ignored -> new Generation());
+        loads.increment();
+        Object value = loader.get();
+        if (value != null) {
+            putIfCurrent(key, account, value, generation);
+        }
+        return value;
+    }
+
+    /**
+     * Writes L1 under the account's generation entry, the entry an eviction removes before it drops the
+     * account's keys, so a value either lands before the eviction and is dropped by it, or is not
+     * written at all. L2 is written outside that lock and taken back if an eviction came in meanwhile.
+     */
+    private void putIfCurrent(Object key, String account, Object value, Generation generation) {
+        byte[] bytes = codec.encode(value);
+        boolean[] written = new boolean[1];
+        generations.asMap().computeIfPresent(account, (ignored, current) -> {
+            if (current == generation) {
+                index(key);
+                l1.put(key, new Entry(bytes));
+                written[0] = true;
+            }
+            return current;
+        });
+        if (!written[0] || l2 == null) {
+            return;
+        }
+        l2Call(() -> l2.put(name, account, key.toString(), bytes, jitteredTtl()));
+        if (generations.getIfPresent(account) != generation) {
+            l1.invalidate(key);
+            unindex(keysByAccount, account, key);
+            l2Call(() -> l2.evict(name, account, key.toString()));
+        }
+    }
+
+    private Duration jitteredTtl() {
+        return Duration.ofNanos(jitteredTtlNanos());
+    }
+
+    private long jitteredTtlNanos() {
+        double factor = ttlJitter <= 0 ? 1 : 1 + ThreadLocalRandom.current().nextDouble(-ttlJitter, ttlJitter);
+        return (long) (ttl.toNanos() * factor);
+    }
+
+    private byte[] l2Get(Object key) {
+        try {
+            return l2.get(name, accountOf.apply(key), key.toString());
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.warn("Shared cache read of {} in {} failed: {}", key, name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void l2Call(Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.warn("Shared cache update of {} failed: {}", name, e.getMessage());
+        }
+    }
+
+    private void index(Object key) {
+        keysByAccount.computeIfAbsent(accountOf.apply(key), account -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private static void unindex(Map<String, Set<Object>> keysByAccount, String accountId, Object key) {
+        keysByAccount.computeIfPresent(accountId, (account, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Compared by identity: a new token replaces a dropped one, so an evicted account never gets back a
+     * token a running load may still hold.
+     */
+    private static final class Generation {
+    }
+
+    private static final class Entry {
+        private final byte[] bytes;
+        private final long writtenAtNanos;
+
+        private Entry(byte[] bytes) {
+            this.bytes = bytes;
+            this.writtenAtNanos = System.nanoTime();
+        }
+    }
+
+    private final class JitteredExpiry implements Expiry<Object, Entry> {
+        @Override
+        public long expireAfterCreate(Object key, Entry entry, long currentTime) {
+            return jitteredTtlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Entry entry, long currentTime, long currentDuration) {
+            return jitteredTtlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -4,16 +4,31 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@code async.invoice.mode=platform} runs files on a fixed pool with a bounded queue.
+ * {@code async.invoice.mode=virtual} starts a virtual thread per file; concurrency is then bounded by
+ * {@link com.onboarding.component.ResourceLimits} rather than by the pool. The build targets JDK 17, so
+ * virtual mode needs the service to run on JDK 21 or later and refuses to start otherwise. Either way a
+ * file that cannot be taken on is rejected with an exception instead of being dropped.
+ */
 @Configuration
 @EnableAsync
+@EnableScheduling
 @Slf4j
 public class AsyncConfig {
 
     @Value("${async.invoice.name}")
     private String invoiceAsyncName;
+    @Value("${async.invoice.mode}")
+    private String mode;
     @Value("${async.invoice.core-pool-size}")
     private int corePoolSize;
     @Value("${async.invoice.max-pool-size}")
@@ -23,13 +38,26 @@ public class AsyncConfig {
 
 
     @Bean
-    public ThreadPoolTaskExecutor taskExecutor() {
+    public AsyncTaskExecutor taskExecutor() {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            if (Runtime.version().feature() < 21) {
+                throw new IllegalStateException("async.invoice.mode=virtual needs JDK 21 or later, running on "
+                        + Runtime.version() + "; use async.invoice.mode=platform");
+            }
+            log.info("Running invoice processing on virtual threads");
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(invoiceAsyncName);
+            executor.setVirtualThreads(true);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(corePoolSize);
         executor.setMaxPoolSize(maxPoolSize);
         executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix(invoiceAsyncName);
-        executor.setRejectedExecutionHandler((r, executor1) -> log.warn("Task rejected, thread pool is full and queue is also full"));
+        executor.setRejectedExecutionHandler((r, executor1) -> {
+            log.warn("Task rejected, thread pool is full and queue is also full");
+            throw new RejectedExecutionException("Invoice processing queue is full");
+        });
         executor.initialize();
         return executor;
     }
@@ -4,6 +4,8 @@ import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 
 @Configuration
 public class AwsBaseConfig {
@@ -16,10 +18,24 @@ public class AwsBaseConfig {
     @Value("${aws.region}")
     protected String region;
 
+    @Value("${resilience.enabled}")
+    protected boolean resilienceEnabled;
+
     protected AwsBasicCredentials basicCredentials;
 
     @PostConstruct
     public void init() {
         this.basicCredentials = AwsBasicCredentials.create(accessKey, secretKey);
     }
+
+    /**
+     * With {@code resilience.enabled} the S3 and SQS guards retry failed calls themselves, so the SDK must
+     * not retry underneath them as well: its default of 3 attempts per call would multiply the guard's
+     * attempts and hide failures from the circuit breaker. Without the guards the SDK default is kept.
+     */
+    protected void configureRetries(ClientOverrideConfiguration.Builder override) {
+        if (resilienceEnabled) {
+            override.retryStrategy(AwsRetryStrategy.doNotRetry());
+        }
+    }
 }
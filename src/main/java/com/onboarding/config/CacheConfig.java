@@ -1,14 +1,27 @@
 package com.onboarding.config;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.onboarding.component.AccountCacheInvalidator;
+import com.onboarding.component.CacheValueCodec;
+import com.onboarding.component.InMemorySharedCacheStore;
+import com.onboarding.component.SharedCacheStore;
+import com.onboarding.component.TwoTierCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 @Configuration
 @EnableCaching
@@ -16,16 +29,57 @@ public class CacheConfig {
 
     @Value("${cache.TTL}")
     private int duration;
-    @Value("${cache.max-size}")
-    private int maxSize;
+    @Value("${cache.l1.max-bytes}")
+    private long l1MaxBytes;
+    @Value("${cache.ttl-jitter-percent}")
+    private int ttlJitterPercent;
+    @Value("${cache.refresh-after}")
+    private int refreshAfter;
+
+    private final CacheValueCodec codec = new CacheValueCodec();
+    private ExecutorService refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        this.refreshExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("CacheRefresh-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Shared second tier; without a {@link SharedCacheStore} bean the caches run on L1 only.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("accountInvoices");
-        cacheManager.setCaffeine(
-                Caffeine.newBuilder()
-                        .expireAfterWrite(Duration.ofMinutes(duration))
-                        .maximumSize(maxSize)
-        );
+    @ConditionalOnProperty(name = "cache.l2.type", havingValue = "memory")
+    public SharedCacheStore sharedCacheStore(@Value("${cache.l2.max-bytes}") long l2MaxBytes) {
+        return new InMemorySharedCacheStore(l2MaxBytes);
+    }
+
+    @Bean
+    public CacheManager cacheManager(ObjectProvider<SharedCacheStore> sharedCacheStore) {
+        SharedCacheStore l2 = sharedCacheStore.getIfAvailable();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                cache(AccountCacheInvalidator.ACCOUNT_INVOICES, l2, AccountCacheInvalidator::accountIdOfPageKey),
+                cache(AccountCacheInvalidator.ACCOUNT_INVOICE_COUNTS, l2, Object::toString),
+                cache(AccountCacheInvalidator.ACCOUNT_SUMMARIES, l2, Object::toString)));
         return cacheManager;
     }
-}
\ No newline at end of file
+
+    private TwoTierCache cache(String name, SharedCacheStore l2, Function<Object, String> accountOf) {
+        return TwoTierCache.builder()
+                .name(name)
+                .l1MaxBytes(l1MaxBytes)
+                .ttl(Duration.ofMinutes(duration))
+                .ttlJitter(ttlJitterPercent / 100.0)
+                .refreshAfter(Duration.ofMinutes(refreshAfter))
+                .refreshExecutor(refreshExecutor)
+                .sharedStore(l2)
+                .codec(codec)
+                .accountOf(accountOf)
+                .build();
+    }
+}
@@ -1,25 +1,91 @@
 package com.onboarding.config;
 
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.core.convert.DbRefResolver;
 import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
 @Configuration
 public class MongoConfig {
 
+    /**
+     * With {@code processing.persistence.decimal128} set, {@link BigDecimal}s are written as Decimal128 so
+     * Mongo can sum and range-filter amounts; otherwise they keep the default string form. Both forms are
+     * read back either way, so documents written before the switch stay readable until
+     * {@link com.onboarding.service.AmountMigrationService} has converted them.
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(
+            @Value("${processing.persistence.decimal128}") boolean decimal128) {
+        if (!decimal128) {
+            return new MongoCustomConversions(Collections.emptyList());
+        }
+        return new MongoCustomConversions(List.of(BigDecimalToDecimal128.INSTANCE, Decimal128ToBigDecimal.INSTANCE));
+    }
+
+    /**
+     * With {@code resilience.enabled} every read goes through the Mongo guard, which retries transient
+     * failures itself, so the driver's own retry of reads is turned off and a read makes at most
+     * {@code resilience.mongo.max-attempts} round trips. Retryable writes stay on: account summary
+     * increments, ledger and checkpoint writes are not guarded and rely on the driver's single retry being
+     * applied exactly once. A guarded batch write can therefore take up to
+     * {@code 2 * resilience.mongo.max-attempts} round trips.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoRetryCustomizer(
+            @Value("${resilience.enabled}") boolean resilienceEnabled) {
+        return settings -> {
+            if (resilienceEnabled) {
+                settings.retryReads(false);
+            }
+        };
+    }
+
     @Bean
     public MappingMongoConverter mappingMongoConverter(
             MongoDatabaseFactory databaseFactory,
-            MongoMappingContext mappingContext) {
+            MongoMappingContext mappingContext,
+            MongoCustomConversions conversions) {
 
         DbRefResolver dbRefResolver = new DefaultDbRefResolver(databaseFactory);
         MappingMongoConverter converter = new MappingMongoConverter(dbRefResolver, mappingContext);
         converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+        converter.setCustomConversions(conversions);
         return converter;
     }
+
+    @WritingConverter
+    enum BigDecimalToDecimal128 implements Converter<BigDecimal, Decimal128> {
+        INSTANCE;
+
+        @Override
+        public Decimal128 convert(BigDecimal source) {
+            return new Decimal128(source);
+        }
+    }
+
+    @ReadingConverter
+    enum Decimal128ToBigDecimal implements Converter<Decimal128, BigDecimal> {
+        INSTANCE;
+
+        @Override
+        public BigDecimal convert(Decimal128 source) {
+            return source.bigDecimalValue();
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package com.onboarding.config;
+
+import com.onboarding.component.DependencyGuard;
+import com.onboarding.component.Resilience;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ResilienceConfig {
+
+    @Value("${resilience.enabled}")
+    private boolean enabled;
+
+    @Value("${resilience.s3.max-attempts}")
+    private int s3MaxAttempts;
+    @Value("${resilience.s3.base-delay-millis}")
+    private long s3BaseDelayMillis;
+    @Value("${resilience.s3.max-delay-millis}")
+    private long s3MaxDelayMillis;
+    @Value("${resilience.s3.failure-threshold}")
+    private int s3FailureThreshold;
+    @Value("${resilience.s3.open-millis}")
+    private long s3OpenMillis;
+
+    @Value("${resilience.mongo.max-attempts}")
+    private int mongoMaxAttempts;
+    @Value("${resilience.mongo.base-delay-millis}")
+    private long mongoBaseDelayMillis;
+    @Value("${resilience.mongo.max-delay-millis}")
+    private long mongoMaxDelayMillis;
+    @Value("${resilience.mongo.failure-threshold}")
+    private int mongoFailureThreshold;
+    @Value("${resilience.mongo.open-millis}")
+    private long mongoOpenMillis;
+
+    @Value("${resilience.sqs.base-delay-millis}")
+    private long sqsBaseDelayMillis;
+    @Value("${resilience.sqs.max-delay-millis}")
+    private long sqsMaxDelayMillis;
+    @Value("${resilience.sqs.failure-threshold}")
+    private int sqsFailureThreshold;
+    @Value("${resilience.sqs.open-millis}")
+    private long sqsOpenMillis;
+
+    /**
+     * With {@code resilience.enabled: false} every call is made once and no circuit ever opens.
+     */
+    @Bean
+    public Resilience resilience() {
+        if (!enabled) {
+            return Resilience.passThrough();
+        }
+        return new Resilience(
+                DependencyGuard.builder()
+                        .name("s3")
+                        .maxAttempts(s3MaxAttempts)
+                        .baseDelay(Duration.ofMillis(s3BaseDelayMillis))
+                        .maxDelay(Duration.ofMillis(s3MaxDelayMillis))
+                        .failureThreshold(s3FailureThreshold)
+                        .openFor(Duration.ofMillis(s3OpenMillis))
+                        .transientFailure(Resilience::isTransientAwsFailure)
+                        .build(),
+                DependencyGuard.builder()
+                        .name("mongo")
+                        .maxAttempts(mongoMaxAttempts)
+                        .baseDelay(Duration.ofMillis(mongoBaseDelayMillis))
+                        .maxDelay(Duration.ofMillis(mongoMaxDelayMillis))
+                        .failureThreshold(mongoFailureThreshold)
+                        .openFor(Duration.ofMillis(mongoOpenMillis))
+                        .transientFailure(Resilience::isTransientMongoFailure)
+                        .build(),
+                // Failed SendMessageBatch entries are retried by SqsService, see aws.sqs.batch.max-retries
+                DependencyGuard.builder()
+                        .name("sqs")
+                        .maxAttempts(1)
+                        .baseDelay(Duration.ofMillis(sqsBaseDelayMillis))
+                        .maxDelay(Duration.ofMillis(sqsMaxDelayMillis))
+                        .failureThreshold(sqsFailureThreshold)
+                        .openFor(Duration.ofMillis(sqsOpenMillis))
+                        .transientFailure(Resilience::isTransientAwsFailure)
+                        .build());
+    }
+}
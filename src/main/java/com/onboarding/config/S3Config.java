@@ -16,6 +16,7 @@ public class S3Config extends AwsBaseConfig{
         return S3Client.builder()
                 .region(Region.of(region))
                 .credentialsProvider(StaticCredentialsProvider.create(basicCredentials))
+                .overrideConfiguration(this::configureRetries)
                 .forcePathStyle(true)
                 .build();
     }
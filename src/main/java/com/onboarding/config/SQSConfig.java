@@ -16,6 +16,7 @@ public class SQSConfig extends AwsBaseConfig {
         return SqsAsyncClient.builder()
                 .region(Region.of(region))
                 .credentialsProvider(StaticCredentialsProvider.create(basicCredentials))
+                .overrideConfiguration(this::configureRetries)
                 .build();
     }
 
@@ -2,20 +2,36 @@ package com.onboarding.controller;
 
 import com.onboarding.annotation.NotBlankOrNull;
 import com.onboarding.annotation.ValidInvoiceName;
+import com.onboarding.dto.CursorPage;
+import com.onboarding.dto.ExportFormat;
 import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.InvoiceTotals;
 import com.onboarding.dto.response.ApiResponse;
-import com.onboarding.dto.ProcessResult;
+import com.onboarding.entity.AccountSummary;
+import com.onboarding.dto.JobStatus;
+import com.onboarding.service.AccountSummaryService;
+import com.onboarding.service.InvoiceExportService;
+import com.onboarding.service.InvoiceJobService;
 import com.onboarding.service.InvoiceService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -24,6 +40,11 @@ import java.util.concurrent.ExecutionException;
 @Validated
 public class InvoiceController {
     private final InvoiceService invoiceService;
+    private final InvoiceJobService invoiceJobService;
+    private final InvoiceExportService invoiceExportService;
+    private final AccountSummaryService accountSummaryService;
+
+    private static final int MAX_SCROLL_PAGE_SIZE = 1000;
 
     @GetMapping("/{accountId}")
     public ResponseEntity<Page<InvoiceDTO>> getInvoicesByAccountId(
@@ -36,22 +57,104 @@ public class InvoiceController {
 
     }
 
+    /**
+     * Cursor-paginated listing for large accounts. Pass the {@code nextToken} of the previous page as
+     * {@code pageToken}; the total count is only computed when {@code withCount} is set.
+     */
+    @GetMapping("/{accountId}/scroll")
+    public ResponseEntity<CursorPage<InvoiceDTO>> scrollInvoicesByAccountId(
+            @PathVariable @NotBlankOrNull String accountId,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_SCROLL_PAGE_SIZE) int pageSize,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+
+        return ResponseEntity.ok(invoiceService.getInvoicesByAccountIdAfter(accountId, pageToken, pageSize, withCount));
+    }
+
+    /**
+     * Invoice count, issue date span and amount totals of everything ingested for the account, read
+     * from its precomputed summary.
+     */
+    @GetMapping("/{accountId}/summary")
+    public ResponseEntity<AccountSummary> getSummary(@PathVariable @NotBlankOrNull String accountId) {
+        return ResponseEntity.ok(accountSummaryService.getSummary(accountId));
+    }
+
+    /**
+     * Gross, net and tax totals of the invoices issued between {@code from} and {@code to}, both
+     * inclusive and optional, summed by Mongo instead of by paging through the account.
+     */
+    @GetMapping("/{accountId}/totals")
+    public ResponseEntity<InvoiceTotals> getTotals(
+            @PathVariable @NotBlankOrNull String accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return ResponseEntity.ok(invoiceService.getTotals(accountId, from, to));
+    }
+
+    /**
+     * The same totals per month of issue date; months without invoices are left out.
+     */
+    @GetMapping("/{accountId}/totals/monthly")
+    public ResponseEntity<List<InvoiceTotals>> getMonthlyTotals(
+            @PathVariable @NotBlankOrNull String accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return ResponseEntity.ok(invoiceService.getMonthlyTotals(accountId, from, to));
+    }
+
+    /**
+     * Streams every invoice of the account as NDJSON or {@code |;}-delimited CSV. The body is gzipped
+     * when the client accepts it.
+     */
+    @GetMapping("/{accountId}/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoicesByAccountId(
+            @PathVariable @NotBlankOrNull String accountId,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(accountId + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(invoiceExportService.export(accountId, format, gzip));
+    }
+
 
     @PostMapping("/{invoiceName}")
-    public ResponseEntity<ApiResponse<String>> processInvoiceFile (
-            @PathVariable @ValidInvoiceName String invoiceName) throws ExecutionException, InterruptedException {
+    public ResponseEntity<ApiResponse<JobStatus>> processInvoiceFile (
+            @PathVariable @ValidInvoiceName String invoiceName) {
+
+        JobStatus job = invoiceJobService.submit(invoiceName);
+        log.info("Job: {}", job);
+        return ResponseEntity.accepted()
+                .location(URI.create("/v1/invoice/jobs/" + job.getId()))
+                .body(ApiResponse.<JobStatus>builder()
+                        .body(job)
+                        .httpStatus(HttpStatus.ACCEPTED)
+                        .message("Accepted")
+                        .timestamp(LocalDateTime.now())
+                        .build());
+    }
 
-            ProcessResult result = invoiceService.processFileAsync(invoiceName).get();
-        log.info("Result: {}", result);
-        return ResponseEntity.ok(ApiResponse.<String>builder()
-                .body(result.getSummary())
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<JobStatus>> getJobStatus(@PathVariable @NotBlankOrNull String jobId) {
+        JobStatus job = invoiceJobService.getStatus(jobId);
+        return ResponseEntity.ok(ApiResponse.<JobStatus>builder()
+                .body(job)
                 .httpStatus(HttpStatus.OK)
-                .message("Success")
-                .errors(result.hasErrors() ? result.getErrors() : null)
+                .message(job.getState().name())
                 .timestamp(LocalDateTime.now())
                 .build());
     }
 
-
-
 }
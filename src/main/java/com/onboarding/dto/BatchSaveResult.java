@@ -0,0 +1,35 @@
+package com.onboarding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class BatchSaveResult {
+    private int insertedCount;
+    /** Position in the submitted batch mapped to the reason that entry was not written. */
+    @Builder.Default
+    private Map<Integer, String> failures = new LinkedHashMap<>();
+    /** Positions among {@link #failures} that were rejected because the bill ID already exists. */
+    @Builder.Default
+    private Set<Integer> duplicates = new HashSet<>();
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public boolean isFailed(int index) {
+        return failures.containsKey(index);
+    }
+
+    public boolean isDuplicate(int index) {
+        return duplicates.contains(index);
+    }
+}
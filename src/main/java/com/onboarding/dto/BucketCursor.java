@@ -0,0 +1,41 @@
+package com.onboarding.dto;
+
+import com.onboarding.exception.InvoiceProcessingException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last invoice returned in a keyset page of the {@code bucket} layout: the month and
+ * id of its bucket and its index in the bucket. Like {@link InvoiceCursor} it only leaves the service
+ * as an opaque, URL-safe token.
+ */
+@Data
+@AllArgsConstructor
+public class BucketCursor {
+    private static final String SEPARATOR = "|";
+
+    private final String month;
+    private final String bucketId;
+    private final int index;
+
+    public String encode() {
+        String raw = month + SEPARATOR + bucketId + SEPARATOR + index;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BucketCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || parts[0].isEmpty() || parts[1].isEmpty()) {
+                throw new InvoiceProcessingException("Invalid page token");
+            }
+            return new BucketCursor(parts[0], parts[1], Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvoiceProcessingException("Invalid page token", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.onboarding.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextToken} is absent on the last page;
+ * {@code totalElements} is only filled in when the client asked for it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private String nextToken;
+    private Long totalElements;
+
+    public boolean isHasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.onboarding.dto;
+
+import com.onboarding.exception.InvoiceProcessingException;
+
+import java.time.DateTimeException;
+
+/**
+ * What went wrong with a line, used to count errors without keeping every message.
+ */
+public enum ErrorCategory {
+    FIELD_COUNT,
+    DATE_FORMAT,
+    DECIMAL_FORMAT,
+    DUPLICATE,
+    PERSISTENCE,
+    SQS_FAILURE,
+    OTHER;
+
+    /**
+     * Classifies a failure of {@link com.onboarding.component.CSVParser#parseLine}, which wraps the
+     * underlying exception; a wrapped parser exception means the field count check failed.
+     */
+    public static ErrorCategory ofParseFailure(Throwable failure) {
+        Throwable cause = failure.getCause();
+        if (cause instanceof DateTimeException) {
+            return DATE_FORMAT;
+        }
+        if (cause instanceof NumberFormatException || cause instanceof ArithmeticException) {
+            return DECIMAL_FORMAT;
+        }
+        if (cause instanceof InvoiceProcessingException) {
+            return FIELD_COUNT;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,41 @@
+package com.onboarding.dto;
+
+import com.onboarding.exception.InvoiceProcessingException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last invoice returned in a keyset page: its {@code issue_date} and {@code _id}.
+ * Clients only ever see it as an opaque, URL-safe token.
+ */
+@Data
+@AllArgsConstructor
+public class InvoiceCursor {
+    private static final char SEPARATOR = '|';
+
+    private final LocalDate issueDate;
+    private final String id;
+
+    public String encode() {
+        String raw = issueDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static InvoiceCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0 || separator == raw.length() - 1) {
+                throw new InvoiceProcessingException("Invalid page token");
+            }
+            return new InvoiceCursor(LocalDate.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvoiceProcessingException("Invalid page token", e);
+        }
+    }
+}
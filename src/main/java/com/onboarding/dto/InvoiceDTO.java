@@ -1,5 +1,6 @@
 package com.onboarding.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -49,4 +50,7 @@ public class InvoiceDTO {
     private BigDecimal taxAmount;
 
     private String rawLine;
+
+    @JsonIgnore
+    private Integer lineNumber;
 }
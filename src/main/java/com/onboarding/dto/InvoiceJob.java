@@ -0,0 +1,65 @@
+package com.onboarding.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Live state of one file submitted for ingestion. The {@link ProcessResult} is filled in by the worker
+ * while the file is processed; the final state is set by whoever observes the processing future.
+ */
+@Getter
+public class InvoiceJob {
+    private final String id;
+    private final String filename;
+    private final ProcessResult result;
+    private final LocalDateTime submittedAt;
+    private volatile JobState state = JobState.QUEUED;
+    private volatile LocalDateTime finishedAt;
+    private volatile String failureMessage;
+
+    public InvoiceJob(String id, String filename) {
+        this.id = id;
+        this.filename = filename;
+        this.result = ProcessResult.builder().filename(filename).build();
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    /**
+     * A queued job counts as running as soon as the worker has read its first line.
+     */
+    public JobState getState() {
+        JobState current = state;
+        if (current == JobState.QUEUED && result.getLinesRead() > 0) {
+            return JobState.RUNNING;
+        }
+        return current;
+    }
+
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        state = JobState.COMPLETED;
+    }
+
+    public void fail(String message) {
+        failureMessage = message;
+        finishedAt = LocalDateTime.now();
+        state = JobState.FAILED;
+    }
+
+    public void reject(String message) {
+        failureMessage = message;
+        finishedAt = LocalDateTime.now();
+        state = JobState.REJECTED;
+    }
+
+    public void skip(String message) {
+        failureMessage = message;
+        finishedAt = LocalDateTime.now();
+        state = JobState.SKIPPED;
+    }
+
+    public boolean isFinished() {
+        return state.isFinished();
+    }
+}
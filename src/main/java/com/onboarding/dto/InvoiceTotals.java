@@ -0,0 +1,36 @@
+package com.onboarding.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sums over the invoices of one account, either for the whole requested range or for one month of it.
+ * {@code period} is the {@code yyyy-MM} of the invoices' issue date and absent on range totals.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InvoiceTotals {
+    private String accountId;
+    private String period;
+    private long invoiceCount;
+    private BigDecimal grossAmount;
+    private BigDecimal netAmount;
+    private BigDecimal taxAmount;
+
+    public static InvoiceTotals empty(String accountId) {
+        return InvoiceTotals.builder()
+                .accountId(accountId)
+                .grossAmount(BigDecimal.ZERO)
+                .netAmount(BigDecimal.ZERO)
+                .taxAmount(BigDecimal.ZERO)
+                .build();
+    }
+}
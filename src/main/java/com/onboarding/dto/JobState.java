@@ -0,0 +1,16 @@
+package com.onboarding.dto;
+
+public enum JobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    /** Stopped early because the file had too many bad lines. */
+    REJECTED,
+    /** Not processed because the same content was already ingested. */
+    SKIPPED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == REJECTED || this == SKIPPED;
+    }
+}
@@ -0,0 +1,60 @@
+package com.onboarding.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time view of an {@link InvoiceJob} returned to clients polling for progress.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobStatus {
+    private String id;
+    private String filename;
+    private JobState state;
+    private int linesRead;
+    private int persisted;
+    private int published;
+    private int skipped;
+    private int errorCount;
+    private Map<ErrorCategory, Integer> errorCounts;
+    /** The first errors of each category; {@link #errorCount} says how many there were in total. */
+    private List<ProcessError> errors;
+    private String errorReport;
+    private String failureMessage;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+
+    public static JobStatus of(InvoiceJob job) {
+        ProcessResult result = job.getResult();
+        synchronized (result) {
+            return JobStatus.builder()
+                    .id(job.getId())
+                    .filename(job.getFilename())
+                    .state(job.getState())
+                    .linesRead(result.getLinesRead())
+                    .persisted(result.getPersistedCount())
+                    .published(result.getSuccessCount())
+                    .skipped(result.getSkippedCount())
+                    .errorCount(result.getErrorCount())
+                    .errorCounts(result.hasErrors() ? new EnumMap<>(result.getErrorCounts()) : null)
+                    .errors(result.hasErrors() ? result.getSampledErrors() : null)
+                    .errorReport(result.getErrorReportKey())
+                    .failureMessage(job.getFailureMessage())
+                    .submittedAt(job.getSubmittedAt())
+                    .finishedAt(job.getFinishedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.onboarding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Consecutive raw lines of an invoice file, numbered from {@code firstLineNumber}. {@code endOffset} is
+ * the byte offset in the file just past the last line's terminator, or {@code -1} when unknown.
+ */
+@Data
+@AllArgsConstructor
+public class LineBatch {
+    private final int firstLineNumber;
+    private final List<String> lines;
+    private final long endOffset;
+
+    public LineBatch(int firstLineNumber, List<String> lines) {
+        this(firstLineNumber, lines, -1);
+    }
+
+    public int getLastLineNumber() {
+        return firstLineNumber + lines.size() - 1;
+    }
+}
@@ -0,0 +1,15 @@
+package com.onboarding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One recorded error. Line number 0 marks an error that is not tied to a single line, e.g. a failed batch.
+ */
+@Data
+@AllArgsConstructor
+public class ProcessError {
+    private final int lineNumber;
+    private final ErrorCategory category;
+    private final String message;
+}
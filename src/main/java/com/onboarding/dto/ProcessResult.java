@@ -3,37 +3,107 @@ package com.onboarding.dto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import java.util.LinkedHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Running totals of one file. Errors are counted per {@link ErrorCategory}, but only the first
+ * {@code samplesPerCategory} of each category are kept, with messages cut to {@code maxMessageLength},
+ * so a file full of bad lines cannot grow the result without bound. Every error is also handed to the
+ * optional {@code errorSpill}, e.g. to write a complete report elsewhere.
+ */
 @Data
 @AllArgsConstructor
 @Builder
 public class ProcessResult {
+    public static final int DEFAULT_SAMPLES_PER_CATEGORY = 20;
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 256;
+
     private final String filename;
     private int successCount;
-    private final Map<Integer, String> errors = new LinkedHashMap<>();
+    private int linesRead;
+    private int persistedCount;
+    /** Invoices left out because their bill ID was already stored by an earlier run. */
+    private int skippedCount;
+    private int parseErrorCount;
+    private int errorCount;
+    private final Map<ErrorCategory, Integer> errorCounts = new EnumMap<>(ErrorCategory.class);
+    private final Map<ErrorCategory, List<ProcessError>> errorSamples = new EnumMap<>(ErrorCategory.class);
+    @Builder.Default
+    private int samplesPerCategory = DEFAULT_SAMPLES_PER_CATEGORY;
+    @Builder.Default
+    private int maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+    private Consumer<ProcessError> errorSpill;
+    /** S3 key of the full error report, once one has been written. */
+    private String errorReportKey;
 
 
-
-    public void incrementSuccessCount(int count) {
+    public synchronized void incrementSuccessCount(int count) {
         successCount+= count;
     }
 
-    public void addError(int lineNumber, String message) {
-        errors.put(lineNumber, message);
+    public synchronized void incrementLinesRead(int count) {
+        linesRead += count;
+    }
+
+    public synchronized void incrementPersistedCount(int count) {
+        persistedCount += count;
+    }
+
+    public synchronized void incrementSkippedCount(int count) {
+        skippedCount += count;
     }
 
-    public boolean hasErrors() {
-        return !errors.isEmpty();
+    /**
+     * @param lineNumber the line the error belongs to, or 0 for an error that covers more than one line
+     */
+    public synchronized void addError(int lineNumber, ErrorCategory category, String message) {
+        errorCount++;
+        errorCounts.merge(category, 1, Integer::sum);
+        List<ProcessError> samples = errorSamples.computeIfAbsent(category, c -> new ArrayList<>());
+        if (samples.size() < samplesPerCategory) {
+            samples.add(new ProcessError(lineNumber, category, truncate(message)));
+        }
+        if (errorSpill != null) {
+            errorSpill.accept(new ProcessError(lineNumber, category, message));
+        }
     }
 
-    public String getSummary() {
+    public synchronized void addParseError(int lineNumber, ErrorCategory category, String message) {
+        parseErrorCount++;
+        addError(lineNumber, category, message);
+    }
+
+    public synchronized boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    /**
+     * @return the kept samples of all categories, ordered by line number
+     */
+    public synchronized List<ProcessError> getSampledErrors() {
+        List<ProcessError> sampled = new ArrayList<>();
+        errorSamples.values().forEach(sampled::addAll);
+        sampled.sort(Comparator.comparingInt(ProcessError::getLineNumber));
+        return sampled;
+    }
+
+    public synchronized String getSummary() {
         return String.format(
-                "File: %s | Success: %d | Errors: %d",
-                filename, successCount, errors.size()
+                "File: %s | Success: %d | Skipped: %d | Errors: %d %s",
+                filename, successCount, skippedCount, errorCount, errorCounts
         );
     }
 
-
-}
\ No newline at end of file
+    private String truncate(String message) {
+        if (message == null || message.length() <= maxMessageLength) {
+            return message;
+        }
+        return message.substring(0, maxMessageLength) + "...";
+    }
+}
@@ -0,0 +1,28 @@
+package com.onboarding.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of publishing a list of messages. Batches complete on SDK threads, so updates are synchronized.
+ */
+@Data
+public class PublishResult {
+    private int successCount;
+    /** Position in the published list mapped to the reason that message was not delivered. */
+    private final Map<Integer, String> failures = new TreeMap<>();
+
+    public synchronized void incrementSuccessCount(int count) {
+        successCount += count;
+    }
+
+    public synchronized void addFailure(int index, String reason) {
+        failures.put(index, reason);
+    }
+
+    public synchronized boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,14 @@
+package com.onboarding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The parts of an S3 object's metadata ingestion cares about.
+ */
+@Data
+@AllArgsConstructor
+public class S3ObjectInfo {
+    private final long size;
+    private final String eTag;
+}
@@ -0,0 +1,49 @@
+package com.onboarding.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of one account's invoices, folded in batch by batch during ingestion so they can be
+ * read without touching the {@code invoice} collection. Amounts are always Decimal128 in Mongo, since
+ * {@code $inc} cannot add to strings.
+ */
+@Data
+@Document("account_summary")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountSummary {
+    @Id
+    private String accountId;
+
+    @Field(name = "invoice_count")
+    private long invoiceCount;
+
+    @Field(name = "first_issue_date")
+    private LocalDate firstIssueDate;
+
+    @Field(name = "last_issue_date")
+    private LocalDate lastIssueDate;
+
+    @Field(name = "gross_amount")
+    private BigDecimal grossAmount;
+
+    @Field(name = "net_amount")
+    private BigDecimal netAmount;
+
+    @Field(name = "tax_amount")
+    private BigDecimal taxAmount;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,28 @@
+package com.onboarding.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * An account whose {@link AccountSummary} missed a batch and has to be rebuilt from its invoices. Kept
+ * in Mongo so the mark outlives the run and the instance that failed to write the summary.
+ */
+@Data
+@Document("account_summary_rebuild")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountSummaryRebuild {
+    @Id
+    private String accountId;
+
+    @Field(name = "marked_at")
+    private LocalDateTime markedAt;
+}
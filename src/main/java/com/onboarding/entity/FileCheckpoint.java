@@ -0,0 +1,37 @@
+package com.onboarding.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far ingestion of an S3 object got: every line up to {@code lastLineNumber}, ending just before
+ * {@code byteOffset}, has been persisted and published.
+ */
+@Data
+@Document("file_checkpoint")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileCheckpoint {
+    @Id
+    private String filename;
+
+    @Field(name = "e_tag")
+    private String eTag;
+
+    @Field(name = "last_line_number")
+    private int lastLineNumber;
+
+    @Field(name = "byte_offset")
+    private long byteOffset;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,51 @@
+package com.onboarding.entity;
+
+import com.onboarding.dto.JobState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of the last ingestion of one S3 object content, keyed by its ETag so the same content is
+ * recognised in a single lookup whatever name it was posted under. While a run holds the content the
+ * entry is {@link JobState#RUNNING} and names that run's job.
+ */
+@Data
+@Document("file_ledger")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileLedgerEntry {
+    @Id
+    private String eTag;
+
+    @Field(name = "job_id")
+    private String jobId;
+
+    @Field(name = "filename")
+    private String filename;
+
+    @Field(name = "state")
+    private JobState state;
+
+    @Field(name = "lines_read")
+    private int linesRead;
+
+    @Field(name = "persisted")
+    private int persisted;
+
+    @Field(name = "published")
+    private int published;
+
+    @Field(name = "error_count")
+    private int errorCount;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -18,6 +19,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Document("invoice")
+@CompoundIndex(name = "account_issue_date_id", def = "{'account_id': 1, 'issue_date': 1, '_id': 1}")
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -0,0 +1,121 @@
+package com.onboarding.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Up to {@code processing.persistence.bucket-size} invoices of one account issued in one month, stored
+ * together in the {@code bucket} layout. An account/month has as many buckets as it needs; they are
+ * read in {@code (month, _id)} order and their invoices in the order they were appended. Entries leave
+ * out the account id, which the bucket holds once.
+ */
+@Data
+@Document("invoice_bucket")
+@CompoundIndex(name = "account_month_count", def = "{'account_id': 1, 'month': 1, 'count': 1}")
+@CompoundIndex(name = "entry_bill_id", def = "{'invoices.bill_id': 1}")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InvoiceBucket {
+    @Id
+    private String id;
+
+    @Field(name = "account_id")
+    private String accountId;
+
+    /** {@code yyyy-MM} of the entries' issue date. */
+    @Field(name = "month")
+    private String month;
+
+    @Field(name = "count")
+    private int count;
+
+    @Field(name = "first_issue_date")
+    private LocalDate firstIssueDate;
+
+    @Field(name = "last_issue_date")
+    private LocalDate lastIssueDate;
+
+    @Builder.Default
+    @Field(name = "invoices")
+    private List<Entry> invoices = new ArrayList<>();
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Entry {
+        @Field(name = "id")
+        private String id;
+
+        @Field(name = "bill_id")
+        private String billId;
+
+        @Field(name = "issue_date")
+        private LocalDate issueDate;
+
+        @Field(name = "bill_period_from")
+        private LocalDate billPeriodFrom;
+
+        @Field(name = "bill_period_to")
+        private LocalDate billPeriodTo;
+
+        @Field(name = "name")
+        private String name;
+
+        @Field(name = "gross_amount")
+        private BigDecimal grossAmount;
+
+        @Field(name = "net_amount")
+        private BigDecimal netAmount;
+
+        @Field(name = "tax_amount")
+        private BigDecimal taxAmount;
+
+        @Field(name = "created_at")
+        private LocalDateTime createdAt;
+
+        public static Entry of(Invoice invoice) {
+            return Entry.builder()
+                    .id(invoice.getId())
+                    .billId(invoice.getBillId())
+                    .issueDate(invoice.getIssueDate())
+                    .billPeriodFrom(invoice.getBillPeriodFrom())
+                    .billPeriodTo(invoice.getBillPeriodTo())
+                    .name(invoice.getName())
+                    .grossAmount(invoice.getGrossAmount())
+                    .netAmount(invoice.getNetAmount())
+                    .taxAmount(invoice.getTaxAmount())
+                    .createdAt(invoice.getCreatedAt())
+                    .build();
+        }
+
+        public Invoice toInvoice(String accountId) {
+            return Invoice.builder()
+                    .id(id)
+                    .billId(billId)
+                    .accountId(accountId)
+                    .issueDate(issueDate)
+                    .billPeriodFrom(billPeriodFrom)
+                    .billPeriodTo(billPeriodTo)
+                    .name(name)
+                    .grossAmount(grossAmount)
+                    .netAmount(netAmount)
+                    .taxAmount(taxAmount)
+                    .createdAt(createdAt)
+                    .build();
+        }
+    }
+}
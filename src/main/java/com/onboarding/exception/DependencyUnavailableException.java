@@ -0,0 +1,7 @@
+package com.onboarding.exception;
+
+public class DependencyUnavailableException extends RuntimeException {
+    public DependencyUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.onboarding.exception;
+
+/**
+ * Thrown when a file has so many bad lines that processing it further is not worth it.
+ */
+public class FileRejectedException extends InvoiceProcessingException {
+    public FileRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.onboarding.exception;
+
+public class JobRejectedException extends RuntimeException {
+    public JobRejectedException(String message) {
+        super(message);
+    }
+
+    public JobRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
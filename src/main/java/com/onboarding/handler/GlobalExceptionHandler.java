@@ -1,7 +1,10 @@
 package com.onboarding.handler;
 
 import com.onboarding.dto.response.ApiResponse;
+import com.onboarding.exception.DependencyUnavailableException;
 import com.onboarding.exception.InvoiceProcessingException;
+import com.onboarding.exception.JobConflictException;
+import com.onboarding.exception.JobRejectedException;
 import com.onboarding.exception.MessageProcessingException;
 import com.onboarding.exception.ResourceNotFoundException;
 import jakarta.validation.ConstraintViolation;
@@ -45,6 +48,27 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage());
     }
 
+    @ExceptionHandler(JobRejectedException.class)
+    public ResponseEntity<ApiResponse<String>> handleJobRejectedException(
+            JobRejectedException ex) {
+        log.warn("Job rejected: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(JobConflictException.class)
+    public ResponseEntity<ApiResponse<String>> handleJobConflictException(
+            JobConflictException ex) {
+        log.warn("Job conflict: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<ApiResponse<String>> handleDependencyUnavailableException(
+            DependencyUnavailableException ex) {
+        log.warn("Dependency unavailable: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
     @ExceptionHandler(InterruptedException.class)
     public ResponseEntity<ApiResponse<String>> handleInterruptedException(
             InterruptedException ex) {
@@ -3,6 +3,7 @@ package com.onboarding.mapper;
 import com.onboarding.dto.InvoiceDTO;
 import com.onboarding.entity.Invoice;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.data.domain.Page;
 
 @Mapper(componentModel = "spring")
@@ -12,6 +13,8 @@ public interface InvoiceDTOMapper {
         return invoices.map(this::mapEntityToDto);
     }
 
+    @Mapping(target = "rawLine", ignore = true)
+    @Mapping(target = "lineNumber", ignore = true)
     InvoiceDTO mapEntityToDto(Invoice invoice);
 
 
@@ -0,0 +1,9 @@
+package com.onboarding.repo;
+
+import com.onboarding.entity.FileCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FileCheckpointRepository extends MongoRepository<FileCheckpoint, String> {
+}
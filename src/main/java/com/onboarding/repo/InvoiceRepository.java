@@ -11,7 +11,13 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface InvoiceRepository extends MongoRepository<Invoice , String > {
 
-    @Cacheable(value = "accountInvoices", key = "#accountId + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    /**
+     * Not cached here: {@link com.onboarding.service.MongoService} reads it through the
+     * {@code accountInvoices} cache so that hot pages are refreshed ahead of expiry.
+     */
     Page<Invoice> findByAccountId(String accountId , Pageable pageable);
 
+    @Cacheable(value = "accountInvoiceCounts", key = "#accountId", sync = true)
+    long countByAccountId(String accountId);
+
 }
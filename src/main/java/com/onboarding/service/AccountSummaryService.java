@@ -0,0 +1,270 @@
+package com.onboarding.service;
+
+import com.onboarding.component.AccountCacheInvalidator;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.TwoTierCache;
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.entity.AccountSummary;
+import com.onboarding.entity.AccountSummaryRebuild;
+import com.onboarding.entity.Invoice;
+import com.onboarding.entity.InvoiceBucket;
+import com.onboarding.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the {@code account_summary} collection in step with ingestion. Each persisted batch is reduced
+ * in memory to one delta per account and written as a single unordered bulk of {@code $inc}/{@code $min}/
+ * {@code $max} upserts, so concurrent persist workers can fold into the same account without reading it.
+ * A failed summary write does not fail the batch, whose invoices are already stored. It is logged and
+ * metered, and the batch's accounts are marked in {@code account_summary_rebuild}. They are rebuilt
+ * from their stored invoices by {@link #rebuildMarked()} once no file is being ingested, which also
+ * repairs the part of an unordered bulk that did get applied. Until then their summaries may be off.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountSummaryService {
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final IngestionMetrics ingestionMetrics;
+
+    @Value("${processing.summary.enabled}")
+    private boolean enabled;
+    @Value("${processing.persistence.layout}")
+    private String layout;
+
+    /** Accounts that could not be marked either, kept until marking works again. */
+    private final Set<String> unmarked = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Adds the invoices of a batch that were actually written to the summaries of their accounts.
+     */
+    public void apply(List<InvoiceDTO> persisted) {
+        if (!enabled || persisted.isEmpty()) {
+            return;
+        }
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        for (InvoiceDTO invoice : persisted) {
+            deltas.computeIfAbsent(invoice.getAccountId(), accountId -> new Delta()).add(invoice);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, AccountSummary.class);
+        deltas.forEach((accountId, delta) ->
+                bulk.upsert(Query.query(Criteria.where("accountId").is(accountId)), delta.toUpdate(now)));
+
+        long start = System.nanoTime();
+        boolean written = false;
+        try {
+            bulk.execute();
+            written = true;
+        } catch (DataAccessException e) {
+            log.error("Could not update the summaries of {} accounts, marking them for rebuild: {}", deltas.size(),
+                    e.getMessage());
+        } finally {
+            ingestionMetrics.recordMongoBatch("summary", deltas.size(), System.nanoTime() - start, written);
+        }
+        if (!written) {
+            markForRebuild(deltas.keySet());
+        }
+    }
+
+    /**
+     * Rebuilds every marked account and drops its mark, unless it was marked again while the rebuild ran.
+     * Meant to run while nothing is being ingested, see {@link #rebuild}; a rebuild that fails keeps its
+     * mark for the next call.
+     */
+    public void rebuildMarked() {
+        if (!enabled) {
+            return;
+        }
+        if (!unmarked.isEmpty()) {
+            List<String> pending = new ArrayList<>(unmarked);
+            unmarked.removeAll(pending);
+            markForRebuild(pending);
+        }
+        List<AccountSummaryRebuild> marked;
+        try {
+            marked = mongoTemplate.findAll(AccountSummaryRebuild.class);
+        } catch (DataAccessException e) {
+            log.error("Could not read the accounts marked for a summary rebuild: {}", e.getMessage());
+            return;
+        }
+        for (AccountSummaryRebuild mark : marked) {
+            try {
+                rebuild(mark.getAccountId());
+                mongoTemplate.remove(Query.query(Criteria.where("accountId").is(mark.getAccountId())
+                        .and("markedAt").lte(mark.getMarkedAt())), AccountSummaryRebuild.class);
+            } catch (DataAccessException e) {
+                log.error("Could not rebuild the summary of account {}: {}", mark.getAccountId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recomputes the summary of the account from its stored invoices and replaces the summary document,
+     * or removes it when the account has none. Amounts go through {@code $toDecimal} so invoices stored
+     * with string amounts are summed too. A batch folded in by {@link #apply} while the rebuild runs can
+     * be counted twice or not at all, so this is meant for accounts that are not being ingested.
+     */
+    public void rebuild(String accountId) {
+        String prefix = isBucketLayout() ? "invoices." : "";
+        ProjectionOperation fields = Aggregation.project()
+                .and(prefix + "issueDate").as("issueDate")
+                .and(ConvertOperators.valueOf(prefix + "grossAmount").convertToDecimal()).as("gross")
+                .and(ConvertOperators.valueOf(prefix + "netAmount").convertToDecimal()).as("net")
+                .and(ConvertOperators.valueOf(prefix + "taxAmount").convertToDecimal()).as("tax");
+        Criteria account = Criteria.where("accountId").is(accountId);
+        TypedAggregation<?> aggregation = isBucketLayout()
+                ? Aggregation.newAggregation(InvoiceBucket.class,
+                        Aggregation.match(account), Aggregation.unwind("invoices"), fields, totals())
+                : Aggregation.newAggregation(Invoice.class, Aggregation.match(account), fields, totals());
+        Document row = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+
+        Query summary = Query.query(Criteria.where("accountId").is(accountId));
+        if (row == null) {
+            mongoTemplate.remove(summary, AccountSummary.class);
+        } else {
+            mongoTemplate.upsert(summary, new Update()
+                    .set("invoiceCount", row.get("invoiceCount", Number.class).longValue())
+                    .set("firstIssueDate", row.get("firstIssueDate"))
+                    .set("lastIssueDate", row.get("lastIssueDate"))
+                    .set("grossAmount", decimal128(row.get("grossAmount")))
+                    .set("netAmount", decimal128(row.get("netAmount")))
+                    .set("taxAmount", decimal128(row.get("taxAmount")))
+                    .set("updatedAt", LocalDateTime.now()), AccountSummary.class);
+        }
+        Cache cache = cacheManager.getCache(AccountCacheInvalidator.ACCOUNT_SUMMARIES);
+        if (cache != null) {
+            cache.evict(accountId);
+        }
+        log.info("Rebuilt the summary of account {}", accountId);
+    }
+
+    private void markForRebuild(Collection<String> accountIds) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, AccountSummaryRebuild.class);
+        accountIds.forEach(accountId ->
+                bulk.upsert(Query.query(Criteria.where("accountId").is(accountId)), Update.update("markedAt", now)));
+        try {
+            bulk.execute();
+        } catch (DataAccessException e) {
+            unmarked.addAll(accountIds);
+            log.error("Could not mark {} accounts for a summary rebuild, keeping them in memory: {}",
+                    accountIds.size(), e.getMessage());
+        }
+    }
+
+    private static GroupOperation totals() {
+        return Aggregation.group()
+                .count().as("invoiceCount")
+                .min("issueDate").as("firstIssueDate")
+                .max("issueDate").as("lastIssueDate")
+                .sum("gross").as("grossAmount")
+                .sum("net").as("netAmount")
+                .sum("tax").as("taxAmount");
+    }
+
+    private static Decimal128 decimal128(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal;
+        }
+        return new Decimal128(value == null ? BigDecimal.ZERO : new BigDecimal(value.toString()));
+    }
+
+    private boolean isBucketLayout() {
+        return "bucket".equalsIgnoreCase(layout);
+    }
+
+    /**
+     * Served from the {@code accountSummaries} cache, which ingestion evicts for every account it writes to.
+     *
+     * @throws ResourceNotFoundException when no invoices of the account have been ingested
+     */
+    public AccountSummary getSummary(String accountId) {
+        Supplier<AccountSummary> query = () -> mongoTemplate.findById(accountId, AccountSummary.class);
+        Cache cache = cacheManager.getCache(AccountCacheInvalidator.ACCOUNT_SUMMARIES);
+        AccountSummary summary = cache instanceof TwoTierCache tiered
+                ? tiered.getOrLoad(accountId, query)
+                : query.get();
+        if (summary == null) {
+            throw new ResourceNotFoundException("No invoices for account: " + accountId);
+        }
+        return summary;
+    }
+
+    /**
+     * What one batch adds to one account.
+     */
+    private static final class Delta {
+        private long count;
+        private LocalDate firstIssueDate;
+        private LocalDate lastIssueDate;
+        private BigDecimal gross = BigDecimal.ZERO;
+        private BigDecimal net = BigDecimal.ZERO;
+        private BigDecimal tax = BigDecimal.ZERO;
+
+        private void add(InvoiceDTO invoice) {
+            count++;
+            LocalDate issueDate = invoice.getIssueDate();
+            if (issueDate != null) {
+                if (firstIssueDate == null || issueDate.isBefore(firstIssueDate)) {
+                    firstIssueDate = issueDate;
+                }
+                if (lastIssueDate == null || issueDate.isAfter(lastIssueDate)) {
+                    lastIssueDate = issueDate;
+                }
+            }
+            gross = plus(gross, invoice.getGrossAmount());
+            net = plus(net, invoice.getNetAmount());
+            tax = plus(tax, invoice.getTaxAmount());
+        }
+
+        private Update toUpdate(LocalDateTime now) {
+            Update update = new Update()
+                    .inc("invoiceCount", count)
+                    .inc("grossAmount", new Decimal128(gross))
+                    .inc("netAmount", new Decimal128(net))
+                    .inc("taxAmount", new Decimal128(tax))
+                    .set("updatedAt", now);
+            if (firstIssueDate != null) {
+                update.min("firstIssueDate", firstIssueDate).max("lastIssueDate", lastIssueDate);
+            }
+            return update;
+        }
+
+        private static BigDecimal plus(BigDecimal total, BigDecimal amount) {
+            return amount == null ? total : total.add(amount);
+        }
+    }
+}
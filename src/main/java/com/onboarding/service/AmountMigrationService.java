@@ -0,0 +1,66 @@
+package com.onboarding.service;
+
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Rewrites amounts stored as strings into Decimal128, one server-side {@code updateMany} per field with
+ * an aggregation pipeline doing the {@code $toDecimal}, so no document travels to the application.
+ * Only documents still holding a string are touched, which makes it safe to run again or while
+ * ingestion is writing Decimal128 amounts next to old ones.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AmountMigrationService {
+    static final String COLLECTION = "invoice";
+    static final List<String> AMOUNT_FIELDS = List.of("gross_amount", "net_amount", "tax_amount");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${processing.persistence.decimal128}")
+    private boolean decimal128;
+    @Value("${processing.persistence.migrate-amounts-on-startup}")
+    private boolean migrateOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!migrateOnStartup) {
+            return;
+        }
+        if (!decimal128) {
+            log.warn("Not migrating amounts to Decimal128 while processing.persistence.decimal128 is off");
+            return;
+        }
+        migrate();
+    }
+
+    /**
+     * @return how many amount fields were converted
+     */
+    public long migrate() {
+        long converted = 0;
+        for (String field : AMOUNT_FIELDS) {
+            Query stillString = Query.query(Criteria.where(field).type(JsonSchemaObject.Type.STRING));
+            AggregationUpdate toDecimal = AggregationUpdate.update()
+                    .set(field).toValue(ConvertOperators.valueOf(field).convertToDecimal());
+            UpdateResult result = mongoTemplate.updateMulti(stillString, toDecimal, COLLECTION);
+            log.info("Converted {} {} values to Decimal128", result.getModifiedCount(), field);
+            converted += result.getModifiedCount();
+        }
+        return converted;
+    }
+}
@@ -0,0 +1,126 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.LineBatch;
+import com.onboarding.entity.FileCheckpoint;
+import com.onboarding.repo.FileCheckpointRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+/**
+ * Progress of one file run. Batches may finish out of order when the pipeline runs several persist or
+ * publish workers, so the checkpoint only advances over the contiguous prefix of finished batches and a
+ * restart never skips a line that was not fully processed. The position is written to Mongo once it
+ * has moved by at least {@code saveEveryLines} lines, and on {@link #flush()}. With the default of 1 that
+ * is every batch that extends the contiguous prefix: one small write per batch, against a restart that
+ * repeats at most the batches still in flight.
+ */
+@Slf4j
+public class Checkpoint {
+    private final String filename;
+    private final String eTag;
+    private final FileCheckpointRepository repository;
+    private final int saveEveryLines;
+    @Getter
+    private final int resumeLineNumber;
+    @Getter
+    private final long resumeOffset;
+    private final boolean atEnd;
+    private final TreeMap<Integer, LineBatch> finished = new TreeMap<>();
+    private int lastLineNumber;
+    private long byteOffset;
+    private int savedLineNumber;
+
+    Checkpoint(String filename, String eTag, FileCheckpointRepository repository, int saveEveryLines,
+               int lastLineNumber, long byteOffset) {
+        this(filename, eTag, repository, saveEveryLines, lastLineNumber, byteOffset, false);
+    }
+
+    private Checkpoint(String filename, String eTag, FileCheckpointRepository repository, int saveEveryLines,
+                       int lastLineNumber, long byteOffset, boolean atEnd) {
+        this.atEnd = atEnd;
+        this.filename = filename;
+        this.eTag = eTag;
+        this.repository = repository;
+        this.saveEveryLines = saveEveryLines;
+        this.resumeLineNumber = lastLineNumber + 1;
+        this.resumeOffset = byteOffset;
+        this.lastLineNumber = lastLineNumber;
+        this.byteOffset = byteOffset;
+        this.savedLineNumber = lastLineNumber;
+    }
+
+    /**
+     * A checkpoint that starts at the beginning of the file and is never stored.
+     */
+    public static Checkpoint none(String filename) {
+        return new Checkpoint(filename, null, null, Integer.MAX_VALUE, 0, 0);
+    }
+
+    /**
+     * A checkpoint at the end of the object, left by a run that stopped after its last batch and before
+     * {@link #complete()}: there is nothing left to read.
+     */
+    static Checkpoint atEnd(String filename, String eTag, FileCheckpointRepository repository, int lastLineNumber,
+                            long byteOffset) {
+        return new Checkpoint(filename, eTag, repository, Integer.MAX_VALUE, lastLineNumber, byteOffset, true);
+    }
+
+    public boolean isAtEnd() {
+        return atEnd;
+    }
+
+    public boolean isResumed() {
+        return resumeLineNumber > 1;
+    }
+
+    /**
+     * Marks every line of {@code batch} as persisted and published.
+     */
+    public synchronized void committed(LineBatch batch) {
+        if (repository == null) {
+            return;
+        }
+        finished.put(batch.getFirstLineNumber(), batch);
+        while (!finished.isEmpty() && finished.firstKey() == lastLineNumber + 1) {
+            LineBatch next = finished.pollFirstEntry().getValue();
+            lastLineNumber = next.getLastLineNumber();
+            byteOffset = next.getEndOffset();
+        }
+        if (lastLineNumber - savedLineNumber >= saveEveryLines) {
+            save();
+        }
+    }
+
+    /**
+     * Stores the current position, e.g. before giving up on a failed run.
+     */
+    public synchronized void flush() {
+        if (repository != null && lastLineNumber > savedLineNumber) {
+            save();
+        }
+    }
+
+    /**
+     * Removes the checkpoint once the whole file went through.
+     */
+    public void complete() {
+        if (repository != null) {
+            repository.deleteById(filename);
+        }
+    }
+
+    private void save() {
+        repository.save(FileCheckpoint.builder()
+                .filename(filename)
+                .eTag(eTag)
+                .lastLineNumber(lastLineNumber)
+                .byteOffset(byteOffset)
+                .updatedAt(LocalDateTime.now())
+                .build());
+        savedLineNumber = lastLineNumber;
+        log.debug("Checkpointed {} at line {} (byte {})", filename, lastLineNumber, byteOffset);
+    }
+}
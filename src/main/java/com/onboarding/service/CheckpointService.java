@@ -0,0 +1,53 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.S3ObjectInfo;
+import com.onboarding.entity.FileCheckpoint;
+import com.onboarding.repo.FileCheckpointRepository;
+import com.onboarding.service.aws.S3Service;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Hands out {@link Checkpoint}s for file runs. A stored checkpoint is only resumed while the S3 object
+ * still has the ETag it was taken against; a replaced file starts again from line 1. One that already
+ * reaches the end of the object is handed out {@linkplain Checkpoint#isAtEnd() at end}, since reading
+ * from there would ask S3 for an empty range.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckpointService {
+    private final FileCheckpointRepository checkpointRepository;
+    private final S3Service s3Service;
+
+    @Value("${processing.checkpoint.save-every-lines}")
+    private int saveEveryLines;
+
+    public Checkpoint open(String filename) {
+        S3ObjectInfo object = s3Service.getObjectInfo(filename);
+        Optional<FileCheckpoint> stored = checkpointRepository.findById(filename);
+        if (stored.isPresent() && Objects.equals(stored.get().getETag(), object.getETag())
+                && stored.get().getByteOffset() >= object.getSize()) {
+            log.info("{} was read to the end by an earlier run (line {})", filename,
+                    stored.get().getLastLineNumber());
+            return Checkpoint.atEnd(filename, object.getETag(), checkpointRepository,
+                    stored.get().getLastLineNumber(), stored.get().getByteOffset());
+        }
+        if (stored.isPresent() && Objects.equals(stored.get().getETag(), object.getETag())) {
+            FileCheckpoint checkpoint = stored.get();
+            log.info("Resuming {} after line {} (byte {})", filename, checkpoint.getLastLineNumber(),
+                    checkpoint.getByteOffset());
+            return new Checkpoint(filename, object.getETag(), checkpointRepository, saveEveryLines,
+                    checkpoint.getLastLineNumber(), checkpoint.getByteOffset());
+        }
+        if (stored.isPresent()) {
+            log.info("Discarding checkpoint of {}: the object has changed", filename);
+        }
+        return new Checkpoint(filename, object.getETag(), checkpointRepository, saveEveryLines, 0, 0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.onboarding.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onboarding.dto.ProcessError;
+import com.onboarding.dto.ProcessResult;
+import com.onboarding.service.aws.S3Service;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Every error of one file run, written as NDJSON to a local temp file while the file is processed and
+ * uploaded to S3 by {@link #close()}. Errors arrive under the {@link ProcessResult} lock, so writes are
+ * already serialized. A run without errors uploads nothing.
+ */
+@Slf4j
+public class ErrorReport implements Consumer<ProcessError>, AutoCloseable {
+    private final ProcessResult result;
+    private final String key;
+    private final S3Service s3Service;
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final BufferedWriter writer;
+    private long written;
+
+    ErrorReport(ProcessResult result, String key, S3Service s3Service, ObjectMapper objectMapper) {
+        this.result = result;
+        this.key = key;
+        this.s3Service = s3Service;
+        this.objectMapper = objectMapper;
+        if (s3Service == null) {
+            this.file = null;
+            this.writer = null;
+            return;
+        }
+        try {
+            this.file = Files.createTempFile("errors-", ".ndjson");
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create error report for " + key, e);
+        }
+    }
+
+    /**
+     * A report that keeps nothing, for runs with reporting switched off.
+     */
+    public static ErrorReport none(ProcessResult result) {
+        return new ErrorReport(result, null, null, null);
+    }
+
+    @Override
+    public void accept(ProcessError error) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(objectMapper.writeValueAsString(error));
+            writer.newLine();
+            written++;
+        } catch (IOException e) {
+            log.warn("Could not write to error report {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads the report if any error was written and records its key on the result. A failed upload
+     * is logged but does not fail the run.
+     */
+    @Override
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            synchronized (result) {
+                result.setErrorSpill(null);
+                writer.close();
+            }
+            if (written > 0) {
+                s3Service.putFile(key, file, "application/x-ndjson");
+                synchronized (result) {
+                    result.setErrorReportKey(key);
+                }
+                log.info("Uploaded {} errors to {}", written, key);
+            }
+        } catch (IOException | SdkException e) {
+            log.error("Could not upload error report {}: {}", key, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", file);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.onboarding.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onboarding.dto.ProcessResult;
+import com.onboarding.service.aws.S3Service;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies the error caps to a file run and, with {@code processing.errors.report.enabled}, attaches an
+ * {@link ErrorReport} that collects every error for upload to {@code processing.errors.report.prefix}.
+ */
+@Service
+@RequiredArgsConstructor
+public class ErrorReportService {
+    private final S3Service s3Service;
+    private final ObjectMapper objectMapper;
+
+    @Value("${processing.errors.samples-per-category}")
+    private int samplesPerCategory;
+    @Value("${processing.errors.max-message-length}")
+    private int maxMessageLength;
+    @Value("${processing.errors.report.enabled}")
+    private boolean reportEnabled;
+    @Value("${processing.errors.report.prefix}")
+    private String reportPrefix;
+
+    public ErrorReport open(ProcessResult result) {
+        ErrorReport report = reportEnabled
+                ? new ErrorReport(result, reportPrefix + result.getFilename() + ".errors.ndjson", s3Service,
+                        objectMapper)
+                : ErrorReport.none(result);
+        synchronized (result) {
+            result.setSamplesPerCategory(samplesPerCategory);
+            result.setMaxMessageLength(maxMessageLength);
+            result.setErrorSpill(reportEnabled ? report : null);
+        }
+        return report;
+    }
+}
@@ -0,0 +1,173 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.InvoiceJob;
+import com.onboarding.dto.JobState;
+import com.onboarding.dto.ProcessResult;
+import com.onboarding.dto.S3ObjectInfo;
+import com.onboarding.entity.FileLedgerEntry;
+import com.onboarding.repo.FileLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which file contents were ingested to the end, so posting the same file again is answered
+ * without reading it, and which are being ingested right now, so the same content is never run twice at
+ * once. Files that failed or were rejected stay eligible for another run. Objects without an ETag are
+ * never recorded.
+ * <p>
+ * A claim is kept alive by {@link #refreshClaims()} for as long as its job is queued or running on this
+ * instance, so only the claims of an instance that went away ever expire.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileLedgerService {
+    private final FileLedgerRepository ledgerRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${processing.idempotency.file-ledger}")
+    private boolean enabled;
+    @Value("${processing.idempotency.claim-expiry-minutes}")
+    private long claimExpiryMinutes;
+
+    /** ETag to job id of the claims this instance holds. */
+    private final Map<String, String> heldClaims = new ConcurrentHashMap<>();
+
+    /**
+     * @return the entry of an earlier run that completed the same content, if there is one
+     */
+    public Optional<FileLedgerEntry> findCompleted(S3ObjectInfo object) {
+        if (!enabled || object.getETag() == null) {
+            return Optional.empty();
+        }
+        return ledgerRepository.findById(object.getETag())
+                .filter(entry -> entry.getState() == JobState.COMPLETED);
+    }
+
+    /**
+     * Atomically marks the content as {@link JobState#RUNNING} under the given job, unless it is completed
+     * or held by another run. The upsert only matches an entry that may be taken over, so when another
+     * run holds it the insert collides on the ETag and the claim is lost; concurrent submits on any
+     * instance cannot both win. A hold that was not refreshed for
+     * {@code processing.idempotency.claim-expiry-minutes} belongs to an instance that died without
+     * recording the outcome, and may be taken over.
+     *
+     * @return the entry that holds the content, or empty if the job now holds it
+     */
+    public Optional<FileLedgerEntry> claim(InvoiceJob job, S3ObjectInfo object) {
+        if (!enabled || object.getETag() == null) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = Query.query(Criteria.where("_id").is(object.getETag()).orOperator(
+                Criteria.where("state").nin(List.of(JobState.RUNNING, JobState.COMPLETED)),
+                Criteria.where("state").is(JobState.RUNNING).and("updated_at").lt(now.minusMinutes(claimExpiryMinutes))));
+        Update hold = new Update()
+                .set("job_id", job.getId())
+                .set("filename", job.getFilename())
+                .set("state", JobState.RUNNING)
+                .set("lines_read", 0)
+                .set("persisted", 0)
+                .set("published", 0)
+                .set("error_count", 0)
+                .set("updated_at", now);
+        try {
+            mongoTemplate.upsert(claimable, hold, FileLedgerEntry.class);
+            heldClaims.put(object.getETag(), job.getId());
+            return Optional.empty();
+        } catch (DuplicateKeyException e) {
+            FileLedgerEntry holder = ledgerRepository.findById(object.getETag())
+                    .orElseThrow(() -> e);
+            log.info("{} ({}) is already {} as job {}", job.getFilename(), object.getETag(), holder.getState(),
+                    holder.getJobId());
+            return Optional.of(holder);
+        }
+    }
+
+    /**
+     * Gives up a claim whose job never got queued, so the content can be submitted again straight away.
+     */
+    public void abandon(InvoiceJob job, S3ObjectInfo object) {
+        if (!enabled || object.getETag() == null) {
+            return;
+        }
+        heldClaims.remove(object.getETag(), job.getId());
+        mongoTemplate.remove(runningClaim(object.getETag(), job.getId()), FileLedgerEntry.class);
+    }
+
+    /**
+     * Stores the outcome of the job over its claim. A run whose claim was taken over records nothing, so
+     * it cannot overwrite the state of the run that holds the content now.
+     */
+    public void record(InvoiceJob job, S3ObjectInfo object) {
+        if (!enabled || object.getETag() == null) {
+            return;
+        }
+        heldClaims.remove(object.getETag(), job.getId());
+        ProcessResult result = job.getResult();
+        Update outcome = new Update()
+                .set("filename", job.getFilename())
+                .set("state", job.getState())
+                .set("updated_at", LocalDateTime.now());
+        synchronized (result) {
+            outcome.set("lines_read", result.getLinesRead())
+                    .set("persisted", result.getPersistedCount())
+                    .set("published", result.getSuccessCount())
+                    .set("error_count", result.getErrorCount());
+        }
+        if (mongoTemplate.updateFirst(heldBy(object.getETag(), job.getId()), outcome, FileLedgerEntry.class)
+                .getMatchedCount() == 0) {
+            log.warn("Not recording {} ({}) as {}: job {} no longer holds it", job.getFilename(), object.getETag(),
+                    job.getState(), job.getId());
+            return;
+        }
+        log.debug("Recorded {} ({}) as {}", job.getFilename(), object.getETag(), job.getState());
+    }
+
+    /**
+     * Moves {@code updated_at} of every claim this instance holds to now, every
+     * {@code processing.idempotency.claim-refresh-minutes}, which must stay well below
+     * {@code claim-expiry-minutes}. A claim that is no longer there is dropped.
+     */
+    @Scheduled(fixedDelayString = "${processing.idempotency.claim-refresh-minutes}", timeUnit = TimeUnit.MINUTES)
+    public void refreshClaims() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        heldClaims.forEach((eTag, jobId) -> {
+            try {
+                if (mongoTemplate.updateFirst(runningClaim(eTag, jobId), Update.update("updated_at", now),
+                        FileLedgerEntry.class).getMatchedCount() == 0) {
+                    log.warn("Claim of job {} on {} is gone", jobId, eTag);
+                    heldClaims.remove(eTag, jobId);
+                }
+            } catch (RuntimeException e) {
+                log.error("Could not refresh the claim of job {} on {}: {}", jobId, eTag, e.getMessage());
+            }
+        });
+    }
+
+    private static Query heldBy(String eTag, String jobId) {
+        return Query.query(Criteria.where("_id").is(eTag).and("job_id").is(jobId));
+    }
+
+    private static Query runningClaim(String eTag, String jobId) {
+        return Query.query(Criteria.where("_id").is(eTag).and("job_id").is(jobId).and("state").is(JobState.RUNNING));
+    }
+}
@@ -0,0 +1,243 @@
+package com.onboarding.service;
+
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.service.aws.S3Service;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Local copies of invoice files, downloaded while their jobs are still queued so the worker that picks a
+ * job up reads from disk instead of waiting on S3. At most {@code processing.spool.prefetch-depth} files
+ * are fetched ahead, and only while the files on disk, including downloads in flight, stay within
+ * {@code processing.spool.max-bytes}. A worker that needs room evicts prefetched files nobody has claimed
+ * yet, newest first, as those belong to the jobs furthest back in the queue. A claimed file is deleted
+ * when it is closed; a prefetch whose job ends without claiming it is dropped by {@link #release}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FileSpool implements MeterBinder {
+    private final S3Service s3Service;
+    private final ResourceLimits resourceLimits;
+
+    @Value("${processing.spool.enabled}")
+    private boolean enabled;
+    @Value("${processing.spool.dir}")
+    private String dir;
+    @Value("${processing.spool.max-bytes}")
+    private long maxBytes;
+    @Value("${processing.spool.prefetch-depth}")
+    private int prefetchDepth;
+
+    private final Map<String, Entry> prefetched = new LinkedHashMap<>();
+    private Path directory;
+    private long usedBytes;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        this.directory = Files.createDirectories(Paths.get(dir));
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            for (Path leftover : leftovers.filter(path -> path.getFileName().toString().startsWith("spool-")).toList()) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+        this.executor = Executors.newFixedThreadPool(prefetchDepth, new CustomizableThreadFactory("FileSpool-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("invoice.spool.bytes", this, FileSpool::getUsedBytes).register(registry);
+        Gauge.builder("invoice.spool.prefetched", this, FileSpool::getPrefetchedCount).register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts downloading {@code key} in the background if the prefetch depth and disk budget allow it.
+     * Never blocks and never evicts anything.
+     */
+    public void prefetch(String key, long size) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry;
+        synchronized (this) {
+            if (prefetched.containsKey(key) || prefetched.size() >= prefetchDepth || usedBytes + size > maxBytes) {
+                log.debug("Not prefetching {} ({} bytes, {} of {} bytes in use)", key, size, usedBytes, maxBytes);
+                return;
+            }
+            entry = new Entry(key, size, newFile());
+            usedBytes += size;
+            entry.download = CompletableFuture.runAsync(() -> download(entry), executor);
+            prefetched.put(key, entry);
+        }
+        log.debug("Prefetching {} to {}", key, entry.path);
+    }
+
+    /**
+     * Hands out the local copy of {@code key}, waiting for its prefetch or downloading it on the calling
+     * thread when there is none. A file being processed is never evicted, so with several large files in
+     * flight the spool may go over budget until they are closed.
+     */
+    public SpooledFile acquire(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = prefetched.remove(key);
+        }
+        if (entry != null) {
+            try {
+                entry.download.join();
+                log.debug("Serving {} from the spool", key);
+                return new SpooledFile(entry);
+            } catch (CompletionException e) {
+                log.warn("Prefetch of {} failed, downloading again: {}", key, e.getCause().getMessage());
+                discard(entry);
+            }
+        }
+
+        long size = s3Service.getObjectSize(key);
+        Entry claimed;
+        synchronized (this) {
+            makeRoom(size);
+            claimed = new Entry(key, size, newFile());
+            usedBytes += size;
+        }
+        try {
+            download(claimed);
+        } catch (RuntimeException e) {
+            discard(claimed);
+            throw e;
+        }
+        return new SpooledFile(claimed);
+    }
+
+    /**
+     * Drops the prefetch of {@code key} if no worker claimed it, e.g. because the job failed before it
+     * got to read the file. The file is deleted once its download is over.
+     */
+    public void release(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = prefetched.remove(key);
+        }
+        if (entry != null) {
+            log.debug("Dropping unclaimed prefetch of {}", key);
+            entry.download.whenComplete((ignored, ex) -> discard(entry));
+        }
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int getPrefetchedCount() {
+        return prefetched.size();
+    }
+
+    private void download(Entry entry) {
+        resourceLimits.s3(() -> s3Service.downloadTo(entry.key, entry.path));
+    }
+
+    /**
+     * Evicts finished, unclaimed prefetches until {@code size} more bytes fit the budget.
+     */
+    private void makeRoom(long size) {
+        List<Entry> newestFirst = new ArrayList<>(prefetched.values());
+        for (int i = newestFirst.size() - 1; i >= 0 && usedBytes + size > maxBytes; i--) {
+            Entry candidate = newestFirst.get(i);
+            if (candidate.download.isDone()) {
+                log.info("Evicting prefetched {} to make room", candidate.key);
+                prefetched.remove(candidate.key);
+                discard(candidate);
+            }
+        }
+    }
+
+    private void discard(Entry entry) {
+        try {
+            Files.deleteIfExists(entry.path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled file {}", entry.path);
+        }
+        synchronized (this) {
+            usedBytes -= entry.size;
+        }
+    }
+
+    private Path newFile() {
+        try {
+            return Files.createTempFile(directory, "spool-", ".csv");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create a spool file in " + directory, e);
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final long size;
+        private final Path path;
+        private CompletableFuture<Void> download;
+
+        private Entry(String key, long size, Path path) {
+            this.key = key;
+            this.size = size;
+            this.path = path;
+        }
+    }
+
+    /**
+     * A local copy of an invoice file, deleted on {@link #close()}.
+     */
+    public final class SpooledFile implements AutoCloseable {
+        private final Entry entry;
+        @Getter
+        private final Path path;
+
+        private SpooledFile(Entry entry) {
+            this.entry = entry;
+            this.path = entry.path;
+        }
+
+        @Override
+        public void close() {
+            discard(entry);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.InvoiceJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded, per-JVM job registry. Once {@code jobs.registry.max-size} jobs are held, the oldest finished
+ * jobs are dropped to make room; running jobs are never evicted.
+ */
+@Component
+@Slf4j
+public class InMemoryJobRegistry implements JobRegistry {
+
+    @Value("${jobs.registry.max-size}")
+    private int maxSize;
+
+    private final Map<String, InvoiceJob> jobs = new LinkedHashMap<>();
+
+    @Override
+    public synchronized InvoiceJob register(String filename) {
+        evictFinished();
+        InvoiceJob job = new InvoiceJob(UUID.randomUUID().toString(), filename);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    @Override
+    public synchronized Optional<InvoiceJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void evictFinished() {
+        Iterator<InvoiceJob> iterator = jobs.values().iterator();
+        while (jobs.size() >= maxSize && iterator.hasNext()) {
+            InvoiceJob job = iterator.next();
+            if (job.isFinished()) {
+                log.debug("Evicting finished job {} for {}", job.getId(), job.getFilename());
+                iterator.remove();
+            }
+        }
+    }
+}
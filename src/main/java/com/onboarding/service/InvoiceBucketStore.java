@@ -0,0 +1,286 @@
+package com.onboarding.service;
+
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.dto.BatchSaveResult;
+import com.onboarding.dto.BucketCursor;
+import com.onboarding.dto.CursorPage;
+import com.onboarding.entity.Invoice;
+import com.onboarding.entity.InvoiceBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Storage for the {@code bucket} layout ({@code processing.persistence.layout=bucket}), where invoices
+ * live in {@link InvoiceBucket}s of one account and issue month instead of one document each. A batch is
+ * appended with one unordered bulk of {@code $push} upserts, one per account/month and bucket-sized
+ * chunk; each upsert only matches a bucket that still has room for the whole chunk, so buckets never
+ * exceed {@code processing.persistence.bucket-size} and a full one makes the upsert start a new bucket.
+ * Reads walk an account's buckets in {@code (month, _id)} order, which for a heavy account means a few
+ * hundred sequential documents instead of one index entry and random fetch per invoice.
+ *
+ * <p>Bill IDs are not covered by a unique index here: a multikey index cannot reject a duplicate
+ * inside one bucket, and one duplicate would fail its whole chunk. Instead each batch looks its bill
+ * IDs up before writing and reports stored or repeated ones as duplicates, which leaves only two
+ * batches racing on the same new bill ID undetected.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceBucketStore {
+    static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final Sort BUCKET_ORDER = Sort.by(Sort.Direction.ASC, "month", "id");
+
+    private final MongoTemplate mongoTemplate;
+    private final IngestionMetrics ingestionMetrics;
+
+    @Value("${processing.persistence.bucket-size}")
+    private int bucketSize;
+    @Value("${export.cursor-batch-size}")
+    private int exportCursorBatchSize;
+
+    /**
+     * Same contract as {@link MongoService#insertAll}: failures are reported by position in
+     * {@code invoices} and the rest of the batch is written. Invoices without an id are given one.
+     */
+    public BatchSaveResult insertAll(List<Invoice> invoices) {
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        Set<Integer> duplicates = new HashSet<>();
+        Set<String> stored = findExistingBillIds(invoices.stream().map(Invoice::getBillId).toList());
+        Set<String> seen = new HashSet<>();
+        Map<List<String>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < invoices.size(); i++) {
+            Invoice invoice = invoices.get(i);
+            if (stored.contains(invoice.getBillId()) || !seen.add(invoice.getBillId())) {
+                failures.put(i, "Duplicate bill ID found: " + invoice.getBillId());
+                duplicates.add(i);
+                continue;
+            }
+            if (invoice.getId() == null) {
+                invoice.setId(new ObjectId().toHexString());
+            }
+            groups.computeIfAbsent(List.of(invoice.getAccountId(), month(invoice.getIssueDate())),
+                    key -> new ArrayList<>()).add(i);
+        }
+        if (groups.isEmpty()) {
+            return BatchSaveResult.builder().failures(failures).duplicates(duplicates).build();
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, InvoiceBucket.class);
+        List<List<Integer>> chunks = new ArrayList<>();
+        groups.forEach((key, positions) -> {
+            for (int from = 0; from < positions.size(); from += bucketSize) {
+                List<Integer> chunk = positions.subList(from, Math.min(from + bucketSize, positions.size()));
+                bulk.upsert(Query.query(Criteria.where("accountId").is(key.get(0))
+                                .and("month").is(key.get(1))
+                                .and("count").lte(bucketSize - chunk.size())),
+                        append(invoices, chunk));
+                chunks.add(chunk);
+            }
+        });
+
+        int written = invoices.size() - failures.size();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            bulk.execute();
+            success = true;
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                for (int i : chunks.get(error.getIndex())) {
+                    failures.put(i, "Failed to save bill ID " + invoices.get(i).getBillId() + ": " + error.getMessage());
+                    written--;
+                }
+            }
+            log.error("Bucket upsert rejected {} of {} chunks", e.getErrors().size(), chunks.size());
+            success = true;
+        } catch (DataAccessException | MongoException e) {
+            String errorMsg = "Failed to save invoices to MongoDB: " + e.getMessage();
+            log.error(errorMsg);
+            throw new MongoException(errorMsg, e);
+        } finally {
+            ingestionMetrics.recordMongoBatch("bucket", invoices.size(), System.nanoTime() - start, success);
+        }
+        return BatchSaveResult.builder()
+                .insertedCount(written)
+                .failures(failures)
+                .duplicates(duplicates)
+                .build();
+    }
+
+    public Set<String> findExistingBillIds(Collection<String> billIds) {
+        if (billIds.isEmpty()) {
+            return Set.of();
+        }
+        Query query = Query.query(Criteria.where("invoices.billId").in(billIds));
+        query.fields().include("invoices.billId");
+        Set<String> wanted = new HashSet<>(billIds);
+        Set<String> existing = new HashSet<>();
+        for (InvoiceBucket bucket : mongoTemplate.find(query, InvoiceBucket.class)) {
+            for (InvoiceBucket.Entry entry : bucket.getInvoices()) {
+                if (wanted.contains(entry.getBillId())) {
+                    existing.add(entry.getBillId());
+                }
+            }
+        }
+        return existing;
+    }
+
+    public long countByAccountId(String accountId) {
+        Document total = mongoTemplate.aggregate(Aggregation.newAggregation(InvoiceBucket.class,
+                        Aggregation.match(Criteria.where("accountId").is(accountId)),
+                        Aggregation.group().sum("count").as("total")), Document.class)
+                .getUniqueMappedResult();
+        return total == null ? 0 : total.get("total", Number.class).longValue();
+    }
+
+    /**
+     * Offset page over the account's invoices. Only the bucket counts are read to locate the page, then
+     * just the buckets it spans are fetched.
+     */
+    public Page<Invoice> findByAccountId(String accountId, Pageable pageable) {
+        Query headers = Query.query(Criteria.where("accountId").is(accountId)).with(BUCKET_ORDER);
+        headers.fields().include("month", "count");
+        long offset = pageable.getOffset();
+        long end = offset + pageable.getPageSize();
+        long total = 0;
+        long firstStart = -1;
+        List<String> spanned = new ArrayList<>();
+        for (InvoiceBucket header : mongoTemplate.find(headers, InvoiceBucket.class)) {
+            long start = total;
+            total += header.getCount();
+            if (total > offset && start < end) {
+                spanned.add(header.getId());
+                if (firstStart < 0) {
+                    firstStart = start;
+                }
+            }
+        }
+        if (spanned.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+
+        Map<String, InvoiceBucket> byId = new HashMap<>();
+        for (InvoiceBucket bucket : mongoTemplate.find(Query.query(Criteria.where("id").in(spanned)), InvoiceBucket.class)) {
+            byId.put(bucket.getId(), bucket);
+        }
+        List<Invoice> invoices = new ArrayList<>();
+        for (String id : spanned) {
+            InvoiceBucket bucket = byId.get(id);
+            if (bucket != null) {
+                bucket.getInvoices().forEach(entry -> invoices.add(entry.toInvoice(bucket.getAccountId())));
+            }
+        }
+        int from = (int) Math.min(offset - firstStart, invoices.size());
+        int to = Math.min(from + pageable.getPageSize(), invoices.size());
+        return new PageImpl<>(new ArrayList<>(invoices.subList(from, to)), pageable, total);
+    }
+
+    /**
+     * Keyset page that continues right after the {@link BucketCursor} in {@code pageToken}.
+     */
+    public CursorPage<Invoice> findByAccountIdAfter(String accountId, String pageToken, int pageSize) {
+        Criteria criteria = Criteria.where("accountId").is(accountId);
+        BucketCursor after = pageToken == null ? null : BucketCursor.decode(pageToken);
+        if (after != null) {
+            criteria.orOperator(
+                    Criteria.where("month").gt(after.getMonth()),
+                    new Criteria().andOperator(
+                            Criteria.where("month").is(after.getMonth()),
+                            Criteria.where("id").gte(after.getBucketId())));
+        }
+        Query query = new Query(criteria).with(BUCKET_ORDER).cursorBatchSize(pageSize / bucketSize + 1);
+
+        List<Invoice> invoices = new ArrayList<>(pageSize + 1);
+        BucketCursor last = null;
+        try (Stream<InvoiceBucket> buckets = mongoTemplate.stream(query, InvoiceBucket.class)) {
+            Iterator<InvoiceBucket> iterator = buckets.iterator();
+            while (invoices.size() <= pageSize && iterator.hasNext()) {
+                InvoiceBucket bucket = iterator.next();
+                List<InvoiceBucket.Entry> entries = bucket.getInvoices();
+                int from = after != null && bucket.getId().equals(after.getBucketId()) ? after.getIndex() + 1 : 0;
+                for (int i = from; i < entries.size() && invoices.size() <= pageSize; i++) {
+                    invoices.add(entries.get(i).toInvoice(bucket.getAccountId()));
+                    if (invoices.size() <= pageSize) {
+                        last = new BucketCursor(bucket.getMonth(), bucket.getId(), i);
+                    }
+                }
+            }
+        }
+        boolean hasNext = invoices.size() > pageSize;
+        List<Invoice> page = hasNext ? invoices.subList(0, pageSize) : invoices;
+        return CursorPage.<Invoice>builder()
+                .content(page)
+                .size(page.size())
+                .nextToken(hasNext ? last.encode() : null)
+                .build();
+    }
+
+    /**
+     * Every invoice of the account, bucket by bucket in {@code (month, _id)} order. The caller must
+     * close the stream.
+     */
+    public Stream<Invoice> streamByAccountId(String accountId) {
+        Query query = Query.query(Criteria.where("accountId").is(accountId))
+                .with(BUCKET_ORDER)
+                .cursorBatchSize(Math.max(1, exportCursorBatchSize / bucketSize));
+        return mongoTemplate.stream(query, InvoiceBucket.class)
+                .flatMap(bucket -> bucket.getInvoices().stream().map(entry -> entry.toInvoice(bucket.getAccountId())));
+    }
+
+    static String month(LocalDate issueDate) {
+        return issueDate == null ? "" : MONTH.format(issueDate);
+    }
+
+    private static Update append(List<Invoice> invoices, List<Integer> chunk) {
+        List<InvoiceBucket.Entry> entries = new ArrayList<>(chunk.size());
+        LocalDate first = null;
+        LocalDate last = null;
+        for (int i : chunk) {
+            Invoice invoice = invoices.get(i);
+            entries.add(InvoiceBucket.Entry.of(invoice));
+            LocalDate issueDate = invoice.getIssueDate();
+            if (issueDate != null) {
+                first = first == null || issueDate.isBefore(first) ? issueDate : first;
+                last = last == null || issueDate.isAfter(last) ? issueDate : last;
+            }
+        }
+        Update update = new Update().push("invoices").each(entries.toArray());
+        update.inc("count", chunk.size());
+        if (first != null) {
+            update.min("firstIssueDate", first).max("lastIssueDate", last);
+        }
+        return update;
+    }
+}
@@ -0,0 +1,131 @@
+package com.onboarding.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.onboarding.dto.ExportFormat;
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.entity.Invoice;
+import com.onboarding.mapper.InvoiceDTOMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes an account's complete invoice history straight from a Mongo cursor to the response, one row
+ * at a time, so memory use stays flat however many invoices the account has. Nothing is paged or
+ * cached on the way.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceExportService {
+    static final String CSV_DELIMITER = "|;";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final MongoService mongoService;
+    private final InvoiceDTOMapper invoiceDTOMapper;
+    private final ObjectMapper objectMapper;
+
+    public StreamingResponseBody export(String accountId, ExportFormat format, boolean gzip) {
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            long rows;
+            try (Stream<Invoice> invoices = mongoService.streamInvoicesByAccountId(accountId)) {
+                rows = format == ExportFormat.CSV ? writeCsv(invoices.iterator(), target)
+                        : writeNdjson(invoices.iterator(), target);
+            }
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            target.flush();
+            log.info("Exported {} invoices of account {} as {}", rows, accountId, format);
+        };
+    }
+
+    private long writeNdjson(Iterator<Invoice> invoices, OutputStream out) throws IOException {
+        long rows = 0;
+        ObjectWriter writer = objectMapper.writerFor(InvoiceDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (invoices.hasNext()) {
+                writer.writeValue(generator, invoiceDTOMapper.mapEntityToDto(invoices.next()));
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Uses the {@code |;} delimiter and date format of the ingested files. Only the columns that are
+     * stored are written. Missing values are written empty; a value containing the delimiter, a quote or
+     * a line break is quoted with inner quotes doubled, so every row stays on one line with nine columns.
+     */
+    private long writeCsv(Iterator<Invoice> invoices, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        while (invoices.hasNext()) {
+            Invoice invoice = invoices.next();
+            writeField(writer, invoice.getBillId());
+            writer.write(CSV_DELIMITER);
+            writeField(writer, invoice.getAccountId());
+            writer.write(CSV_DELIMITER);
+            writeField(writer, format(invoice.getIssueDate()));
+            writer.write(CSV_DELIMITER);
+            writeField(writer, format(invoice.getBillPeriodFrom()));
+            writer.write(CSV_DELIMITER);
+            writeField(writer, format(invoice.getBillPeriodTo()));
+            writer.write(CSV_DELIMITER);
+            writeField(writer, invoice.getName());
+            writer.write(CSV_DELIMITER);
+            writeField(writer, format(invoice.getGrossAmount()));
+            writer.write(CSV_DELIMITER);
+            writeField(writer, format(invoice.getNetAmount()));
+            writer.write(CSV_DELIMITER);
+            writeField(writer, format(invoice.getTaxAmount()));
+            writer.write('\n');
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.contains(CSV_DELIMITER) || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private static String format(LocalDate date) {
+        return date == null ? null : DATE_FORMATTER.format(date);
+    }
+
+    private static String format(BigDecimal amount) {
+        return amount == null ? null : amount.toPlainString();
+    }
+}
@@ -0,0 +1,179 @@
+package com.onboarding.service;
+
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.dto.InvoiceJob;
+import com.onboarding.dto.JobState;
+import com.onboarding.dto.JobStatus;
+import com.onboarding.dto.ProcessResult;
+import com.onboarding.dto.S3ObjectInfo;
+import com.onboarding.entity.FileLedgerEntry;
+import com.onboarding.exception.FileRejectedException;
+import com.onboarding.exception.JobConflictException;
+import com.onboarding.exception.JobRejectedException;
+import com.onboarding.exception.ResourceNotFoundException;
+import com.onboarding.service.aws.S3Service;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Accepts invoice files for background ingestion and reports on their progress. The request thread only
+ * checks that the file exists; parsing, persisting and publishing happen on the async executor.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceJobService {
+    private final InvoiceService invoiceService;
+    private final S3Service s3Service;
+    private final JobRegistry jobRegistry;
+    private final ResourceLimits resourceLimits;
+    private final IngestionMetrics ingestionMetrics;
+    private final FileSpool fileSpool;
+    private final FileLedgerService fileLedger;
+    private final Resilience resilience;
+    private final AccountSummaryService accountSummaryService;
+
+    /**
+     * Content that an earlier job already ingested to the end is not processed again; the job is
+     * returned as {@link JobState#SKIPPED} straight away. Content that another job is ingesting right now
+     * is claimed in the file ledger before anything is queued, so the second submit gets that job back
+     * instead of starting another run.
+     *
+     * @throws JobRejectedException when the service is already processing as many files as it may, or
+     *                              while the circuit of S3, MongoDB or SQS is open
+     * @throws JobConflictException when the content is being ingested by a job of another instance
+     */
+    public JobStatus submit(String invoiceName) {
+        if (resilience.isIngestPaused()) {
+            log.warn("Rejecting {}: {} unavailable", invoiceName, resilience.openCircuits());
+            ingestionMetrics.recordJobRejected("dependency-unavailable");
+            throw new JobRejectedException("Ingestion is paused while " + String.join(", ", resilience.openCircuits())
+                    + " is unavailable, try again later");
+        }
+        S3ObjectInfo object = s3Service.getObjectInfo(invoiceName);
+        Optional<FileLedgerEntry> done = fileLedger.findCompleted(object);
+        if (done.isPresent()) {
+            InvoiceJob job = jobRegistry.register(invoiceName);
+            job.skip("Already ingested as " + done.get().getFilename() + " on " + done.get().getUpdatedAt());
+            log.info("Skipping {}: same content as {}", invoiceName, done.get().getFilename());
+            return JobStatus.of(job);
+        }
+
+        if (!resourceLimits.tryAcquireFile()) {
+            log.warn("Rejecting {}: too many files in progress", invoiceName);
+            ingestionMetrics.recordJobRejected("file-limit");
+            throw new JobRejectedException("Too many invoice files in progress, try again later");
+        }
+        InvoiceJob job;
+        Optional<FileLedgerEntry> holder;
+        try {
+            job = jobRegistry.register(invoiceName);
+            holder = fileLedger.claim(job, object);
+        } catch (RuntimeException e) {
+            resourceLimits.releaseFile();
+            throw e;
+        }
+        if (holder.isPresent()) {
+            resourceLimits.releaseFile();
+            return duplicateOf(job, holder.get());
+        }
+        CompletableFuture<ProcessResult> processing;
+        try {
+            // registered before the job is queued, so a worker that picks it up at once finds the prefetch
+            fileSpool.prefetch(invoiceName, object.getSize());
+            processing = invoiceService.processFileAsync(invoiceName, job.getResult());
+        } catch (TaskRejectedException e) {
+            resourceLimits.releaseFile();
+            fileSpool.release(invoiceName);
+            abandonClaim(job, object);
+            log.warn("Rejecting {}: {}", invoiceName, e.getMessage());
+            ingestionMetrics.recordJobRejected("queue-full");
+            throw new JobRejectedException("Invoice processing queue is full, try again later", e);
+        } catch (RuntimeException e) {
+            resourceLimits.releaseFile();
+            fileSpool.release(invoiceName);
+            abandonClaim(job, object);
+            throw e;
+        }
+        log.info("Accepted {} as job {}", invoiceName, job.getId());
+        processing.whenComplete((result, ex) -> {
+            resourceLimits.releaseFile();
+            fileSpool.release(invoiceName);
+            finish(job, ex);
+            try {
+                fileLedger.record(job, object);
+            } catch (RuntimeException e) {
+                log.error("Could not record job {} in the file ledger", job.getId(), e);
+            }
+            // summaries that missed a batch are rebuilt once no file of this instance is folding into them
+            if (resourceLimits.filesInProgress() == 0) {
+                try {
+                    accountSummaryService.rebuildMarked();
+                } catch (RuntimeException e) {
+                    log.error("Could not rebuild the marked account summaries", e);
+                }
+            }
+        });
+        return JobStatus.of(job);
+    }
+
+    /**
+     * The job registered for a submit that lost the claim is closed as skipped, so it does not linger in
+     * the registry, and the caller gets the job that holds the content when this instance runs it.
+     */
+    private JobStatus duplicateOf(InvoiceJob job, FileLedgerEntry holder) {
+        if (holder.getState() == JobState.COMPLETED) {
+            job.skip("Already ingested as " + holder.getFilename() + " on " + holder.getUpdatedAt());
+            log.info("Skipping {}: same content as {}", job.getFilename(), holder.getFilename());
+            return JobStatus.of(job);
+        }
+        job.skip("Already being ingested as " + holder.getFilename() + " by job " + holder.getJobId());
+        Optional<InvoiceJob> running = jobRegistry.find(holder.getJobId());
+        if (running.isPresent()) {
+            log.info("Returning job {} for {}: same content is already being ingested", running.get().getId(),
+                    job.getFilename());
+            return JobStatus.of(running.get());
+        }
+        throw new JobConflictException("The same content is already being ingested as " + holder.getFilename()
+                + " by job " + holder.getJobId());
+    }
+
+    private void abandonClaim(InvoiceJob job, S3ObjectInfo object) {
+        try {
+            fileLedger.abandon(job, object);
+        } catch (RuntimeException e) {
+            log.error("Could not release the file ledger claim of job {}", job.getId(), e);
+        }
+    }
+
+    private void finish(InvoiceJob job, Throwable ex) {
+        if (ex == null) {
+            job.complete();
+            log.info("Job {} completed: {}", job.getId(), job.getResult().getSummary());
+            return;
+        }
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof FileRejectedException) {
+            job.reject(cause.getMessage());
+            ingestionMetrics.recordJobRejected("error-threshold");
+            log.warn("Job {} rejected: {}", job.getId(), cause.getMessage());
+            return;
+        }
+        job.fail(cause.getMessage());
+        log.error("Job {} failed", job.getId(), cause);
+    }
+
+    public JobStatus getStatus(String jobId) {
+        return jobRegistry.find(jobId)
+                .map(JobStatus::of)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found: " + jobId));
+    }
+}
@@ -0,0 +1,246 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.LineBatch;
+import com.onboarding.exception.InvoiceProcessingException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs parse, persist and publish as separate stages connected by bounded queues, so reading the S3
+ * stream, writing to Mongo and sending to SQS overlap instead of taking turns. A full queue blocks the
+ * stage feeding it, which keeps at most {@code processing.pipeline.queue-capacity} batches buffered per
+ * stage. Stages skip batches that have no invoices left, but such batches still reach the end of the
+ * run so they can be committed. The first failure in any stage stops the run and is rethrown from
+ * {@link Run#finish()}.
+ */
+@Component
+@Slf4j
+public class InvoicePipeline {
+
+    private static final Object END = new Object();
+    private static final long POLL_MILLIS = 50;
+
+    @Value("${processing.pipeline.queue-capacity}")
+    private int queueCapacity;
+    @Value("${processing.pipeline.parse-workers}")
+    private int parseWorkers;
+    @Value("${processing.pipeline.persist-workers}")
+    private int persistWorkers;
+    @Value("${processing.pipeline.publish-workers}")
+    private int publishWorkers;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        this.executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("InvoicePipeline-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Run start(String name,
+                     Function<LineBatch, List<InvoiceDTO>> parseStage,
+                     Function<List<InvoiceDTO>, List<InvoiceDTO>> persistStage,
+                     Consumer<List<InvoiceDTO>> publishStage) {
+        return start(name, parseStage, persistStage, publishStage, batch -> { });
+    }
+
+    /**
+     * @param onCommitted called with each source batch once all of its invoices have been published, in
+     *                    no particular order
+     */
+    public Run start(String name,
+                     Function<LineBatch, List<InvoiceDTO>> parseStage,
+                     Function<List<InvoiceDTO>, List<InvoiceDTO>> persistStage,
+                     Consumer<List<InvoiceDTO>> publishStage,
+                     Consumer<LineBatch> onCommitted) {
+        return new Run(name, parseStage, persistStage, publishStage, onCommitted);
+    }
+
+    /**
+     * A batch on its way through the stages, together with the lines it was parsed from.
+     */
+    private static final class Item {
+        private final LineBatch source;
+        private final List<InvoiceDTO> invoices;
+
+        private Item(LineBatch source, List<InvoiceDTO> invoices) {
+            this.source = source;
+            this.invoices = invoices;
+        }
+    }
+
+    public final class Run {
+        private final String name;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final Stage<LineBatch, Item> parse;
+
+        private Run(String name,
+                    Function<LineBatch, List<InvoiceDTO>> parseStage,
+                    Function<List<InvoiceDTO>, List<InvoiceDTO>> persistStage,
+                    Consumer<List<InvoiceDTO>> publishStage,
+                    Consumer<LineBatch> onCommitted) {
+            this.name = name;
+            Stage<Item, Void> publish = new Stage<>("publish", publishWorkers, item -> {
+                if (!item.invoices.isEmpty()) {
+                    publishStage.accept(item.invoices);
+                }
+                onCommitted.accept(item.source);
+                return null;
+            }, null);
+            Stage<Item, Item> persist = new Stage<>("persist", persistWorkers, item -> item.invoices.isEmpty()
+                    ? item
+                    : new Item(item.source, persistStage.apply(item.invoices)), publish);
+            this.parse = new Stage<>("parse", parseWorkers,
+                    lines -> new Item(lines, parseStage.apply(lines)), persist);
+            publish.start();
+            persist.start();
+            parse.start();
+        }
+
+        /**
+         * Hands a batch of raw lines to the parse stage, blocking while its queue is full.
+         */
+        public void submit(LineBatch batch) {
+            rethrowIfFailed();
+            parse.offer(batch);
+            rethrowIfFailed();
+        }
+
+        /**
+         * Signals end of input and waits until every submitted batch has been published.
+         */
+        public void finish() {
+            parse.close();
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                throw new InvoiceProcessingException("Interrupted while processing " + name, e);
+            }
+            rethrowIfFailed();
+        }
+
+        /**
+         * Stops all stages after a failure on the producing side.
+         */
+        public void abort(Throwable cause) {
+            fail(cause);
+        }
+
+        private void fail(Throwable t) {
+            if (failure.compareAndSet(null, t)) {
+                log.error("Pipeline for {} failed: {}", name, t.getMessage());
+            }
+        }
+
+        private boolean failed() {
+            return failure.get() != null;
+        }
+
+        private void rethrowIfFailed() {
+            Throwable t = failure.get();
+            if (t == null) {
+                return;
+            }
+            if (t instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (t instanceof Error error) {
+                throw error;
+            }
+            throw new InvoiceProcessingException("Processing " + name + " failed", t);
+        }
+
+        private final class Stage<I, O> {
+            private final String stageName;
+            private final int workers;
+            private final Function<I, O> work;
+            private final Stage<O, ?> next;
+            private final BlockingQueue<Object> input = new ArrayBlockingQueue<>(queueCapacity);
+            private final AtomicInteger running;
+
+            private Stage(String stageName, int workers, Function<I, O> work, Stage<O, ?> next) {
+                this.stageName = stageName;
+                this.workers = workers;
+                this.work = work;
+                this.next = next;
+                this.running = new AtomicInteger(workers);
+            }
+
+            private void start() {
+                for (int i = 0; i < workers; i++) {
+                    executor.execute(this::drain);
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            private void drain() {
+                try {
+                    Object item;
+                    while ((item = take()) != END) {
+                        O output = work.apply((I) item);
+                        if (next != null && output != null) {
+                            next.offer(output);
+                        }
+                    }
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    if (running.decrementAndGet() == 0) {
+                        if (next != null) {
+                            next.close();
+                        } else {
+                            completed.countDown();
+                        }
+                    }
+                }
+            }
+
+            private Object take() throws InterruptedException {
+                while (!failed()) {
+                    Object item = input.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (item != null) {
+                        return item;
+                    }
+                }
+                log.debug("Stopping {} stage of {}", stageName, name);
+                return END;
+            }
+
+            private void offer(Object item) {
+                try {
+                    while (!failed() && !input.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        log.trace("{} stage of {} is full", stageName, name);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(e);
+                }
+            }
+
+            private void close() {
+                for (int i = 0; i < workers; i++) {
+                    offer(END);
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package com.onboarding.service;
 
 import com.mongodb.MongoException;
+import com.onboarding.dto.BatchSaveResult;
+import com.onboarding.dto.CursorPage;
+import com.onboarding.dto.ErrorCategory;
 import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.InvoiceTotals;
+import com.onboarding.dto.LineBatch;
 import com.onboarding.dto.ProcessResult;
+import com.onboarding.dto.PublishResult;
 import com.onboarding.dto.SQSMessage;
 import com.onboarding.entity.Invoice;
+import com.onboarding.exception.DependencyUnavailableException;
+import com.onboarding.exception.FileRejectedException;
 import com.onboarding.exception.InvoiceProcessingException;
 import com.onboarding.exception.MessageProcessingException;
 import com.onboarding.exception.ResourceNotFoundException;
 import com.onboarding.mapper.InvoiceMapper;
 import com.onboarding.mapper.SQSMessageMapper;
+import com.onboarding.service.aws.S3RangedReader;
 import com.onboarding.service.aws.S3Service;
+import com.onboarding.component.AccountCacheInvalidator;
+import com.onboarding.component.AdaptiveBatchSize;
 import com.onboarding.component.CSVParser;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.LineBatchAssembler;
+import com.onboarding.component.ResourceLimits;
 import com.onboarding.service.aws.SqsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,55 +35,131 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class InvoiceService {
+    private static final int STREAM_CHUNK_BYTES = 64 * 1024;
+
     private final S3Service s3Service;
     private final CSVParser csvParser;
     private final MongoService mongoService;
     private final InvoiceMapper invoiceMapper;
     private final SQSMessageMapper sqsMessageMapper;
     private final SqsService sqsService;
+    private final InvoicePipeline invoicePipeline;
+    private final S3RangedReader s3RangedReader;
+    private final ResourceLimits resourceLimits;
+    private final IngestionMetrics ingestionMetrics;
+    private final CheckpointService checkpointService;
+    private final AccountCacheInvalidator accountCacheInvalidator;
+    private final AccountSummaryService accountSummaryService;
+    private final ErrorReportService errorReportService;
+    private final MappedFileReader mappedFileReader;
+    private final FileSpool fileSpool;
+    private final AdaptiveBatchSize adaptiveBatchSize;
 
 
     @Value("${processing.batch.size}")
     private int batchSize;
+    @Value("${processing.persistence.bulk-insert}")
+    private boolean bulkInsert;
+    @Value("${aws.sqs.batch.enabled}")
+    private boolean batchPublish;
+    @Value("${processing.pipeline.enabled}")
+    private boolean pipelined;
+    @Value("${aws.s3.ranged-read.enabled}")
+    private boolean rangedRead;
+    @Value("${processing.checkpoint.enabled}")
+    private boolean checkpointing;
+    @Value("${processing.parallel-parse.enabled}")
+    private boolean parallelParse;
+    @Value("${processing.fail-fast.enabled}")
+    private boolean failFast;
+    @Value("${processing.fail-fast.min-lines}")
+    private int failFastMinLines;
+    @Value("${processing.fail-fast.window-lines}")
+    private int failFastWindowLines;
+    @Value("${processing.fail-fast.max-error-rate}")
+    private double failFastMaxErrorRate;
+    @Value("${processing.fail-fast.max-errors}")
+    private int failFastMaxErrors;
+    @Value("${processing.idempotency.filter-persisted}")
+    private boolean filterPersisted;
 
     public Page<InvoiceDTO> getInvoicesByAccountId(String accountId, int pageNumber, int pageCount) {
         return mongoService.getInvoicesByAccountId(accountId, pageNumber, pageCount);
     }
 
+    public CursorPage<InvoiceDTO> getInvoicesByAccountIdAfter(String accountId, String pageToken, int pageSize,
+                                                             boolean withCount) {
+        return mongoService.getInvoicesByAccountIdAfter(accountId, pageToken, pageSize, withCount);
+    }
+
+    public InvoiceTotals getTotals(String accountId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return mongoService.getTotals(accountId, from, to);
+    }
+
+    public List<InvoiceTotals> getMonthlyTotals(String accountId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return mongoService.getMonthlyTotals(accountId, from, to);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvoiceProcessingException("from must not be after to");
+        }
+    }
+
     @Async
     public CompletableFuture<ProcessResult> processFileAsync(String invoiceName) {
+        return processFileAsync(invoiceName, ProcessResult.builder().filename(invoiceName).build());
+    }
 
-        ProcessResult result = ProcessResult.builder().filename(invoiceName).build();
+    /**
+     * Processes the file into a caller-supplied result, so the caller can watch progress while the
+     * file is being ingested. With {@code processing.checkpoint.enabled} the run picks up after the
+     * last checkpoint of the same S3 object, if one was left behind by an earlier run.
+     */
+    @Async
+    public CompletableFuture<ProcessResult> processFileAsync(String invoiceName, ProcessResult result) {
         log.info("Processing invoice {}", invoiceName);
+        long start = System.nanoTime();
 
-        try (InputStream inputStream = s3Service.getFileInputStream(invoiceName)) {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            List<InvoiceDTO> batch = new ArrayList<>(batchSize);
-            log.info("batches {}", batchSize);
-            String line;
-            int lineNumber = 0;
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                parseInvoiceLine(line, lineNumber, batch, result);
-                if (batch.size() >= batchSize) {
-                    saveInvoicesToDB(batch, result);
-                    sendMessages(batch, result);
-                    batch.clear();
-                }
+        try (ErrorReport ignored = errorReportService.open(result)) {
+            Checkpoint checkpoint = checkpointing ? checkpointService.open(invoiceName) : Checkpoint.none(invoiceName);
+            if (checkpoint.isAtEnd()) {
+                log.info("Nothing left to ingest in {}, an earlier run got to the end", invoiceName);
+                checkpoint.complete();
+                return CompletableFuture.completedFuture(result);
             }
-            if (!batch.isEmpty()) {
-                saveInvoicesToDB(batch, result);
-                sendMessages(batch, result);
+            try {
+                if (parallelParse || fileSpool.isEnabled()) {
+                    processLocal(invoiceName, checkpoint, result);
+                } else if (rangedRead) {
+                    processRanged(invoiceName, checkpoint, result);
+                } else {
+                    processStream(invoiceName, checkpoint, result);
+                }
+            } catch (IOException | RuntimeException e) {
+                checkpoint.flush();
+                throw e;
             }
-
+            checkpoint.complete();
         } catch (ResourceNotFoundException e) {
             log.error("File not found in S3: {}", invoiceName, e);
             throw new ResourceNotFoundException("File not found in S3: " + invoiceName, e);
@@ -78,45 +168,334 @@ public class InvoiceService {
             throw new InvoiceProcessingException("Error while reading input stream", e);
         }
 
+        synchronized (result) {
+            ingestionMetrics.recordFile(result.getLinesRead(), result.getParseErrorCount(), System.nanoTime() - start);
+        }
         return CompletableFuture.completedFuture(result);
     }
 
+    private void processStream(String invoiceName, Checkpoint checkpoint, ProcessResult result) throws IOException {
+        try (InputStream inputStream = s3Service.getFileInputStream(invoiceName, checkpoint.getResumeOffset())) {
+            log.info("batches {}", linesPerBatch().getAsInt());
+            if (pipelined) {
+                processPipelined(invoiceName, inputStream, checkpoint, result);
+            } else {
+                readLineBatches(inputStream, checkpoint, lines -> {
+                    processLineBatch(lines, result);
+                    checkpoint.committed(lines);
+                });
+            }
+        }
+    }
+
+    /**
+     * Downloads the file with parallel ranged GETs; line batches go to the pipeline or are processed
+     * one after another on this thread.
+     */
+    private void processRanged(String invoiceName, Checkpoint checkpoint, ProcessResult result) {
+        if (!pipelined) {
+            s3RangedReader.read(invoiceName, checkpoint.getResumeLineNumber(), checkpoint.getResumeOffset(),
+                    linesPerBatch(), lines -> {
+                        processLineBatch(lines, result);
+                        checkpoint.committed(lines);
+                    });
+            return;
+        }
+        InvoicePipeline.Run run = startPipeline(invoiceName, checkpoint, result);
+        try {
+            s3RangedReader.read(invoiceName, checkpoint.getResumeLineNumber(), checkpoint.getResumeOffset(),
+                    linesPerBatch(), run::submit);
+        } catch (RuntimeException e) {
+            run.abort(e);
+            throw e;
+        }
+        run.finish();
+    }
+
+    /**
+     * Parses a local copy of the file on all cores with the {@link MappedFileReader}. The copy comes from
+     * the {@link FileSpool} when it is enabled, or is downloaded to a temp file otherwise. Batches are
+     * persisted and published on this thread in file order.
+     */
+    private void processLocal(String invoiceName, Checkpoint checkpoint, ProcessResult result) throws IOException {
+        if (fileSpool.isEnabled()) {
+            try (FileSpool.SpooledFile file = fileSpool.acquire(invoiceName)) {
+                parseLocal(file.getPath(), checkpoint, result);
+            }
+            return;
+        }
+        Path file = Files.createTempFile("invoice-", ".csv");
+        try {
+            resourceLimits.s3(() -> s3Service.downloadTo(invoiceName, file));
+            parseLocal(file, checkpoint, result);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void parseLocal(Path file, Checkpoint checkpoint, ProcessResult result) throws IOException {
+        mappedFileReader.read(file, checkpoint.getResumeLineNumber(), checkpoint.getResumeOffset(), linesPerBatch(),
+                lines -> parseInvoiceLines(lines, result),
+                (lines, batch) -> {
+                    if (!batch.isEmpty()) {
+                        sendMessages(saveInvoicesToDB(batch, result), result);
+                    }
+                    checkpoint.committed(lines);
+                });
+    }
+
+    private void processLineBatch(LineBatch lines, ProcessResult result) {
+        List<InvoiceDTO> batch = parseInvoiceLines(lines, result);
+        if (!batch.isEmpty()) {
+            sendMessages(saveInvoicesToDB(batch, result), result);
+        }
+    }
+
+    private void readLineBatches(InputStream inputStream, Checkpoint checkpoint, Consumer<LineBatch> sink)
+            throws IOException {
+        LineBatchAssembler assembler = new LineBatchAssembler(checkpoint.getResumeLineNumber(),
+                checkpoint.getResumeOffset(), linesPerBatch(), sink);
+        byte[] buffer = new byte[STREAM_CHUNK_BYTES];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            assembler.accept(buffer, 0, read);
+        }
+        assembler.finish();
+    }
+
+    /**
+     * Reads the file on the calling thread and leaves parsing, persisting and publishing to the
+     * {@link InvoicePipeline} stages.
+     */
+    private void processPipelined(String invoiceName, InputStream inputStream, Checkpoint checkpoint,
+                                  ProcessResult result) throws IOException {
+        InvoicePipeline.Run run = startPipeline(invoiceName, checkpoint, result);
+        try {
+            readLineBatches(inputStream, checkpoint, run::submit);
+        } catch (IOException | RuntimeException e) {
+            run.abort(e);
+            throw e;
+        }
+        run.finish();
+    }
+
+    private InvoicePipeline.Run startPipeline(String invoiceName, Checkpoint checkpoint, ProcessResult result) {
+        return invoicePipeline.start(invoiceName,
+                lines -> parseInvoiceLines(lines, result),
+                dtos -> saveInvoicesToDB(dtos, result),
+                dtos -> sendMessages(dtos, result),
+                checkpoint::committed);
+    }
+
+    private List<InvoiceDTO> parseInvoiceLines(LineBatch lines, ProcessResult result) {
+        List<InvoiceDTO> batch = new ArrayList<>(lines.getLines().size());
+        int lineNumber = lines.getFirstLineNumber();
+        for (String line : lines.getLines()) {
+            parseInvoiceLine(line, lineNumber++, batch, result);
+        }
+        if (failFast) {
+            checkErrorThreshold(lines, result);
+        }
+        return batch;
+    }
+
+    /**
+     * Gives up on a file once it has more than {@code processing.fail-fast.max-errors} errors, or once
+     * more than {@code max-error-rate} of the lines read so far failed to parse. The rate is only judged
+     * between {@code min-lines} and {@code window-lines}, so a few bad lines at the start do not reject a
+     * file and a long good file is not rejected for a bad tail. Throwing from here stops the pipeline,
+     * which closes the S3 stream.
+     */
+    private void checkErrorThreshold(LineBatch lines, ProcessResult result) {
+        int linesRead;
+        int parseErrors;
+        int errors;
+        synchronized (result) {
+            linesRead = result.getLinesRead();
+            parseErrors = result.getParseErrorCount();
+            errors = result.getErrorCount();
+        }
+        if (errors > failFastMaxErrors) {
+            throw new FileRejectedException(String.format(
+                    "Rejected after %d errors in %d lines", errors, linesRead));
+        }
+        if (linesRead >= failFastMinLines && lines.getFirstLineNumber() <= failFastWindowLines
+                && parseErrors > failFastMaxErrorRate * linesRead) {
+            throw new FileRejectedException(String.format(
+                    "Rejected after %d of the first %d lines failed to parse", parseErrors, linesRead));
+        }
+    }
+
     private void parseInvoiceLine(String line, int lineNumber, List<InvoiceDTO> batch, ProcessResult result) {
+        result.incrementLinesRead(1);
         try {
             InvoiceDTO dto = csvParser.parseLine(line, lineNumber);
             batch.add(dto);
-
+            ingestionMetrics.recordParsed(1, 0);
         } catch (InvoiceProcessingException e) {
-            result.addError(lineNumber, e.getMessage());
+            result.addParseError(lineNumber, ErrorCategory.ofParseFailure(e), e.getMessage());
+            ingestionMetrics.recordParsed(1, 1);
         }
     }
 
 
-    private void saveInvoicesToDB(List<InvoiceDTO> dtos, ProcessResult result) {
-        log.info("Persisting {} invoices", dtos.size());
+    /**
+     * Writes the batch, folds what was written into the account summaries and drops the cached pages of
+     * every account that received invoices.
+     *
+     * @return the invoices that were actually written and may be published
+     */
+    private List<InvoiceDTO> saveInvoicesToDB(List<InvoiceDTO> dtos, ProcessResult result) {
+        List<InvoiceDTO> persisted = writeInvoices(dtos, result);
+        if (!persisted.isEmpty()) {
+            resourceLimits.mongo(() -> {
+                accountSummaryService.apply(persisted);
+                return null;
+            });
+        }
+        Set<String> accountIds = new HashSet<>();
+        for (InvoiceDTO dto : persisted) {
+            accountIds.add(dto.getAccountId());
+        }
+        accountCacheInvalidator.evictAccounts(accountIds);
+        return persisted;
+    }
+
+    private List<InvoiceDTO> writeInvoices(List<InvoiceDTO> dtos, ProcessResult result) {
+        log.debug("Persisting {} invoices", dtos.size());
         try {
+            if (filterPersisted) {
+                dtos = withoutPersisted(dtos, result);
+                if (dtos.isEmpty()) {
+                    return dtos;
+                }
+            }
             List<Invoice> entities = invoiceMapper.mapDtosToEntities(dtos);
-            mongoService.saveAll(entities);
+            if (!bulkInsert) {
+                write(entities.size(), () -> {
+                    mongoService.saveAll(entities);
+                    return null;
+                }, ignored -> 0);
+                result.incrementPersistedCount(dtos.size());
+                return dtos;
+            }
+            BatchSaveResult saveResult = write(entities.size(), () -> mongoService.insertAll(entities),
+                    written -> written.getFailures().size() - written.getDuplicates().size());
+            result.incrementPersistedCount(saveResult.getInsertedCount());
+            if (!saveResult.hasFailures()) {
+                return dtos;
+            }
+            List<InvoiceDTO> persisted = new ArrayList<>(saveResult.getInsertedCount());
+            for (int i = 0; i < dtos.size(); i++) {
+                InvoiceDTO dto = dtos.get(i);
+                if (saveResult.isFailed(i)) {
+                    result.addError(lineNumberOf(dto),
+                            saveResult.isDuplicate(i) ? ErrorCategory.DUPLICATE : ErrorCategory.PERSISTENCE,
+                            saveResult.getFailures().get(i));
+                } else {
+                    persisted.add(dto);
+                }
+            }
+            return persisted;
         } catch (InvoiceProcessingException e) {
             String errorMsg = e.getMessage();
             log.error("Batch save failed: {}", errorMsg, e);
-            result.addError(0, errorMsg);
+            result.addError(0, ErrorCategory.PERSISTENCE, errorMsg);
             throw e;
         } catch (MongoException e) {
             log.error("Unexpected error during batch save", e);
-            result.addError(0, "Unexpected error during batch processing");
+            result.addError(0, ErrorCategory.PERSISTENCE, "Unexpected error during batch processing");
             throw e;
+        } catch (DependencyUnavailableException e) {
+            log.error("Batch save skipped: {}", e.getMessage());
+            result.addError(0, ErrorCategory.PERSISTENCE, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Runs one Mongo write under a permit and reports how long it took and how many invoices it failed
+     * to the {@link AdaptiveBatchSize}. Duplicates say nothing about the cluster and do not count.
+     */
+    private <T> T write(int size, Supplier<T> call, ToIntFunction<T> failures) {
+        return resourceLimits.mongo(() -> {
+            long start = System.nanoTime();
+            T written;
+            try {
+                written = call.get();
+            } catch (MongoException e) {
+                adaptiveBatchSize.recordWrite(size, System.nanoTime() - start, size);
+                throw e;
+            }
+            adaptiveBatchSize.recordWrite(size, System.nanoTime() - start, failures.applyAsInt(written));
+            return written;
+        });
+    }
+
+    /**
+     * Drops the invoices an earlier run of the file already stored, so re-posting a file neither reports
+     * them as duplicates nor publishes them again. Duplicates within the batch are left to the insert.
+     */
+    private List<InvoiceDTO> withoutPersisted(List<InvoiceDTO> dtos, ProcessResult result) {
+        List<String> billIds = new ArrayList<>(dtos.size());
+        for (InvoiceDTO dto : dtos) {
+            billIds.add(dto.getBillId());
+        }
+        Set<String> existing = resourceLimits.mongo(() -> mongoService.findExistingBillIds(billIds));
+        if (existing.isEmpty()) {
+            return dtos;
+        }
+        List<InvoiceDTO> remaining = new ArrayList<>(dtos.size() - existing.size());
+        for (InvoiceDTO dto : dtos) {
+            if (!existing.contains(dto.getBillId())) {
+                remaining.add(dto);
+            }
         }
+        result.incrementSkippedCount(dtos.size() - remaining.size());
+        log.debug("Skipping {} invoices that are already stored", dtos.size() - remaining.size());
+        return remaining;
+    }
+
+    /**
+     * Lines per batch: the adaptive size when {@code processing.batch.adaptive.enabled}, otherwise
+     * {@code processing.batch.size}.
+     */
+    private IntSupplier linesPerBatch() {
+        return adaptiveBatchSize.isEnabled() ? adaptiveBatchSize::current : () -> batchSize;
+    }
+
+    private static int lineNumberOf(InvoiceDTO dto) {
+        return dto.getLineNumber() != null ? dto.getLineNumber() : 0;
     }
 
     private void sendMessages(List<InvoiceDTO> dtos, ProcessResult result) {
+        if (dtos.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            publish(dtos, result);
+        } finally {
+            adaptiveBatchSize.recordPublish(dtos.size(), System.nanoTime() - start);
+        }
+    }
+
+    private void publish(List<InvoiceDTO> dtos, ProcessResult result) {
         List<SQSMessage> messages = sqsMessageMapper.mapDtosToSqsMessages(dtos);
-        for (SQSMessage message : messages) {
+        if (batchPublish) {
+            PublishResult published = sqsService.sendInvoices(messages);
+            result.incrementSuccessCount(published.getSuccessCount());
+            published.getFailures().forEach((index, reason) ->
+                    result.addError(lineNumberOf(dtos.get(index)), ErrorCategory.SQS_FAILURE, reason));
+            return;
+        }
+        for (int i = 0; i < messages.size(); i++) {
             try {
-                sqsService.sendInvoice(message);
+                sqsService.sendInvoice(messages.get(i));
                 result.incrementSuccessCount(1);
             } catch (MessageProcessingException e) {
-                result.addError(0, "Failed to send message to SQS for message: " + message.getContent());
+                result.addError(lineNumberOf(dtos.get(i)), ErrorCategory.SQS_FAILURE,
+                        "Failed to send message to SQS: " + e.getMessage());
                 throw e;
             }
         }
@@ -0,0 +1,15 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.InvoiceJob;
+
+import java.util.Optional;
+
+/**
+ * Keeps track of submitted ingestion jobs so their progress can be polled.
+ */
+public interface JobRegistry {
+
+    InvoiceJob register(String filename);
+
+    Optional<InvoiceJob> find(String id);
+}
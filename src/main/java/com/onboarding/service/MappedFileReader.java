@@ -0,0 +1,254 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.LineBatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Parses a local invoice file on every core. The file is cut into segments of about
+ * {@code processing.parallel-parse.segment-bytes}, each ending just after a {@code \n}, and every segment
+ * is memory-mapped and split into numbered {@link LineBatch}es on a {@link ForkJoinPool}. Line numbers
+ * stay global because the lines of all segments are counted in a first parallel pass. Parsed batches are
+ * handed to the sink on the calling thread in file order, with at most two segments per worker parsed
+ * ahead of the one being consumed.
+ */
+@Service
+@Slf4j
+public class MappedFileReader {
+
+    @Value("${processing.parallel-parse.parallelism}")
+    private int parallelism;
+    @Value("${processing.parallel-parse.segment-bytes}")
+    private int segmentBytes;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(workers, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("MappedFileReader-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Reads the file from byte {@code startOffset}, numbering the first line found there
+     * {@code firstLineNumber}.
+     *
+     * @param parse runs on the pool, once per batch
+     * @param sink  runs on the calling thread, once per batch and in file order
+     */
+    public <T> void read(Path file, int firstLineNumber, long startOffset, int linesPerBatch,
+                         Function<LineBatch, T> parse, BiConsumer<LineBatch, T> sink) throws IOException {
+        read(file, firstLineNumber, startOffset, () -> linesPerBatch, parse, sink);
+    }
+
+    /**
+     * Same as above, with the batch size asked again for every segment as it is submitted. Segments are
+     * parsed ahead of the sink, so a change only reaches batches a few segments later.
+     */
+    public <T> void read(Path file, int firstLineNumber, long startOffset, IntSupplier linesPerBatch,
+                         Function<LineBatch, T> parse, BiConsumer<LineBatch, T> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = segmentBounds(channel, startOffset);
+            int segments = bounds.length - 1;
+            int[] firstLines = firstLineNumbers(channel, bounds, firstLineNumber);
+            log.info("Parsing {} ({} bytes from offset {}) in {} segments on {} workers", file,
+                    channel.size(), startOffset, segments, pool.getParallelism());
+
+            Deque<ForkJoinTask<List<Parsed<T>>>> window = new ArrayDeque<>();
+            int ahead = pool.getParallelism() * 2;
+            int next = 0;
+            try {
+                while (next < segments && window.size() < ahead) {
+                    window.add(parseSegment(channel, bounds, firstLines, next++, linesPerBatch.getAsInt(), parse));
+                }
+                while (!window.isEmpty()) {
+                    List<Parsed<T>> parsed = window.poll().join();
+                    if (next < segments) {
+                        window.add(parseSegment(channel, bounds, firstLines, next++, linesPerBatch.getAsInt(), parse));
+                    }
+                    for (Parsed<T> batch : parsed) {
+                        sink.accept(batch.lines, batch.value);
+                    }
+                }
+            } finally {
+                window.forEach(pending -> pending.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * @return segment start offsets followed by the file size
+     */
+    private long[] segmentBounds(FileChannel channel, long startOffset) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        long start = startOffset;
+        while (start < size) {
+            bounds.add(start);
+            start = nextLineStart(channel, Math.min(start + segmentBytes, size) - 1, size);
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @return the offset just past the first {@code \n} at or after {@code from}, or {@code size}
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private int[] firstLineNumbers(FileChannel channel, long[] bounds, int firstLineNumber) {
+        int segments = bounds.length - 1;
+        int[] counts = new int[segments];
+        pool.submit(() -> IntStream.range(0, segments).parallel()
+                .forEach(i -> counts[i] = countLines(map(channel, bounds[i], bounds[i + 1])))).join();
+        int[] firstLines = new int[segments];
+        int line = firstLineNumber;
+        for (int i = 0; i < segments; i++) {
+            firstLines[i] = line;
+            line += counts[i];
+        }
+        return firstLines;
+    }
+
+    private <T> ForkJoinTask<List<Parsed<T>>> parseSegment(FileChannel channel, long[] bounds, int[] firstLines,
+                                                           int segment, int linesPerBatch,
+                                                           Function<LineBatch, T> parse) {
+        return pool.submit(() -> {
+            List<Parsed<T>> parsed = new ArrayList<>();
+            long start = bounds[segment];
+            split(map(channel, start, bounds[segment + 1]), start, firstLines[segment], linesPerBatch,
+                    batch -> parsed.add(new Parsed<>(batch, parse.apply(batch))));
+            return parsed;
+        });
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map bytes " + start + "-" + end, e);
+        }
+    }
+
+    /**
+     * Counts lines the way {@link #split} cuts them: {@code \n}, {@code \r} and {@code \r\n} end a line,
+     * and trailing bytes without a terminator form one more line.
+     */
+    static int countLines(ByteBuffer segment) {
+        int limit = segment.limit();
+        int lines = 0;
+        int start = 0;
+        for (int i = 0; i < limit; i++) {
+            byte b = segment.get(i);
+            if (b == '\n' || b == '\r') {
+                if (b == '\r' && i + 1 < limit && segment.get(i + 1) == '\n') {
+                    i++;
+                }
+                lines++;
+                start = i + 1;
+            }
+        }
+        return start < limit ? lines + 1 : lines;
+    }
+
+    /**
+     * Cuts the segment into batches of {@code linesPerBatch} lines, splitting lines like
+     * {@link com.onboarding.component.LineBatchAssembler} does.
+     */
+    static void split(ByteBuffer segment, long baseOffset, int firstLineNumber, int linesPerBatch,
+                      Consumer<LineBatch> sink) {
+        int limit = segment.limit();
+        List<String> lines = new ArrayList<>(linesPerBatch);
+        int batchFirstLine = firstLineNumber;
+        int start = 0;
+        for (int i = 0; i <= limit; i++) {
+            boolean last = i == limit;
+            byte b = last ? 0 : segment.get(i);
+            if (!last && b != '\n' && b != '\r') {
+                continue;
+            }
+            if (last && start == limit) {
+                break;
+            }
+            lines.add(string(segment, start, i));
+            if (b == '\r' && i + 1 < limit && segment.get(i + 1) == '\n') {
+                i++;
+            }
+            start = Math.min(i + 1, limit);
+            if (lines.size() == linesPerBatch) {
+                sink.accept(new LineBatch(batchFirstLine, lines, baseOffset + start));
+                batchFirstLine += lines.size();
+                lines = new ArrayList<>(linesPerBatch);
+            }
+        }
+        if (!lines.isEmpty()) {
+            sink.accept(new LineBatch(batchFirstLine, lines, baseOffset + limit));
+        }
+    }
+
+    private static String string(ByteBuffer segment, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        segment.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Parsed<T> {
+        private final LineBatch lines;
+        private final T value;
+
+        private Parsed(LineBatch lines, T value) {
+            this.lines = lines;
+            this.value = value;
+        }
+    }
+}
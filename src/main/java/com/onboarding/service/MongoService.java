@@ -1,32 +1,111 @@
 package com.onboarding.service;
 
 import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.onboarding.component.AccountCacheInvalidator;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.component.TwoTierCache;
+import com.onboarding.dto.BatchSaveResult;
+import com.onboarding.dto.CursorPage;
+import com.onboarding.dto.InvoiceCursor;
 import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.InvoiceTotals;
 import com.onboarding.entity.Invoice;
+import com.onboarding.entity.InvoiceBucket;
 import com.onboarding.exception.InvoiceProcessingException;
 import com.onboarding.mapper.InvoiceDTOMapper;
 import com.onboarding.repo.InvoiceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+/**
+ * Invoice storage. With {@code processing.persistence.layout=bucket} every read and write goes to the
+ * {@link InvoiceBucketStore} instead of the one-document-per-invoice {@code invoice} collection; the two
+ * layouts do not see each other's data.
+ * <p>
+ * Every call goes through the Mongo {@link com.onboarding.component.DependencyGuard}: lost connections,
+ * elections and timeouts are retried with backoff, and the circuit opens when they keep failing.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MongoService {
     private final InvoiceRepository invoiceRepo;
     private final InvoiceDTOMapper invoiceDTOMapper;
+    private final MongoTemplate mongoTemplate;
+    private final IngestionMetrics ingestionMetrics;
+    private final CacheManager cacheManager;
+    private final InvoiceBucketStore bucketStore;
+    private final Resilience resilience;
 
+    private static final int DUPLICATE_KEY_CODE = 11000;
 
+    @Value("${export.cursor-batch-size}")
+    private int exportCursorBatchSize;
+    @Value("${processing.persistence.layout}")
+    private String layout;
+
+    /**
+     * In the bucket layout the batch is appended like {@link #insertAll} and any rejected invoice fails
+     * the call.
+     */
     public void saveAll(List<Invoice> invoices) {
-        log.info("Adding invoices to Mongo");
+        log.debug("Adding {} invoices to Mongo", invoices.size());
+        resilience.mongo().run(() -> saveOnce(invoices));
+    }
+
+    private void saveOnce(List<Invoice> invoices) {
+        if (isBucketLayout()) {
+            BatchSaveResult result = bucketStore.insertAll(invoices);
+            if (result.hasFailures()) {
+                throw new InvoiceProcessingException(result.getFailures().values().iterator().next());
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        boolean saved = false;
         try {
             invoiceRepo.saveAll(invoices);
+            saved = true;
         } catch (DuplicateKeyException e) {
             log.error( "Duplicate bill ID found: ex:{}" , e.getMessage());
             throw new InvoiceProcessingException("Duplicate bill ID found", e);
@@ -34,13 +113,319 @@ public class MongoService {
             String errorMsg = "Failed to save invoices to MongoDB: " + e.getMessage();
             log.error(errorMsg);
             throw new MongoException(errorMsg, e);
+        } finally {
+            ingestionMetrics.recordMongoBatch("save", invoices.size(), System.nanoTime() - start, saved);
         }
     }
 
+    /**
+     * Inserts the whole batch in one unordered bulk write. Entries rejected by Mongo (e.g. a duplicate
+     * {@code bill_id}) are reported by their position in {@code invoices}; the rest of the batch is
+     * still written. A retry after a transient failure only inserts what the failed attempt did not.
+     */
+    public BatchSaveResult insertAll(List<Invoice> invoices) {
+        log.debug("Bulk inserting {} invoices to Mongo", invoices.size());
+        AtomicBoolean attempted = new AtomicBoolean();
+        return resilience.mongo().call(() -> attempted.getAndSet(true) ? insertMissing(invoices) : insertOnce(invoices));
+    }
+
+    /**
+     * A failed bulk write may have stored part of the batch, so the retry looks up which bill IDs are
+     * stored by now and takes them as written by the failed attempt; later copies of such a bill ID in
+     * the batch are duplicates, as the first attempt would have reported them.
+     */
+    private BatchSaveResult insertMissing(List<Invoice> invoices) {
+        Set<String> stored = existingBillIds(invoices.stream().map(Invoice::getBillId).toList());
+        if (stored.isEmpty()) {
+            return insertOnce(invoices);
+        }
+        List<Invoice> missing = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        Set<String> written = new HashSet<>();
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        Set<Integer> duplicates = new HashSet<>();
+        for (int i = 0; i < invoices.size(); i++) {
+            Invoice invoice = invoices.get(i);
+            if (!stored.contains(invoice.getBillId())) {
+                missing.add(invoice);
+                positions.add(i);
+            } else if (!written.add(invoice.getBillId())) {
+                failures.put(i, "Duplicate bill ID found: " + invoice.getBillId());
+                duplicates.add(i);
+            }
+        }
+        log.info("Retrying bulk insert with {} of {} invoices, the rest is already stored",
+                missing.size(), invoices.size());
+        int insertedCount = written.size();
+        if (!missing.isEmpty()) {
+            BatchSaveResult retried = insertOnce(missing);
+            insertedCount += retried.getInsertedCount();
+            retried.getFailures().forEach((index, reason) -> failures.put(positions.get(index), reason));
+            retried.getDuplicates().forEach(index -> duplicates.add(positions.get(index)));
+        }
+        return BatchSaveResult.builder()
+                .insertedCount(insertedCount)
+                .failures(failures)
+                .duplicates(duplicates)
+                .build();
+    }
+
+    private BatchSaveResult insertOnce(List<Invoice> invoices) {
+        if (isBucketLayout()) {
+            return bucketStore.insertAll(invoices);
+        }
+        long start = System.nanoTime();
+        boolean written = false;
+        try {
+            BulkWriteResult writeResult = mongoTemplate.bulkOps(BulkMode.UNORDERED, Invoice.class)
+                    .insert(invoices)
+                    .execute();
+            written = true;
+            return BatchSaveResult.builder().insertedCount(writeResult.getInsertedCount()).build();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> failures = new LinkedHashMap<>();
+            Set<Integer> duplicates = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                Invoice invoice = invoices.get(error.getIndex());
+                boolean duplicate = error.getCode() == DUPLICATE_KEY_CODE;
+                String reason = duplicate
+                        ? "Duplicate bill ID found: " + invoice.getBillId()
+                        : "Failed to save bill ID " + invoice.getBillId() + ": " + error.getMessage();
+                failures.put(error.getIndex(), reason);
+                if (duplicate) {
+                    duplicates.add(error.getIndex());
+                }
+            }
+            log.error("Bulk insert rejected {} of {} invoices", failures.size(), invoices.size());
+            written = true;
+            return BatchSaveResult.builder()
+                    .insertedCount(e.getResult().getInsertedCount())
+                    .failures(failures)
+                    .duplicates(duplicates)
+                    .build();
+        } catch (DataAccessException | MongoException e) {
+            String errorMsg = "Failed to save invoices to MongoDB: " + e.getMessage();
+            log.error(errorMsg);
+            throw new MongoException(errorMsg, e);
+        } finally {
+            ingestionMetrics.recordMongoBatch("insert", invoices.size(), System.nanoTime() - start, written);
+        }
+    }
+
+    /**
+     * The subset of {@code billIds} already stored, looked up with a single {@code $in} query over the
+     * unique {@code bill_id} index that reads nothing but the ids.
+     */
+    public Set<String> findExistingBillIds(Collection<String> billIds) {
+        return resilience.mongo().call(() -> existingBillIds(billIds));
+    }
+
+    private Set<String> existingBillIds(Collection<String> billIds) {
+        if (billIds.isEmpty()) {
+            return Set.of();
+        }
+        if (isBucketLayout()) {
+            return bucketStore.findExistingBillIds(billIds);
+        }
+        Query query = Query.query(Criteria.where("billId").in(billIds));
+        query.fields().include("billId").exclude("_id");
+        Set<String> existing = new HashSet<>();
+        for (Invoice invoice : mongoTemplate.find(query, Invoice.class)) {
+            existing.add(invoice.getBillId());
+        }
+        return existing;
+    }
+
+    /**
+     * Served from the {@code accountInvoices} cache. Concurrent misses on one page share a single query,
+     * and a page that is still being read shortly before it expires is reloaded in the background.
+     */
     public Page<InvoiceDTO> getInvoicesByAccountId(String accountId , int pageNumber , int pageCount)
     {
-        Page<Invoice> invoices = invoiceRepo.findByAccountId(accountId ,PageRequest.of(pageNumber,pageCount));
+        PageRequest pageRequest = PageRequest.of(pageNumber, pageCount);
+        Supplier<Page<Invoice>> query = isBucketLayout()
+                ? () -> resilience.mongo().call(() -> bucketStore.findByAccountId(accountId, pageRequest))
+                : () -> resilience.mongo().call(() -> invoiceRepo.findByAccountId(accountId, pageRequest));
+        Cache cache = cacheManager.getCache(AccountCacheInvalidator.ACCOUNT_INVOICES);
+        Page<Invoice> invoices = cache instanceof TwoTierCache tiered
+                ? tiered.getOrLoad(accountId + "_" + pageNumber + "_" + pageCount, query)
+                : query.get();
         return invoiceDTOMapper.mapToPageDto(invoices);
 
     }
+
+    /**
+     * Every invoice of the account in {@code (issue_date, _id)} order, read through a server-side cursor
+     * in batches of {@code export.cursor-batch-size}. The bucket layout streams month by month instead,
+     * in the order invoices were ingested within a month. The caller must close the stream. Only
+     * opening the cursor is retried.
+     */
+    public Stream<Invoice> streamInvoicesByAccountId(String accountId) {
+        if (isBucketLayout()) {
+            return resilience.mongo().call(() -> bucketStore.streamByAccountId(accountId));
+        }
+        Query query = new Query(Criteria.where("accountId").is(accountId))
+                .with(Sort.by(Sort.Direction.ASC, "issueDate", "id"))
+                .cursorBatchSize(exportCursorBatchSize);
+        return resilience.mongo().call(() -> mongoTemplate.stream(query, Invoice.class));
+    }
+
+    /**
+     * Totals of the account's invoices issued between {@code from} and {@code to} (both inclusive and
+     * optional), computed by Mongo in one {@code $match}/{@code $group} round trip.
+     */
+    public InvoiceTotals getTotals(String accountId, LocalDate from, LocalDate to) {
+        List<InvoiceTotals> totals = aggregateTotals(accountId, from, to, false);
+        return totals.isEmpty() ? InvoiceTotals.empty(accountId) : totals.get(0);
+    }
+
+    /**
+     * Like {@link #getTotals} but one entry per month of issue date that has invoices, oldest first.
+     */
+    public List<InvoiceTotals> getMonthlyTotals(String accountId, LocalDate from, LocalDate to) {
+        return aggregateTotals(accountId, from, to, true);
+    }
+
+    /**
+     * Amounts go through {@code $toDecimal} before they are summed, so the totals are the same whether a
+     * document stores them as strings or as Decimal128. Months are cut in the JVM's time zone, the one
+     * issue dates were converted in when they were written. The bucket layout unwinds the buckets of the
+     * months in range and filters their entries the same way.
+     */
+    private List<InvoiceTotals> aggregateTotals(String accountId, LocalDate from, LocalDate to, boolean monthly) {
+        String prefix = isBucketLayout() ? "invoices." : "";
+        Criteria criteria = Criteria.where("accountId").is(accountId);
+        if (from != null || to != null) {
+            Criteria issueDate = criteria.and(prefix + "issueDate");
+            if (from != null) {
+                issueDate.gte(from);
+            }
+            if (to != null) {
+                issueDate.lte(to);
+            }
+        }
+        ProjectionOperation amounts = Aggregation.project()
+                .and(ConvertOperators.valueOf(prefix + "grossAmount").convertToDecimal()).as("gross")
+                .and(ConvertOperators.valueOf(prefix + "netAmount").convertToDecimal()).as("net")
+                .and(ConvertOperators.valueOf(prefix + "taxAmount").convertToDecimal()).as("tax");
+        if (monthly) {
+            amounts = amounts.and(DateOperators.dateOf(prefix + "issueDate")
+                    .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId()))
+                    .toString("%Y-%m")).as("period");
+        }
+        GroupOperation group = (monthly ? Aggregation.group("period") : Aggregation.group())
+                .count().as("invoiceCount")
+                .sum("gross").as("grossAmount")
+                .sum("net").as("netAmount")
+                .sum("tax").as("taxAmount");
+        TypedAggregation<?> aggregation = isBucketLayout()
+                ? Aggregation.newAggregation(InvoiceBucket.class,
+                        Aggregation.match(bucketMonths(accountId, from, to)),
+                        Aggregation.unwind("invoices"),
+                        Aggregation.match(criteria), amounts, group)
+                : Aggregation.newAggregation(Invoice.class, Aggregation.match(criteria), amounts, group);
+
+        List<InvoiceTotals> totals = new ArrayList<>();
+        List<Document> rows = resilience.mongo().call(
+                () -> mongoTemplate.aggregate(aggregation, Document.class).getMappedResults());
+        for (Document row : rows) {
+            totals.add(InvoiceTotals.builder()
+                    .accountId(accountId)
+                    .period(monthly ? row.getString("_id") : null)
+                    .invoiceCount(row.get("invoiceCount", Number.class).longValue())
+                    .grossAmount(decimal(row.get("grossAmount")))
+                    .netAmount(decimal(row.get("netAmount")))
+                    .taxAmount(decimal(row.get("taxAmount")))
+                    .build());
+        }
+        totals.sort(Comparator.comparing(InvoiceTotals::getPeriod, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return totals;
+    }
+
+    /**
+     * Narrows the buckets to the months the range touches before they are unwound.
+     */
+    private static Criteria bucketMonths(String accountId, LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where("accountId").is(accountId);
+        if (from != null || to != null) {
+            Criteria month = criteria.and("month");
+            if (from != null) {
+                month.gte(InvoiceBucketStore.month(from));
+            }
+            if (to != null) {
+                month.lte(InvoiceBucketStore.month(to));
+            }
+        }
+        return criteria;
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        return value == null ? BigDecimal.ZERO : new BigDecimal(value.toString());
+    }
+
+    /**
+     * Keyset page over the {@code (account_id, issue_date, _id)} index: seeks past {@code pageToken}
+     * instead of skipping, so deep pages cost the same as the first one. One extra document is read to
+     * know whether a next page exists. The total is only counted on request and comes from the
+     * {@code accountInvoiceCounts} cache. The bucket layout seeks to the bucket in the token instead and
+     * pages in export order.
+     */
+    public CursorPage<InvoiceDTO> getInvoicesByAccountIdAfter(String accountId, String pageToken, int pageSize,
+                                                             boolean withCount) {
+        CursorPage<Invoice> page = resilience.mongo().call(() -> isBucketLayout()
+                ? bucketStore.findByAccountIdAfter(accountId, pageToken, pageSize)
+                : findByAccountIdAfter(accountId, pageToken, pageSize));
+
+        return CursorPage.<InvoiceDTO>builder()
+                .content(page.getContent().stream().map(invoiceDTOMapper::mapEntityToDto).toList())
+                .size(page.getSize())
+                .nextToken(page.getNextToken())
+                .totalElements(withCount ? countByAccountId(accountId) : null)
+                .build();
+    }
+
+    private CursorPage<Invoice> findByAccountIdAfter(String accountId, String pageToken, int pageSize) {
+        Criteria criteria = Criteria.where("accountId").is(accountId);
+        if (pageToken != null) {
+            InvoiceCursor after = InvoiceCursor.decode(pageToken);
+            criteria.orOperator(
+                    Criteria.where("issueDate").gt(after.getIssueDate()),
+                    new Criteria().andOperator(
+                            Criteria.where("issueDate").is(after.getIssueDate()),
+                            Criteria.where("id").gt(after.getId())));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "issueDate", "id"))
+                .limit(pageSize + 1);
+
+        List<Invoice> invoices = mongoTemplate.find(query, Invoice.class);
+        boolean hasNext = invoices.size() > pageSize;
+        List<Invoice> page = hasNext ? invoices.subList(0, pageSize) : invoices;
+        String nextToken = null;
+        if (hasNext) {
+            Invoice last = page.get(page.size() - 1);
+            nextToken = new InvoiceCursor(last.getIssueDate(), last.getId()).encode();
+        }
+        return CursorPage.<Invoice>builder()
+                .content(page)
+                .size(page.size())
+                .nextToken(nextToken)
+                .build();
+    }
+
+    private long countByAccountId(String accountId) {
+        if (!isBucketLayout()) {
+            return resilience.mongo().call(() -> invoiceRepo.countByAccountId(accountId));
+        }
+        Supplier<Long> count = () -> resilience.mongo().call(() -> bucketStore.countByAccountId(accountId));
+        Cache cache = cacheManager.getCache(AccountCacheInvalidator.ACCOUNT_INVOICE_COUNTS);
+        return cache instanceof TwoTierCache tiered ? tiered.getOrLoad(accountId, count) : count.get();
+    }
+
+    private boolean isBucketLayout() {
+        return "bucket".equalsIgnoreCase(layout);
+    }
 }
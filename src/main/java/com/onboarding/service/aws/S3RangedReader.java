@@ -0,0 +1,165 @@
+package com.onboarding.service.aws;
+
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.LineBatchAssembler;
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.dto.LineBatch;
+import com.onboarding.exception.InvoiceProcessingException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Reads an S3 object with parallel byte-range {@code GetObject} requests instead of one sequential
+ * stream. Up to {@code aws.s3.ranged-read.parallelism} chunks are downloaded ahead of the one being
+ * consumed; chunks are re-cut on line boundaries and handed to the caller in file order as numbered
+ * {@link LineBatch}es.
+ * <p>
+ * A chunk whose request has not answered within {@code aws.s3.ranged-read.hedge-after-millis} gets a
+ * second, hedged request; whichever answers first is used, so one slow S3 node does not hold up the
+ * file. {@code 0} turns hedging off.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class S3RangedReader {
+    private final S3Service s3Service;
+    private final ResourceLimits resourceLimits;
+    private final IngestionMetrics ingestionMetrics;
+
+    @Value("${aws.s3.ranged-read.chunk-size-bytes}")
+    private int chunkSize;
+    @Value("${aws.s3.ranged-read.parallelism}")
+    private int parallelism;
+    @Value("${aws.s3.ranged-read.hedge-after-millis}")
+    private long hedgeAfterMillis;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        this.executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("S3RangedReader-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void read(String key, int linesPerBatch, Consumer<LineBatch> sink) {
+        read(key, 1, 0, linesPerBatch, sink);
+    }
+
+    /**
+     * Reads the object from byte {@code startOffset}, numbering the first line found there
+     * {@code firstLineNumber}. Used to resume a file from a checkpoint.
+     */
+    public void read(String key, int firstLineNumber, long startOffset, int linesPerBatch, Consumer<LineBatch> sink) {
+        read(key, firstLineNumber, startOffset, () -> linesPerBatch, sink);
+    }
+
+    /**
+     * Same as above, with the batch size asked again for every batch.
+     */
+    public void read(String key, int firstLineNumber, long startOffset, IntSupplier linesPerBatch,
+                     Consumer<LineBatch> sink) {
+        long size = s3Service.getObjectSize(key);
+        int chunkCount = (int) ((size - startOffset + chunkSize - 1) / chunkSize);
+        log.info("Reading {} ({} bytes from offset {}) in {} ranged chunks", key, size, startOffset, chunkCount);
+
+        LineBatchAssembler assembler = new LineBatchAssembler(firstLineNumber, startOffset, linesPerBatch, sink);
+        Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>(parallelism);
+        int nextChunk = 0;
+        try {
+            while (nextChunk < chunkCount && window.size() < parallelism) {
+                window.add(fetch(key, startOffset, nextChunk++, size));
+            }
+            while (!window.isEmpty()) {
+                byte[] chunk = join(window.poll());
+                if (nextChunk < chunkCount) {
+                    window.add(fetch(key, startOffset, nextChunk++, size));
+                }
+                assembler.accept(chunk);
+            }
+            assembler.finish();
+        } finally {
+            window.forEach(pending -> pending.cancel(true));
+        }
+    }
+
+    private CompletableFuture<byte[]> fetch(String key, long startOffset, int chunk, long size) {
+        long start = startOffset + (long) chunk * chunkSize;
+        long end = Math.min(start + chunkSize, size) - 1;
+        Supplier<byte[]> read = () -> s3Service.getFileRange(key, start, end);
+        if (hedgeAfterMillis <= 0) {
+            return CompletableFuture.supplyAsync(() -> resourceLimits.s3(read), executor);
+        }
+        return hedged(read);
+    }
+
+    /**
+     * The hedge timer starts once the first request holds its S3 permit, so time spent waiting for a
+     * permit does not count as a slow answer. The chunk only fails if both requests fail.
+     */
+    private CompletableFuture<byte[]> hedged(Supplier<byte[]> read) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        BiConsumer<byte[], Throwable> settle = (bytes, failure) -> {
+            if (failure == null) {
+                result.complete(bytes);
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(failure);
+            }
+        };
+        Executor hedgeTimer = CompletableFuture.delayedExecutor(hedgeAfterMillis, TimeUnit.MILLISECONDS, executor);
+        CompletableFuture.supplyAsync(() -> resourceLimits.s3(() -> {
+            hedgeTimer.execute(() -> hedge(read, result, outstanding, settle));
+            return read.get();
+        }), executor).whenComplete(settle);
+        return result;
+    }
+
+    private void hedge(Supplier<byte[]> read, CompletableFuture<byte[]> result, AtomicInteger outstanding,
+                       BiConsumer<byte[], Throwable> settle) {
+        if (result.isDone() || outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+            return;
+        }
+        ingestionMetrics.recordS3Hedge("issued");
+        try {
+            if (result.complete(resourceLimits.s3(read))) {
+                ingestionMetrics.recordS3Hedge("won");
+            }
+        } catch (RuntimeException e) {
+            settle.accept(null, e);
+        }
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> chunk) {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InvoiceProcessingException("Error while reading input stream", e.getCause());
+        }
+    }
+}
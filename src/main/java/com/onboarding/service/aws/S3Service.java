@@ -1,39 +1,196 @@
 package com.onboarding.service.aws;
 
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.dto.S3ObjectInfo;
 import com.onboarding.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.Abortable;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class S3Service {
     private final S3Client s3Client;
+    private final IngestionMetrics ingestionMetrics;
+    private final Resilience resilience;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
     public InputStream getFileInputStream(String key) throws IOException {
+        return getFileInputStream(key, 0);
+    }
+
+    /**
+     * Opens the object from byte {@code offset} to the end, using a {@code Range} request when the
+     * offset is not 0. Only opening the stream is retried; a read that fails halfway surfaces to the
+     * caller, which resumes from its checkpoint.
+     */
+    public InputStream getFileInputStream(String key, long offset) throws IOException {
+        try {
+            return resilience.s3().call(() -> open(key, offset));
+
+        } catch (S3Exception e) {
+            log.error("Failed to get file from S3: {}/{} - {}", bucketName, key, e.getMessage());
+            throw new ResourceNotFoundException("S3 access failed: " + e.getMessage(), e);
+        }
+    }
+
+    public long getObjectSize(String key) {
+        return getObjectInfo(key).getSize();
+    }
+
+    public S3ObjectInfo getObjectInfo(String key) {
+        try {
+            HeadObjectRequest request = HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+
+            HeadObjectResponse response = resilience.s3().call(() -> s3Client.headObject(request));
+            return new S3ObjectInfo(response.contentLength(), response.eTag());
+
+        } catch (S3Exception e) {
+            log.error("Failed to get file metadata from S3: {}/{} - {}", bucketName, key, e.getMessage());
+            throw new ResourceNotFoundException("S3 access failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads the bytes {@code start..end} (both inclusive) of the object.
+     */
+    public byte[] getFileRange(String key, long start, long end) {
         try {
             GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucketName)
                     .key(key)
+                    .range("bytes=" + start + "-" + end)
                     .build();
 
-            return s3Client.getObject(request);
+            long started = System.nanoTime();
+            byte[] bytes = resilience.s3().call(() -> s3Client.getObjectAsBytes(request).asByteArray());
+            ingestionMetrics.recordS3RangeRead(System.nanoTime() - started, bytes.length);
+            return bytes;
 
         } catch (S3Exception e) {
-            log.error("Failed to get file from S3: {}/{} - {}", bucketName, key, e.getMessage());
+            log.error("Failed to get range {}-{} from S3: {}/{} - {}", start, end, bucketName, key, e.getMessage());
             throw new ResourceNotFoundException("S3 access failed: " + e.getMessage(), e);
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Copies the whole object to {@code target}, replacing it. A download that breaks off is started
+     * again from the beginning.
+     *
+     * @return the number of bytes written
+     */
+    public long downloadTo(String key, Path target) {
+        try {
+            return resilience.s3().call(() -> {
+                try (InputStream object = open(key, 0)) {
+                    return Files.copy(object, target, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to download " + key + " to " + target, e);
+                }
+            });
+
+        } catch (S3Exception e) {
+            log.error("Failed to download file from S3: {}/{} - {}", bucketName, key, e.getMessage());
+            throw new ResourceNotFoundException("S3 access failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Uploads a local file as {@code key}.
+     */
+    public void putFile(String key, Path file, String contentType) {
+        try {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .build();
+            resilience.s3().call(() -> s3Client.putObject(request, RequestBody.fromFile(file)));
+
+        } catch (S3Exception e) {
+            log.error("Failed to upload file to S3: {}/{} - {}", bucketName, key, e.getMessage());
+            throw e;
+        }
+    }
+
+    private InputStream open(String key, long offset) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key);
+        if (offset > 0) {
+            request.range("bytes=" + offset + "-");
+        }
+
+        long start = System.nanoTime();
+        InputStream object = s3Client.getObject(request.build());
+        ingestionMetrics.recordS3FirstByte(System.nanoTime() - start);
+        return new MeteredInputStream(object);
+    }
+
+    /**
+     * Counts the bytes read. Closed before the end, e.g. because the file was rejected, it aborts the
+     * request instead of letting the HTTP client drain the rest of the object.
+     */
+    private final class MeteredInputStream extends FilterInputStream {
+        private boolean exhausted;
+
+        private MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                ingestionMetrics.recordS3Bytes(1);
+            } else {
+                exhausted = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                ingestionMetrics.recordS3Bytes(n);
+            } else if (n < 0) {
+                exhausted = true;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!exhausted && in instanceof Abortable abortable) {
+                log.debug("Aborting S3 stream before its end");
+                abortable.abort();
+            }
+            super.close();
+        }
+    }
+}
@@ -2,37 +2,78 @@ package com.onboarding.service.aws;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.dto.PublishResult;
 import com.onboarding.dto.SQSMessage;
 import com.onboarding.exception.MessageProcessingException;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SqsService {
 
+    static final int MAX_BATCH_ENTRIES = 10;
+    static final int MAX_BATCH_PAYLOAD_BYTES = 256 * 1024;
+
     private final SqsAsyncClient sqsAsyncClient;
     private final ObjectMapper objectMapper;
+    private final IngestionMetrics ingestionMetrics;
+    private final Resilience resilience;
 
     @Value("${aws.sqs.queue.url}")
     private String queueUrl;
+    @Value("${aws.sqs.batch.max-in-flight}")
+    private int maxInFlight;
+    @Value("${aws.sqs.batch.max-retries}")
+    private int maxRetries;
+
+    private Semaphore inFlightBatches;
+
+    @PostConstruct
+    public void init() {
+        this.inFlightBatches = new Semaphore(maxInFlight);
+    }
 
     public void sendInvoice(SQSMessage message) {
-        log.info("Sending message to SQS");
+        log.debug("Sending message to SQS");
         try {
             SendMessageRequest sendMsgRequest = SendMessageRequest.builder()
                     .queueUrl(queueUrl)
                     .messageBody(objectMapper.writeValueAsString(message))
                     .build();
+            if (!resilience.sqs().tryAcquire()) {
+                ingestionMetrics.recordSqsFailures(1);
+                throw new MessageProcessingException("SQS is unavailable, circuit is open");
+            }
+            long start = System.nanoTime();
             sqsAsyncClient.sendMessage(sendMsgRequest)
-                    .thenAccept(res -> log.info("Message sent successfully. MessageId: {}", res.messageId()))
+                    .whenComplete((res, ex) -> {
+                        ingestionMetrics.recordSqsSend("single", System.nanoTime() - start, ex == null);
+                        report(ex);
+                    })
+                    .thenAccept(res -> log.debug("Message sent successfully. MessageId: {}", res.messageId()))
                     .exceptionally(ex -> {
+                        ingestionMetrics.recordSqsFailures(1);
                         log.error("Failed to send SQS message asynchronously: message: {}",message, ex);
                         throw new MessageProcessingException("Failed to send SQS message", ex);
                     });
@@ -40,12 +81,155 @@ public class SqsService {
             log.error("Error parsing invoice: {}", message, e);
             throw new MessageProcessingException("Failed to serialize message", e);
         } catch (SqsException e) {
+            resilience.sqs().onFailure(e);
             log.error("Unexpected error while sending message onSQS : Message: {}", message, e);
             throw new MessageProcessingException("Unexpected error while sending message onSQS", e);
         }
     }
 
-}
+    /**
+     * Publishes the messages as {@link SendMessageBatchRequest}s of up to {@value #MAX_BATCH_ENTRIES}
+     * entries and {@value #MAX_BATCH_PAYLOAD_BYTES} bytes, keeping at most {@code aws.sqs.batch.max-in-flight}
+     * batches outstanding. Entries SQS reports as failed are retried on their own unless the failure is
+     * the sender's fault, after a jittered backoff. While the SQS circuit is open, batches fail without
+     * being sent. Blocks until every batch has completed, so the counts in the returned result are the
+     * ones SQS acknowledged.
+     */
+    public PublishResult sendInvoices(List<SQSMessage> messages) {
+        log.debug("Sending {} messages to SQS in batches", messages.size());
+        PublishResult result = new PublishResult();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        List<SendMessageBatchRequestEntry> batch = new ArrayList<>(MAX_BATCH_ENTRIES);
+        int batchBytes = 0;
 
+        for (int i = 0; i < messages.size(); i++) {
+            String body;
+            try {
+                body = objectMapper.writeValueAsString(messages.get(i));
+            } catch (JsonProcessingException e) {
+                log.error("Error parsing invoice: {}", messages.get(i), e);
+                result.addFailure(i, "Failed to serialize message");
+                continue;
+            }
+            int bodyBytes = body.getBytes(StandardCharsets.UTF_8).length;
+            if (bodyBytes > MAX_BATCH_PAYLOAD_BYTES) {
+                result.addFailure(i, "Message exceeds the SQS payload limit");
+                continue;
+            }
+            if (batch.size() == MAX_BATCH_ENTRIES || batchBytes + bodyBytes > MAX_BATCH_PAYLOAD_BYTES) {
+                pending.add(dispatch(batch, result));
+                batch = new ArrayList<>(MAX_BATCH_ENTRIES);
+                batchBytes = 0;
+            }
+            batch.add(SendMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .messageBody(body)
+                    .build());
+            batchBytes += bodyBytes;
+        }
+        if (!batch.isEmpty()) {
+            pending.add(dispatch(batch, result));
+        }
 
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        if (result.hasFailures()) {
+            ingestionMetrics.recordSqsFailures(result.getFailures().size());
+        }
+        log.info("Published {} of {} messages to SQS", result.getSuccessCount(), messages.size());
+        return result;
+    }
+
+    private CompletableFuture<Void> dispatch(List<SendMessageBatchRequestEntry> entries, PublishResult result) {
+        try {
+            inFlightBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageProcessingException("Interrupted while waiting to publish to SQS", e);
+        }
+        return sendBatch(entries, 0, result)
+                .whenComplete((ignored, ex) -> inFlightBatches.release());
+    }
 
+    private CompletableFuture<Void> sendBatch(List<SendMessageBatchRequestEntry> entries, int attempt,
+                                              PublishResult result) {
+        if (!resilience.sqs().tryAcquire()) {
+            entries.forEach(entry -> result.addFailure(Integer.parseInt(entry.id()), "SQS is unavailable"));
+            return CompletableFuture.completedFuture(null);
+        }
+        SendMessageBatchRequest request = SendMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build();
+        CompletableFuture<SendMessageBatchResponse> response;
+        long start = System.nanoTime();
+        try {
+            response = sqsAsyncClient.sendMessageBatch(request);
+        } catch (SdkException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response
+                .whenComplete((res, ex) -> {
+                    ingestionMetrics.recordSqsSend("batch", System.nanoTime() - start, ex == null && res.failed().isEmpty());
+                    report(ex);
+                })
+                .handle((res, ex) -> ex != null
+                        ? retryOrFail(entries, attempt, result, ex)
+                        : handleResponse(entries, res, attempt, result))
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> handleResponse(List<SendMessageBatchRequestEntry> entries,
+                                                   SendMessageBatchResponse response, int attempt,
+                                                   PublishResult result) {
+        result.incrementSuccessCount(response.successful().size());
+        if (response.failed().isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<String, SendMessageBatchRequestEntry> entriesById = new HashMap<>();
+        entries.forEach(entry -> entriesById.put(entry.id(), entry));
+        List<SendMessageBatchRequestEntry> retry = new ArrayList<>();
+        for (BatchResultErrorEntry failed : response.failed()) {
+            if (!Boolean.TRUE.equals(failed.senderFault()) && attempt < maxRetries) {
+                retry.add(entriesById.get(failed.id()));
+            } else {
+                log.error("SQS rejected message {}: {} {}", failed.id(), failed.code(), failed.message());
+                result.addFailure(Integer.parseInt(failed.id()),
+                        "Failed to send message to SQS: " + failed.code());
+            }
+        }
+        return retry.isEmpty() ? CompletableFuture.completedFuture(null) : retryLater(retry, attempt, result);
+    }
+
+    private CompletableFuture<Void> retryOrFail(List<SendMessageBatchRequestEntry> entries, int attempt,
+                                                PublishResult result, Throwable ex) {
+        if (attempt < maxRetries) {
+            log.warn("SQS batch request failed, retrying {} entries: {}", entries.size(), ex.getMessage());
+            return retryLater(entries, attempt, result);
+        }
+        log.error("SQS batch request failed after {} attempts", attempt + 1, ex);
+        entries.forEach(entry -> result.addFailure(Integer.parseInt(entry.id()), "Failed to send message to SQS"));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> retryLater(List<SendMessageBatchRequestEntry> entries, int attempt,
+                                               PublishResult result) {
+        long delay = resilience.sqs().backoffMillis(attempt + 1);
+        return CompletableFuture
+                .supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> sendBatch(entries, attempt + 1, result));
+    }
+
+    /**
+     * Tells the SQS circuit how a request it let through ended. Entries SQS rejects one by one still
+     * mean it answered.
+     */
+    private void report(Throwable ex) {
+        if (ex == null) {
+            resilience.sqs().onSuccess();
+        } else {
+            resilience.sqs().onFailure(ex);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.onboarding.benchmark;
+
+import com.onboarding.dto.CursorPage;
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.InvoiceTotals;
+import com.onboarding.entity.Invoice;
+import com.onboarding.entity.InvoiceBucket;
+import com.onboarding.service.MongoService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reads of one heavy account in the one-document-per-invoice and the bucket layout: a keyset scroll
+ * over every page, a full export stream and the monthly totals. The account's invoices are spread over
+ * a year and written once per trial through {@link MongoService#insertAll}, against embedded MongoDB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AccountReadBenchmark {
+
+    private static final String ACCOUNT_ID = "1000000001";
+    private static final int WRITE_BATCH = 1_000;
+
+    @Param({"10000", "100000"})
+    private int invoices;
+    @Param({"document", "bucket"})
+    private String layout;
+    @Param({"100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MongoService mongoService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(ProcessFileBenchmark.BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("junit")
+                .properties("processing.persistence.layout=" + layout,
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.data.mongodb.core.MongoTemplate=WARN")
+                .run();
+        mongoService = context.getBean(MongoService.class);
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.remove(new Query(), Invoice.class);
+        mongoTemplate.remove(new Query(), InvoiceBucket.class);
+
+        List<Invoice> batch = new ArrayList<>(WRITE_BATCH);
+        for (int i = 0; i < invoices; i++) {
+            batch.add(invoice(i));
+            if (batch.size() == WRITE_BATCH || i == invoices - 1) {
+                mongoService.insertAll(batch);
+                batch = new ArrayList<>(WRITE_BATCH);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public long scrollAllPages() {
+        long read = 0;
+        String token = null;
+        do {
+            CursorPage<InvoiceDTO> page = mongoService.getInvoicesByAccountIdAfter(ACCOUNT_ID, token, pageSize, false);
+            read += page.getSize();
+            token = page.getNextToken();
+        } while (token != null);
+        return checked(read);
+    }
+
+    @Benchmark
+    public long exportAll() {
+        try (Stream<Invoice> stream = mongoService.streamInvoicesByAccountId(ACCOUNT_ID)) {
+            return checked(stream.count());
+        }
+    }
+
+    @Benchmark
+    public List<InvoiceTotals> monthlyTotals() {
+        return mongoService.getMonthlyTotals(ACCOUNT_ID, null, null);
+    }
+
+    private long checked(long read) {
+        if (read != invoices) {
+            throw new IllegalStateException("Read " + read + " of " + invoices + " invoices");
+        }
+        return read;
+    }
+
+    private static Invoice invoice(int index) {
+        BigDecimal net = BigDecimal.valueOf(1_000 + (index * 7919L) % 100_000, 2);
+        BigDecimal tax = net.multiply(new BigDecimal("0.19")).setScale(2, RoundingMode.HALF_UP);
+        return Invoice.builder()
+                .billId(String.format("%010d", index))
+                .accountId(ACCOUNT_ID)
+                .issueDate(LocalDate.of(2024, index % 12 + 1, index % 28 + 1))
+                .billPeriodFrom(LocalDate.of(2023, index % 12 + 1, 1))
+                .billPeriodTo(LocalDate.of(2023, index % 12 + 1, 28))
+                .name("XXX GmbH")
+                .netAmount(net)
+                .taxAmount(tax)
+                .grossAmount(net.add(tax))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AccountReadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
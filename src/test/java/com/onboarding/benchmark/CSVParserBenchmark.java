@@ -0,0 +1,64 @@
+package com.onboarding.benchmark;
+
+import com.onboarding.component.CSVParser;
+import com.onboarding.component.FastCSVParser;
+import com.onboarding.dto.InvoiceDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the regex based {@link CSVParser} with {@link FastCSVParser} on the lines of the sample
+ * invoice file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVParserBenchmark {
+
+    private static final String SAMPLE_FILE = "src/test/resources/invoices/success/csv/invoice_20250301.csv";
+
+    private final CSVParser regexParser = new CSVParser();
+    private final CSVParser fastParser = new FastCSVParser();
+    private String[] lines;
+
+    @Setup
+    public void loadLines() throws IOException {
+        List<String> sample = Files.readAllLines(Paths.get(SAMPLE_FILE));
+        lines = sample.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void regexParser(Blackhole blackhole) {
+        parseAll(regexParser, blackhole);
+    }
+
+    @Benchmark
+    public void fastParser(Blackhole blackhole) {
+        parseAll(fastParser, blackhole);
+    }
+
+    private void parseAll(CSVParser parser, Blackhole blackhole) {
+        for (int i = 0; i < lines.length; i++) {
+            InvoiceDTO dto = parser.parseLine(lines[i], i + 1);
+            blackhole.consume(dto);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CSVParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
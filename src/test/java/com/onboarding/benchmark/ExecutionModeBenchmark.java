@@ -0,0 +1,98 @@
+package com.onboarding.benchmark;
+
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.config.AsyncConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to push a burst of files through the {@link AsyncConfig} executor in {@code platform} and
+ * {@code virtual} mode. Each file does a number of batches, and each batch blocks for a simulated S3
+ * read and Mongo write behind the same {@link ResourceLimits} the service uses. The {@code virtual}
+ * mode needs JDK 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final int BATCHES_PER_FILE = 10;
+    private static final long S3_READ_MILLIS = 2;
+    private static final long MONGO_WRITE_MILLIS = 5;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+    @Param({"32"})
+    private int files;
+
+    private AsyncTaskExecutor executor;
+    private ResourceLimits limits;
+
+    @Setup
+    public void createExecutor() {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "invoiceAsyncName", "Benchmark-");
+        ReflectionTestUtils.setField(config, "mode", mode);
+        ReflectionTestUtils.setField(config, "corePoolSize", 2);
+        ReflectionTestUtils.setField(config, "maxPoolSize", 2);
+        ReflectionTestUtils.setField(config, "queueCapacity", 100);
+        executor = config.taskExecutor();
+        limits = new ResourceLimits(files, 16, 8);
+    }
+
+    @TearDown
+    public void shutdown() throws Exception {
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    @Benchmark
+    public void processConcurrentFiles() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            if (!limits.tryAcquireFile()) {
+                throw new IllegalStateException("File limit reached");
+            }
+            pending.add(executor.submitCompletable(this::processFile)
+                    .whenComplete((ignored, ex) -> limits.releaseFile()));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+    }
+
+    private Void processFile() {
+        for (int batch = 0; batch < BATCHES_PER_FILE; batch++) {
+            limits.s3(() -> block(S3_READ_MILLIS));
+            limits.mongo(() -> block(MONGO_WRITE_MILLIS));
+        }
+        return null;
+    }
+
+    private static Void block(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExecutionModeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.onboarding.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onboarding.component.CSVParser;
+import com.onboarding.component.FastCSVParser;
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.SQSMessage;
+import com.onboarding.entity.Invoice;
+import com.onboarding.mapper.InvoiceMapper;
+import com.onboarding.mapper.SQSMessageMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-batch cost of each step {@code InvoiceService} runs on a batch: parsing the raw lines, mapping to
+ * entities and SQS messages, and serializing the messages the way {@code SqsService} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoiceHotPathBenchmark {
+
+    @Param({"30", "1000"})
+    private int batchSize;
+
+    private final CSVParser parser = new FastCSVParser();
+    private final InvoiceMapper invoiceMapper = Mappers.getMapper(InvoiceMapper.class);
+    private final SQSMessageMapper sqsMessageMapper = Mappers.getMapper(SQSMessageMapper.class);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<String> lines;
+    private List<InvoiceDTO> dtos;
+    private List<SQSMessage> messages;
+
+    @Setup
+    public void createBatch() {
+        lines = SyntheticInvoices.lines(batchSize);
+        dtos = parse();
+        messages = sqsMessageMapper.mapDtosToSqsMessages(dtos);
+    }
+
+    @Benchmark
+    public List<InvoiceDTO> parseLines() {
+        return parse();
+    }
+
+    @Benchmark
+    public List<Invoice> mapToEntities() {
+        return invoiceMapper.mapDtosToEntities(dtos);
+    }
+
+    @Benchmark
+    public List<SQSMessage> mapToSqsMessages() {
+        return sqsMessageMapper.mapDtosToSqsMessages(dtos);
+    }
+
+    @Benchmark
+    public void serializeSqsMessages(Blackhole blackhole) throws JsonProcessingException {
+        for (SQSMessage message : messages) {
+            blackhole.consume(objectMapper.writeValueAsString(message));
+        }
+    }
+
+    private List<InvoiceDTO> parse() {
+        List<InvoiceDTO> parsed = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            parsed.add(parser.parseLine(lines.get(i), i + 1));
+        }
+        return parsed;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvoiceHotPathBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,152 @@
+package com.onboarding.benchmark;
+
+import com.onboarding.OnboardingApplication;
+import com.onboarding.config.SQSMockConfig;
+import com.onboarding.dto.ProcessResult;
+import com.onboarding.entity.Invoice;
+import com.onboarding.entity.InvoiceBucket;
+import com.onboarding.service.InvoiceService;
+import io.findify.s3mock.S3Mock;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link InvoiceService#processFileAsync(String)} on a synthetic file: S3 reads go to a
+ * file-backed S3Mock, invoices are written to embedded MongoDB (flapdoodle) and SQS is the stub from
+ * {@link SQSMockConfig}. Each measurement processes the whole file once against empty collections, in
+ * both the one-document-per-invoice and the bucket layout.
+ * The 10M line file is around 2.5 GB, so give the forked JVM enough heap via {@code -jvmArgs}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ProcessFileBenchmark {
+
+    private static final int S3_MOCK_PORT = 9098;
+    private static final String BUCKET = "fake-bucket";
+
+    @Param({"10000", "1000000", "10000000"})
+    private int lines;
+    @Param({"1000"})
+    private int batchSize;
+    @Param({"false", "true"})
+    private boolean parallelParse;
+    @Param({"document", "bucket"})
+    private String layout;
+
+    private S3Mock s3Mock;
+    private ConfigurableApplicationContext context;
+    private InvoiceService invoiceService;
+    private MongoTemplate mongoTemplate;
+    private String key;
+
+    @Setup(Level.Trial)
+    public void start() {
+        Path file = SyntheticInvoices.file(lines);
+        s3Mock = new S3Mock.Builder()
+                .withPort(S3_MOCK_PORT)
+                .withFileBackend(Paths.get(SyntheticInvoices.DATA_DIR, "s3").toString())
+                .build();
+        s3Mock.start();
+
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("junit")
+                .properties("processing.batch.size=" + batchSize,
+                        "processing.parallel-parse.enabled=" + parallelParse,
+                        "processing.persistence.layout=" + layout,
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.data.mongodb.core.MongoTemplate=WARN")
+                .run();
+        invoiceService = context.getBean(InvoiceService.class);
+        mongoTemplate = context.getBean(MongoTemplate.class);
+
+        S3Client s3Client = context.getBean(S3Client.class);
+        key = file.getFileName().toString();
+        s3Client.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key(key).build(), RequestBody.fromFile(file));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearInvoices() {
+        mongoTemplate.remove(new Query(), Invoice.class);
+        mongoTemplate.remove(new Query(), InvoiceBucket.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        s3Mock.shutdown();
+    }
+
+    @Benchmark
+    public ProcessResult processFile() {
+        ProcessResult result = invoiceService.processFileAsync(key).join();
+        if (result.getSuccessCount() != lines) {
+            throw new IllegalStateException("Published " + result.getSuccessCount() + " of " + lines + " invoices");
+        }
+        return result;
+    }
+
+    /**
+     * The application without the test configurations found on the test classpath, plus stub SQS and
+     * an S3 client pointing at the benchmark's S3Mock. A {@link TestConfiguration} itself, so the
+     * {@code @SpringBootTest}s that scan {@code com.onboarding} do not pick up its primary S3 client.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    @EnableAutoConfiguration
+    @AutoConfigurationPackage(basePackageClasses = OnboardingApplication.class)
+    @ComponentScan(basePackageClasses = OnboardingApplication.class, excludeFilters = {
+            @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = TestConfiguration.class),
+            @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = OnboardingApplication.class)})
+    @Import(SQSMockConfig.class)
+    static class BenchmarkApplication {
+
+        @Bean
+        @Primary
+        S3Client benchmarkS3Client() {
+            return S3Client.builder()
+                    .endpointOverride(URI.create("http://localhost:" + S3_MOCK_PORT))
+                    .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                    .region(Region.US_EAST_1)
+                    .serviceConfiguration(b -> b.pathStyleAccessEnabled(true))
+                    .build();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProcessFileBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.onboarding.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates invoice lines in the upstream {@code |;} format for benchmarks. Every line has a unique bill
+ * ID, account IDs repeat over a fixed pool, and dates and amounts vary so parsers cannot short-cut.
+ * Generated files are kept under {@code target/benchmark-data} and reused across runs.
+ */
+final class SyntheticInvoices {
+
+    static final String DATA_DIR = "target/benchmark-data";
+    private static final int ACCOUNTS = 10_000;
+
+    private SyntheticInvoices() {
+    }
+
+    static String line(int index) {
+        int day = index % 28 + 1;
+        int month = index % 12 + 1;
+        long netCents = 1_000 + (index * 7919L) % 100_000;
+        long taxCents = netCents * 19 / 100;
+        return String.format(
+                "%010d|;%010d|;%02d.%02d.2024|;01.%02d.2023|;28.%02d.2023|;0800 / 1071020|;73730|;Esslingen"
+                        + "|;Teststr. %d|;Firma|;XXX GmbH|;|;|;EUR|;19%%|;%s|;%s|;%s|;566655555|;99999999|;03|;"
+                        + "|;00281|;false|;0.000000|;11.12.2023|;DE999999999999999999|;XXXXX66XXX"
+                        + "|;DE04CCB0009999988A1019999991E002|;",
+                index, 1_000_000_000L + index % ACCOUNTS, day, month, month, month, index % 500,
+                cents(netCents + taxCents), cents(netCents), cents(taxCents));
+    }
+
+    static List<String> lines(int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(line(i));
+        }
+        return lines;
+    }
+
+    /**
+     * @return a file with {@code count} lines, generated on first use
+     */
+    static Path file(int count) {
+        Path file = Paths.get(DATA_DIR, "invoice_" + count + ".csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path partial = Files.createTempFile(file.getParent(), "invoice_", ".partial");
+            try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < count; i++) {
+                    writer.write(line(i));
+                    writer.newLine();
+                }
+            }
+            return Files.move(partial, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate " + file, e);
+        }
+    }
+
+    private static String cents(long cents) {
+        return cents / 100 + "." + String.format("%02d", cents % 100);
+    }
+}
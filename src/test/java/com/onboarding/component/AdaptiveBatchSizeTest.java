@@ -0,0 +1,97 @@
+package com.onboarding.component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchSizeTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(900);
+
+    private MeterRegistry registry;
+    private AdaptiveBatchSize batchSize;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        batchSize = new AdaptiveBatchSize(true, 100, 10, 400, 50, 0.5, 500, 1000, 0.05);
+        batchSize.bindTo(registry);
+    }
+
+    @Test
+    void recordWrite_shouldGrowAdditivelyUpToMax() {
+        for (int i = 0; i < 10; i++) {
+            batchSize.recordWrite(batchSize.current(), FAST, 0);
+        }
+
+        assertEquals(400, batchSize.current());
+        assertEquals(6, registry.get("invoice.batch.size.adjustments").tag("direction", "increase").counter().count());
+        assertEquals(400, registry.get("invoice.batch.size.current").gauge().value());
+    }
+
+    @Test
+    void recordWrite_slowWrite_shouldHalveDownToMin() {
+        for (int i = 0; i < 10; i++) {
+            batchSize.recordWrite(batchSize.current(), SLOW, 0);
+        }
+
+        assertEquals(10, batchSize.current());
+        assertEquals(4, registry.get("invoice.batch.size.adjustments").tag("reason", "write-latency").counter().count());
+    }
+
+    @Test
+    void recordWrite_tooManyFailures_shouldShrink() {
+        batchSize.recordWrite(100, FAST, 6);
+
+        assertEquals(50, batchSize.current());
+    }
+
+    @Test
+    void recordWrite_batchesCutBeforeADecrease_shouldNotShrinkAgain() {
+        batchSize.recordWrite(100, SLOW, 0);
+        batchSize.recordWrite(100, SLOW, 0);
+        batchSize.recordWrite(100, SLOW, 0);
+
+        assertEquals(50, batchSize.current());
+    }
+
+    @Test
+    void recordWrite_partialBatch_shouldNotGrow() {
+        batchSize.recordWrite(20, FAST, 0);
+
+        assertEquals(100, batchSize.current());
+        assertEquals(1, registry.get("invoice.batch.size.applied").summary().count());
+    }
+
+    @Test
+    void recordPublish_slowPublish_shouldOnlyShrink() {
+        batchSize.recordPublish(100, FAST);
+        assertEquals(100, batchSize.current());
+
+        batchSize.recordPublish(100, TimeUnit.SECONDS.toNanos(2));
+        assertEquals(50, batchSize.current());
+    }
+
+    @Test
+    void disabled_shouldKeepConfiguredSize() {
+        AdaptiveBatchSize fixed = new AdaptiveBatchSize(false, 30, 10, 400, 50, 0.5, 500, 1000, 0.05);
+
+        fixed.recordWrite(30, FAST, 0);
+        fixed.recordPublish(30, SLOW * 10);
+
+        assertFalse(fixed.isEnabled());
+        assertEquals(30, fixed.current());
+    }
+
+    @Test
+    void constructor_shouldRejectInvertedLimits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveBatchSize(true, 30, 100, 10, 50, 0.5, 500, 1000, 0.05));
+    }
+}
@@ -0,0 +1,81 @@
+package com.onboarding.component;
+
+import com.onboarding.entity.AccountSummary;
+import com.onboarding.entity.Invoice;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheValueCodecTest {
+
+    private final CacheValueCodec codec = new CacheValueCodec();
+
+    @Test
+    void page_shouldRoundTripWithPaging() {
+        Invoice invoice = Invoice.builder()
+                .id("67f0c3a1e4b0a1b2c3d4e5f6")
+                .billId("9999999999")
+                .accountId("1234567890")
+                .issueDate(LocalDate.of(2024, 1, 3))
+                .billPeriodFrom(LocalDate.of(2023, 11, 26))
+                .billPeriodTo(LocalDate.of(2023, 12, 25))
+                .name("Firma XXX GmbH")
+                .grossAmount(new BigDecimal("183.97"))
+                .netAmount(new BigDecimal("154.60"))
+                .taxAmount(new BigDecimal("29.37"))
+                .createdAt(LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123_000_000))
+                .build();
+        Page<Invoice> page = new PageImpl<>(List.of(invoice), PageRequest.of(2, 10), 21);
+
+        @SuppressWarnings("unchecked")
+        Page<Invoice> decoded = (Page<Invoice>) codec.decode(codec.encode(page));
+
+        assertEquals(List.of(invoice), decoded.getContent());
+        assertEquals(2, decoded.getNumber());
+        assertEquals(10, decoded.getSize());
+        assertEquals(21, decoded.getTotalElements());
+    }
+
+    @Test
+    void page_shouldKeepNullFields() {
+        Page<Invoice> page = new PageImpl<>(List.of(new Invoice()), PageRequest.of(0, 10), 1);
+
+        Object decoded = codec.decode(codec.encode(page));
+
+        assertEquals(page.getContent(), ((Page<?>) decoded).getContent());
+    }
+
+    @Test
+    void count_shouldRoundTrip() {
+        assertEquals(123_456L, codec.decode(codec.encode(123_456L)));
+    }
+
+    @Test
+    void summary_shouldRoundTrip() {
+        AccountSummary summary = AccountSummary.builder()
+                .accountId("1234567890")
+                .invoiceCount(42)
+                .firstIssueDate(LocalDate.of(2024, 1, 3))
+                .lastIssueDate(LocalDate.of(2025, 2, 28))
+                .grossAmount(new BigDecimal("7726.74"))
+                .netAmount(new BigDecimal("6493.20"))
+                .taxAmount(new BigDecimal("1233.54"))
+                .updatedAt(LocalDateTime.of(2025, 3, 1, 10, 15, 30))
+                .build();
+
+        assertEquals(summary, codec.decode(codec.encode(summary)));
+    }
+
+    @Test
+    void encode_shouldRejectUnsupportedValues() {
+        assertThrows(IllegalArgumentException.class, () -> codec.encode("text"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.onboarding.component;
+
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.onboarding.exception.DependencyUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGuardTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private MeterRegistry registry;
+    private DependencyGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        guard = DependencyGuard.builder()
+                .name("mongo")
+                .maxAttempts(3)
+                .baseDelay(Duration.ofMillis(1))
+                .maxDelay(Duration.ofMillis(2))
+                .failureThreshold(3)
+                .openFor(Duration.ofSeconds(30))
+                .transientFailure(Resilience::isTransientMongoFailure)
+                .nanoClock(now::get)
+                .build();
+        guard.bindTo(registry);
+    }
+
+    @Test
+    void call_shouldRetryTransientFailuresUntilTheySucceed() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = guard.call(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new DataAccessResourceFailureException("Connection reset");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, registry.get("resilience.retries").tag("dependency", "mongo").counter().count());
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void call_shouldNotRetryOtherFailures() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(DuplicateKeyException.class, () -> guard.call(() -> {
+            calls.incrementAndGet();
+            throw new DuplicateKeyException("E11000");
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void call_shouldOpenAfterConsecutiveFailuresAndFailFast() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(MongoSocketReadException.class, () -> guard.call(() -> {
+            calls.incrementAndGet();
+            throw new MongoSocketReadException("Prematurely reached end of stream", new ServerAddress());
+        }));
+
+        assertEquals(3, calls.get());
+        assertTrue(guard.isOpen());
+        assertThrows(DependencyUnavailableException.class, () -> guard.call(calls::incrementAndGet));
+        assertEquals(3, calls.get());
+        assertEquals(1, registry.get("resilience.calls").tag("outcome", "rejected").counter().count());
+        assertEquals(2, registry.get("resilience.circuit.state").tag("dependency", "mongo").gauge().value());
+    }
+
+    @Test
+    void call_afterOpenPeriod_shouldLetOneProbeThroughAndCloseOnSuccess() {
+        openCircuit();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertEquals(DependencyGuard.State.HALF_OPEN, guard.getState());
+        assertTrue(guard.tryAcquire());
+        assertFalse(guard.tryAcquire());
+        guard.onSuccess();
+
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+        assertEquals("ok", guard.call(() -> "ok"));
+    }
+
+    @Test
+    void call_failedProbe_shouldOpenAgain() {
+        openCircuit();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> guard.call(() -> {
+            throw new DataAccessResourceFailureException("Still down");
+        }));
+
+        assertTrue(guard.isOpen());
+    }
+
+    @Test
+    void onFailure_withAnswerFromTheService_shouldResetTheFailureCount() {
+        DataAccessResourceFailureException outage = new DataAccessResourceFailureException("Connection reset");
+        guard.onFailure(outage);
+        guard.onFailure(outage);
+        guard.onFailure(new DuplicateKeyException("E11000"));
+        guard.onFailure(outage);
+
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void backoffMillis_shouldStayBelowTheCappedExponentialCeiling() {
+        DependencyGuard slow = DependencyGuard.builder()
+                .name("s3")
+                .maxAttempts(5)
+                .baseDelay(Duration.ofMillis(100))
+                .maxDelay(Duration.ofMillis(1000))
+                .failureThreshold(5)
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(slow.backoffMillis(1) <= 100);
+            assertTrue(slow.backoffMillis(3) <= 400);
+            assertTrue(slow.backoffMillis(10) <= 1000);
+        }
+    }
+
+    @Test
+    void isTransientAwsFailure_shouldOnlyAcceptServerErrorsAndThrottling() {
+        assertTrue(Resilience.isTransientAwsFailure(S3Exception.builder().statusCode(503).build()));
+        assertTrue(Resilience.isTransientAwsFailure(S3Exception.builder().statusCode(429).build()));
+        assertFalse(Resilience.isTransientAwsFailure(S3Exception.builder().statusCode(404).build()));
+    }
+
+    private void openCircuit() {
+        DataAccessResourceFailureException outage = new DataAccessResourceFailureException("Connection reset");
+        for (int i = 0; i < 3; i++) {
+            guard.onFailure(outage);
+        }
+        assertTrue(guard.isOpen());
+    }
+}
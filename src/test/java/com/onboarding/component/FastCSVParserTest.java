@@ -0,0 +1,73 @@
+package com.onboarding.component;
+
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.exception.InvoiceProcessingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastCSVParserTest {
+
+    private static final String SUCCESS_FILE = "src/test/resources/invoices/success/csv/invoice_20250301.csv";
+
+    private final CSVParser regexParser = new CSVParser();
+    private final FastCSVParser parser = new FastCSVParser();
+
+    @ParameterizedTest(name = "[{index}] line {0}")
+    @MethodSource("loadValidLines")
+    void parseLine_shouldMatchRegexParser(String line) {
+        assertEquals(regexParser.parseLine(line, 1), parser.parseLine(line, 1));
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @ValueSource(strings = {
+            " BILL001 |; ACC123 |;01.01.2023|;01.12.2022|;31.12.2022|;f5|;f6|;f7|;f8|;f9|; John|;Doe |;f12|;f13|;f14|; 100.00 |;-80.5|;+20",
+            "BILL001|;ACC123|;29.02.2024|;01.12.2022|;31.12.2022|;f5|;f6|;f7|;f8|;f9|;John|;Doe|;f12|;f13|;f14|;.50|;80.|;0.000",
+            "BILL001|;ACC123|;31.02.2023|;01.12.2022|;31.12.2022|;f5|;f6|;f7|;f8|;f9|;John|;Doe|;f12|;f13|;f14|;1E+3|;80.00|;20.00",
+            "BILL001|;ACC123|;01.01.2023|;01.12.2022|;31.12.2022|;f5|;f6|;f7|;f8|;f9|;John|;Doe|;f12|;f13|;f14|;12345678901234567890.12|;80.00|;20.00|;extra|;"
+    })
+    void parseLine_edgeCases_shouldMatchRegexParser(String line) {
+        assertEquals(regexParser.parseLine(line, 1), parser.parseLine(line, 1));
+    }
+
+    @Test
+    void parseLine_shouldKeepDecimalScale() {
+        String line = "BILL001|;ACC123|;01.01.2023|;01.12.2022|;31.12.2022|;f5|;f6|;f7|;f8|;f9|;John|;Doe|;f12|;f13|;f14|;100.00|;80.0|;20";
+
+        InvoiceDTO result = parser.parseLine(line, 1);
+
+        assertEquals(2, result.getGrossAmount().scale());
+        assertEquals(new BigDecimal("80.0"), result.getNetAmount());
+        assertEquals(new BigDecimal("20"), result.getTaxAmount());
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("com.onboarding.component.CSVParserTest#loadInvalidInvoiceCases")
+    void parseLine_invalidFormats_shouldReportSameErrorAsRegexParser(String line) {
+        InvoiceProcessingException expected = assertThrows(InvoiceProcessingException.class,
+                () -> regexParser.parseLine(line, 3));
+        InvoiceProcessingException actual = assertThrows(InvoiceProcessingException.class,
+                () -> parser.parseLine(line, 3));
+
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getCause().getClass(), actual.getCause().getClass());
+    }
+
+    @Test
+    void parseLine_nullLine_shouldThrow() {
+        assertThrows(InvoiceProcessingException.class, () -> parser.parseLine(null, 1));
+    }
+
+    static Stream<String> loadValidLines() throws IOException {
+        return Files.readAllLines(Paths.get(SUCCESS_FILE)).stream();
+    }
+}
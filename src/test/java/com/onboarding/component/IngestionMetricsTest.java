@@ -0,0 +1,64 @@
+package com.onboarding.component;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private IngestionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new IngestionMetrics(registry);
+    }
+
+    @Test
+    void recordFile_shouldRecordRateAndErrorRatio() {
+        metrics.recordFile(1000, 50, TimeUnit.SECONDS.toNanos(2));
+
+        assertEquals(500.0, registry.get("invoice.file.lines.per.second").summary().mean(), 0.001);
+        assertEquals(0.05, registry.get("invoice.file.parse.error.ratio").summary().mean(), 0.0001);
+    }
+
+    @Test
+    void recordFile_shouldIgnoreEmptyFiles() {
+        metrics.recordFile(0, 0, 1);
+
+        assertEquals(0, registry.get("invoice.file.lines.per.second").summary().count());
+    }
+
+    @Test
+    void recordMongoBatch_shouldTagOperationAndOutcome() {
+        metrics.recordMongoBatch("insert", 30, TimeUnit.MILLISECONDS.toNanos(12), true);
+        metrics.recordMongoBatch("insert", 30, TimeUnit.MILLISECONDS.toNanos(40), false);
+
+        assertEquals(1, registry.get("invoice.mongo.batch").tags("operation", "insert", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("invoice.mongo.batch").tags("operation", "insert", "outcome", "failure").timer().count());
+        assertEquals(60, registry.get("invoice.mongo.batch.size").summary().totalAmount(), 0.001);
+    }
+
+    @Test
+    void recordParsed_shouldCountLinesAndErrors() {
+        metrics.recordParsed(1, 0);
+        metrics.recordParsed(1, 1);
+
+        assertEquals(2, registry.get("invoice.parse.lines").counter().count(), 0.001);
+        assertEquals(1, registry.get("invoice.parse.errors").counter().count(), 0.001);
+    }
+
+    @Test
+    void recordS3RangeRead_shouldCountBytes() {
+        metrics.recordS3RangeRead(TimeUnit.MILLISECONDS.toNanos(5), 1024);
+        metrics.recordS3Bytes(512);
+
+        assertEquals(1, registry.get("invoice.s3.range.read").timer().count());
+        assertEquals(1536, registry.get("invoice.s3.bytes").counter().count(), 0.001);
+    }
+}
@@ -0,0 +1,108 @@
+package com.onboarding.component;
+
+import com.onboarding.dto.LineBatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineBatchAssemblerTest {
+
+    private static final String SAMPLE_FILE = "src/test/resources/invoices/success/csv/invoice_20250301.csv";
+
+    @ParameterizedTest(name = "chunk size {0}")
+    @ValueSource(ints = {1, 2, 3, 7, 64, 1024, 1 << 20})
+    void accept_shouldMatchBufferedReaderForAnyChunkSize(int chunkSize) throws IOException {
+        String content = Files.readString(Paths.get(SAMPLE_FILE)) + "\r\nlast|;line\r\n\r\nno-terminator";
+
+        List<LineBatch> batches = assemble(content.getBytes(StandardCharsets.UTF_8), chunkSize, 2);
+
+        List<String> lines = new ArrayList<>();
+        int expectedFirstLine = 1;
+        for (LineBatch batch : batches) {
+            assertEquals(expectedFirstLine, batch.getFirstLineNumber());
+            expectedFirstLine += batch.getLines().size();
+            lines.addAll(batch.getLines());
+        }
+        assertEquals(new BufferedReader(new StringReader(content)).lines().toList(), lines);
+    }
+
+    @Test
+    void accept_shouldKeepMultiByteCharactersAcrossChunks() {
+        String content = "Müller|;Straße\nÄrger\n";
+
+        List<LineBatch> batches = assemble(content.getBytes(StandardCharsets.UTF_8), 1, 10);
+
+        assertEquals(1, batches.size());
+        assertEquals(List.of("Müller|;Straße", "Ärger"), batches.get(0).getLines());
+    }
+
+    @ParameterizedTest(name = "chunk size {0}")
+    @ValueSource(ints = {1, 5, 1024})
+    void accept_shouldReportByteOffsetAfterEachBatch(int chunkSize) {
+        String content = "Müller\r\nb\nc\rd\ne";
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+
+        List<LineBatch> batches = assemble(data, chunkSize, 2);
+
+        assertEquals(3, batches.size());
+        assertEquals("Müller\r\nb\n".getBytes(StandardCharsets.UTF_8).length, batches.get(0).getEndOffset());
+        assertEquals(data.length - 1, batches.get(1).getEndOffset());
+        assertEquals(data.length, batches.get(2).getEndOffset());
+    }
+
+    @Test
+    void accept_shouldContinueNumberingFromResumePoint() {
+        List<LineBatch> batches = new ArrayList<>();
+        LineBatchAssembler assembler = new LineBatchAssembler(101, 4000, 10, batches::add);
+
+        assembler.accept("x\ny\n".getBytes(StandardCharsets.UTF_8));
+        assembler.finish();
+
+        assertEquals(1, batches.size());
+        assertEquals(101, batches.get(0).getFirstLineNumber());
+        assertEquals(102, batches.get(0).getLastLineNumber());
+        assertEquals(4004, batches.get(0).getEndOffset());
+    }
+
+    @Test
+    void accept_withBatchSizeSupplier_shouldAskOncePerBatch() {
+        List<LineBatch> batches = new ArrayList<>();
+        AtomicInteger size = new AtomicInteger(1);
+        LineBatchAssembler assembler = new LineBatchAssembler(1, 0, size::get, batches::add);
+
+        assembler.accept("a\n".getBytes(StandardCharsets.UTF_8));
+        size.set(3);
+        assembler.accept("b\nc\nd\ne\n".getBytes(StandardCharsets.UTF_8));
+        assembler.finish();
+
+        assertEquals(List.of(1, 1, 3), batches.stream().map(batch -> batch.getLines().size()).toList());
+    }
+
+    @Test
+    void finish_withEmptyInput_shouldEmitNothing() {
+        assertTrue(assemble(new byte[0], 4, 10).isEmpty());
+    }
+
+    private static List<LineBatch> assemble(byte[] data, int chunkSize, int linesPerBatch) {
+        List<LineBatch> batches = new ArrayList<>();
+        LineBatchAssembler assembler = new LineBatchAssembler(1, linesPerBatch, batches::add);
+        for (int offset = 0; offset < data.length; offset += chunkSize) {
+            assembler.accept(Arrays.copyOfRange(data, offset, Math.min(offset + chunkSize, data.length)));
+        }
+        assembler.finish();
+        return batches;
+    }
+}
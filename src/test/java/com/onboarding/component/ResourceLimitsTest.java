@@ -0,0 +1,76 @@
+package com.onboarding.component;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceLimitsTest {
+
+    @Test
+    void tryAcquireFile_shouldRefuseOnceLimitIsReached() {
+        ResourceLimits limits = new ResourceLimits(2, 1, 1);
+
+        assertTrue(limits.tryAcquireFile());
+        assertTrue(limits.tryAcquireFile());
+        assertFalse(limits.tryAcquireFile());
+
+        limits.releaseFile();
+        assertTrue(limits.tryAcquireFile());
+    }
+
+    @Test
+    void mongo_shouldWaitForPermit() throws Exception {
+        ResourceLimits limits = new ResourceLimits(1, 1, 1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> limits.mongo(() -> {
+            holding.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> limits.mongo(() -> "second"));
+
+        assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void s3_shouldReleasePermitWhenCallFails() {
+        ResourceLimits limits = new ResourceLimits(1, 1, 1);
+
+        assertThrows(IllegalStateException.class, () -> limits.s3(() -> {
+            throw new IllegalStateException("S3 access failed");
+        }));
+        assertEquals("ok", limits.s3(() -> "ok"));
+    }
+
+    @Test
+    void bindTo_shouldExposePermitsInUse() {
+        ResourceLimits limits = new ResourceLimits(4, 2, 2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limits.bindTo(registry);
+
+        limits.tryAcquireFile();
+
+        assertEquals(1, registry.get("invoice.limits.in.use").tag("resource", "files").gauge().value());
+        assertEquals(0, registry.get("invoice.limits.in.use").tag("resource", "mongo").gauge().value());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.onboarding.component;
+
+import com.onboarding.entity.Invoice;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final long L1_BYTES = 1024 * 1024;
+
+    private final CacheValueCodec codec = new CacheValueCodec();
+    private SharedCacheStore shared;
+    private TwoTierCache pages;
+    private TwoTierCache counts;
+
+    @BeforeEach
+    void setUp() {
+        shared = new InMemorySharedCacheStore(L1_BYTES);
+        pages = pagesCache(shared);
+        counts = TwoTierCache.builder()
+                .name(AccountCacheInvalidator.ACCOUNT_INVOICE_COUNTS)
+                .l1MaxBytes(L1_BYTES)
+                .ttl(TTL)
+                .sharedStore(shared)
+                .codec(codec)
+                .accountOf(Object::toString)
+                .build();
+    }
+
+    @Test
+    void get_shouldFallBackToSharedTierAndPromoteToL1() {
+        pages.put("ACC1_0_10", page("ACC1"));
+        TwoTierCache otherReplica = pagesCache(shared);
+
+        assertNotNull(otherReplica.get("ACC1_0_10"));
+        assertNotNull(otherReplica.get("ACC1_0_10"));
+        assertNull(otherReplica.get("ACC1_1_10"));
+
+        assertEquals(1, otherReplica.getL2Hits());
+        assertEquals(1, otherReplica.getL1Hits());
+        assertEquals(1, otherReplica.getL2Misses());
+        assertEquals(2, otherReplica.getL1Misses());
+    }
+
+    @Test
+    void get_withoutSharedTier_shouldStillCountL1Misses() {
+        TwoTierCache nearOnly = pagesCache(null);
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(nearOnly));
+        cacheManager.afterPropertiesSet();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new CacheTierMetrics(cacheManager).bindTo(registry);
+
+        assertNull(nearOnly.get("ACC1_0_10"));
+        nearOnly.put("ACC1_0_10", page("ACC1"));
+        assertNotNull(nearOnly.get("ACC1_0_10"));
+        assertNull(nearOnly.get("ACC2_0_10"));
+
+        assertEquals(1, nearOnly.getL1Hits());
+        assertEquals(2, nearOnly.getL1Misses());
+        assertEquals(0, nearOnly.getL2Misses());
+        assertEquals(1.0 / 3, registry.get("cache.tier.hit.ratio").tag("tier", "l1").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void get_shouldReturnDecodedCopy() {
+        Page<Invoice> page = page("ACC1");
+        pages.put("ACC1_0_10", page);
+
+        Object cached = pages.get("ACC1_0_10").get();
+
+        assertEquals(page.getContent(), ((Page<?>) cached).getContent());
+        assertNotSame(page, cached);
+    }
+
+    @Test
+    void l1_shouldBeBoundedByBytes() {
+        byte[] encoded = codec.encode(page("ACC1"));
+        TwoTierCache small = TwoTierCache.builder()
+                .name("small")
+                .l1MaxBytes(encoded.length * 2L)
+                .ttl(TTL)
+                .codec(codec)
+                .accountOf(AccountCacheInvalidator::accountIdOfPageKey)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            small.put("ACC1_" + i + "_10", page("ACC1"));
+        }
+        ((com.github.benmanes.caffeine.cache.Cache<?, ?>) small.getNativeCache()).cleanUp();
+
+        assertTrue(small.getL1WeightBytes() <= encoded.length * 2L);
+        assertTrue(small.indexedKeyCount("ACC1") <= 2);
+    }
+
+    @Test
+    void metrics_shouldPublishL1Evictions() {
+        byte[] encoded = codec.encode(page("ACC1"));
+        TwoTierCache small = TwoTierCache.builder()
+                .name("small")
+                .l1MaxBytes(encoded.length * 2L)
+                .ttl(TTL)
+                .codec(codec)
+                .accountOf(AccountCacheInvalidator::accountIdOfPageKey)
+                .build();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(small));
+        cacheManager.afterPropertiesSet();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new CacheTierMetrics(cacheManager).bindTo(registry);
+
+        for (int i = 0; i < 10; i++) {
+            small.put("ACC1_" + i + "_10", page("ACC1"));
+        }
+        small.l1().cleanUp();
+        assertNull(small.get("ACC2_0_10"));
+
+        assertTrue(registry.get("cache.evictions").tag("cache", "small").functionCounter().count() >= 8);
+        assertEquals(1, registry.get("cache.gets").tag("cache", "small").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void sharedTierFailure_shouldBeTreatedAsMiss() {
+        SharedCacheStore failing = mock(SharedCacheStore.class);
+        doThrow(new IllegalStateException("down")).when(failing).get(any(), any(), any());
+        doThrow(new IllegalStateException("down")).when(failing).put(any(), any(), any(), any(), any());
+        TwoTierCache cache = pagesCache(failing);
+
+        cache.put("ACC1_0_10", page("ACC1"));
+        assertNotNull(cache.get("ACC1_0_10"));
+        assertNull(cache.get("ACC1_1_10"));
+
+        assertEquals(2, cache.getL2Errors());
+    }
+
+    @Test
+    void evictAccounts_shouldDropEveryPageVariantAndCountOfTheAccountOnly() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(pages, counts));
+        cacheManager.afterPropertiesSet();
+        AccountCacheInvalidator invalidator = new AccountCacheInvalidator(cacheManager);
+        pages.put("ACC_1_0_10", page("ACC_1"));
+        pages.put("ACC_1_1_10", page("ACC_1"));
+        pages.put("ACC_1_0_50", page("ACC_1"));
+        pages.put("ACC_2_0_10", page("ACC_2"));
+        counts.put("ACC_1", 3L);
+        counts.put("ACC_2", 1L);
+
+        invalidator.evictAccounts(Set.of("ACC_1"));
+
+        TwoTierCache otherReplica = pagesCache(shared);
+        assertNull(pages.get("ACC_1_0_10"));
+        assertNull(pages.get("ACC_1_1_10"));
+        assertNull(otherReplica.get("ACC_1_0_50"));
+        assertNull(counts.get("ACC_1"));
+        assertNotNull(otherReplica.get("ACC_2_0_10"));
+        assertEquals(1L, counts.get("ACC_2").get());
+        assertEquals(0, pages.indexedKeyCount("ACC_1"));
+        assertEquals(1, pages.indexedKeyCount("ACC_2"));
+    }
+
+    @Test
+    void evict_shouldRemoveKeyFromBothTiersAndIndex() {
+        pages.put("ACC1_0_10", page("ACC1"));
+
+        pages.evict("ACC1_0_10");
+
+        assertEquals(0, pages.indexedKeyCount("ACC1"));
+        assertNull(shared.get(AccountCacheInvalidator.ACCOUNT_INVOICES, "ACC1", "ACC1_0_10"));
+    }
+
+    @Test
+    void getOrLoad_shouldLoadOnceForConcurrentMisses() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        Supplier<Page<Invoice>> loader = () -> {
+            loaderCalls.incrementAndGet();
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return page("ACC1");
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Page<Invoice>>> results = new ArrayList<>();
+            results.add(callers.submit(() -> pages.getOrLoad("ACC1_0_10", loader)));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> pages.getOrLoad("ACC1_0_10", loader)));
+            }
+            while (pages.getCoalescedLoads() < 3) {
+                Thread.onSpinWait();
+            }
+            releaseLoader.countDown();
+
+            for (Future<Page<Invoice>> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS).getNumberOfElements());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, pages.getLoads());
+    }
+
+    @Test
+    void get_withValueLoader_shouldWrapLoaderFailure() {
+        RuntimeException failure = new IllegalStateException("Mongo down");
+
+        Cache.ValueRetrievalException ex = assertThrows(Cache.ValueRetrievalException.class,
+                () -> counts.get("ACC1", () -> { throw failure; }));
+
+        assertSame(failure, ex.getCause());
+    }
+
+    @Test
+    void getOrLoad_shouldRefreshStaleEntryAndServeCurrentValue() {
+        TwoTierCache refreshing = pagesCache(null, Duration.ZERO);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        Supplier<Page<Invoice>> loader = () -> page("ACC1", loaderCalls.incrementAndGet());
+
+        Page<Invoice> first = refreshing.getOrLoad("ACC1_0_10", loader);
+        Page<Invoice> served = refreshing.getOrLoad("ACC1_0_10", loader);
+        @SuppressWarnings("unchecked")
+        Page<Invoice> refreshed = refreshing.get("ACC1_0_10", Page.class);
+
+        assertEquals("BILL-1", first.getContent().get(0).getBillId());
+        assertEquals("BILL-1", served.getContent().get(0).getBillId());
+        assertEquals("BILL-2", refreshed.getContent().get(0).getBillId());
+        assertEquals(1, refreshing.getRefreshes());
+    }
+
+    @Test
+    void getOrLoad_shouldNotRefreshFreshEntry() {
+        TwoTierCache refreshing = pagesCache(null, Duration.ofMinutes(1));
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        refreshing.getOrLoad("ACC1_0_10", () -> page("ACC1", loaderCalls.incrementAndGet()));
+        refreshing.getOrLoad("ACC1_0_10", () -> page("ACC1", loaderCalls.incrementAndGet()));
+
+        assertEquals(1, loaderCalls.get());
+        assertEquals(0, refreshing.getRefreshes());
+    }
+
+    @Test
+    void getOrLoad_shouldNotCacheLoadThatOverlappedEviction() {
+        Page<Invoice> loaded = pages.getOrLoad("ACC1_0_10", () -> {
+            pages.evictAccount("ACC1");
+            return page("ACC1");
+        });
+
+        assertNotNull(loaded);
+        assertNull(pages.get("ACC1_0_10"));
+    }
+
+    @Test
+    void getOrLoad_shouldCacheLoadThatOverlappedEvictionOfAnotherAccount() {
+        Page<Invoice> loaded = pages.getOrLoad("ACC1_0_10", () -> {
+            pages.evictAccount("ACC2");
+            pages.evict("ACC3_0_10");
+            return page("ACC1");
+        });
+
+        assertNotNull(loaded);
+        assertNotNull(pages.get("ACC1_0_10"));
+    }
+
+    @Test
+    void getOrLoad_shouldTakeBackSharedTierWriteThatOverlappedEviction() {
+        SharedCacheStore evictingDuringPut = spy(new InMemorySharedCacheStore(L1_BYTES));
+        TwoTierCache cache = pagesCache(evictingDuringPut);
+        AtomicInteger puts = new AtomicInteger();
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            if (puts.incrementAndGet() == 1) {
+                cache.evictAccount("ACC1");
+            }
+            return null;
+        }).when(evictingDuringPut).put(anyString(), anyString(), anyString(), any(), any());
+
+        assertNotNull(cache.getOrLoad("ACC1_0_10", () -> page("ACC1")));
+
+        assertNull(evictingDuringPut.get(AccountCacheInvalidator.ACCOUNT_INVOICES, "ACC1", "ACC1_0_10"));
+        assertNull(cache.get("ACC1_0_10"));
+    }
+
+    @Test
+    void generations_shouldOnlyBeKeptForAccountsWithLoadsSinceTheirLastEviction() {
+        for (int i = 0; i < 100; i++) {
+            pages.getOrLoad("ACC" + i + "_0_10", () -> page("ACC1"));
+        }
+        assertEquals(100, pages.trackedGenerationCount());
+
+        for (int i = 0; i < 100; i++) {
+            pages.evictAccount("ACC" + i);
+        }
+        pages.evictAccount("ACC_NEVER_LOADED");
+
+        assertEquals(0, pages.trackedGenerationCount());
+    }
+
+    @Test
+    void getOrLoad_shouldNotCacheLoadThatOverlappedClear() {
+        pages.getOrLoad("ACC1_0_10", () -> {
+            pages.clear();
+            return page("ACC1");
+        });
+
+        assertNull(pages.get("ACC1_0_10"));
+    }
+
+    @Test
+    void accountIdOfPageKey_shouldStripPageAndSize() {
+        assertEquals("ACC_1", AccountCacheInvalidator.accountIdOfPageKey("ACC_1_3_10"));
+        assertEquals("ACC1", AccountCacheInvalidator.accountIdOfPageKey("ACC1"));
+    }
+
+    private TwoTierCache pagesCache(SharedCacheStore l2) {
+        return pagesCache(l2, null);
+    }
+
+    private TwoTierCache pagesCache(SharedCacheStore l2, Duration refreshAfter) {
+        return TwoTierCache.builder()
+                .name(AccountCacheInvalidator.ACCOUNT_INVOICES)
+                .l1MaxBytes(L1_BYTES)
+                .ttl(TTL)
+                .ttlJitter(0.1)
+                .refreshAfter(refreshAfter)
+                .refreshExecutor(Runnable::run)
+                .sharedStore(l2)
+                .codec(codec)
+                .accountOf(AccountCacheInvalidator::accountIdOfPageKey)
+                .build();
+    }
+
+    private static Page<Invoice> page(String accountId) {
+        return page(accountId, 1);
+    }
+
+    private static Page<Invoice> page(String accountId, int version) {
+        Invoice invoice = Invoice.builder().billId("BILL-" + version).accountId(accountId).name("Test").build();
+        return new PageImpl<>(List.of(invoice), PageRequest.of(0, 10), 1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.onboarding.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigTest {
+
+    @Test
+    void platformMode_shouldUseBoundedPool() {
+        AsyncTaskExecutor executor = asyncConfig("platform").taskExecutor();
+
+        ThreadPoolTaskExecutor pool = assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+        assertEquals(2, pool.getCorePoolSize());
+        assertEquals(2, pool.getMaxPoolSize());
+        assertEquals(100, pool.getQueueCapacity());
+        pool.shutdown();
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void virtualMode_beforeJdk21_shouldFailFast() {
+        AsyncConfig config = asyncConfig("virtual");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, config::taskExecutor);
+        assertTrue(e.getMessage().contains("JDK 21"));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualMode_onJdk21_shouldStartThreadPerTask() throws Exception {
+        AsyncTaskExecutor executor = asyncConfig("virtual").taskExecutor();
+
+        assertInstanceOf(SimpleAsyncTaskExecutor.class, executor);
+        CompletableFuture<String> thread = executor.submitCompletable(() -> Thread.currentThread().getName());
+        assertTrue(thread.get(5, TimeUnit.SECONDS).startsWith("InvoiceAsync"));
+    }
+
+    private static AsyncConfig asyncConfig(String mode) {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "invoiceAsyncName", "InvoiceAsync");
+        ReflectionTestUtils.setField(config, "mode", mode);
+        ReflectionTestUtils.setField(config, "corePoolSize", 2);
+        ReflectionTestUtils.setField(config, "maxPoolSize", 2);
+        ReflectionTestUtils.setField(config, "queueCapacity", 100);
+        return config;
+    }
+}
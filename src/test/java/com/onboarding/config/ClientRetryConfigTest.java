@@ -0,0 +1,51 @@
+package com.onboarding.config;
+
+import com.mongodb.MongoClientSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.retries.api.RetryStrategy;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRetryConfigTest {
+
+    @Test
+    void s3Client_withResilienceEnabled_shouldMakeEachCallOnce() {
+        S3Client client = s3Config(true).s3Client();
+
+        RetryStrategy retries = client.serviceClientConfiguration().overrideConfiguration().retryStrategy().orElseThrow();
+        assertEquals(1, retries.maxAttempts());
+        client.close();
+    }
+
+    @Test
+    void configureRetries_withResilienceDisabled_shouldKeepSdkDefault() {
+        ClientOverrideConfiguration.Builder override = ClientOverrideConfiguration.builder();
+
+        s3Config(false).configureRetries(override);
+
+        assertNull(override.retryStrategy());
+    }
+
+    @Test
+    void mongoRetryCustomizer_withResilienceEnabled_shouldOnlyTurnOffDriverReadRetries() {
+        MongoClientSettings.Builder settings = MongoClientSettings.builder();
+
+        new MongoConfig().mongoRetryCustomizer(true).customize(settings);
+
+        assertFalse(settings.build().getRetryReads());
+        assertTrue(settings.build().getRetryWrites());
+    }
+
+    private static S3Config s3Config(boolean resilienceEnabled) {
+        S3Config config = new S3Config();
+        ReflectionTestUtils.setField(config, "accessKey", "access-key");
+        ReflectionTestUtils.setField(config, "secretKey", "secret-key");
+        ReflectionTestUtils.setField(config, "region", "us-east-1");
+        ReflectionTestUtils.setField(config, "resilienceEnabled", resilienceEnabled);
+        config.init();
+        return config;
+    }
+}
@@ -8,6 +8,9 @@ import org.springframework.context.annotation.Profile;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
 import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
@@ -42,6 +45,20 @@ public class SQSMockConfig {
 								.messageId("mock-message-id")
 								.build()));
 
+		// Mock batch send response, acknowledging every entry
+		when(client.sendMessageBatch(any(SendMessageBatchRequest.class)))
+				.thenAnswer(invocation -> {
+					SendMessageBatchRequest request = invocation.getArgument(0);
+					return completedFuture(SendMessageBatchResponse.builder()
+							.successful(request.entries().stream()
+									.map(entry -> SendMessageBatchResultEntry.builder()
+											.id(entry.id())
+											.messageId("mock-message-id-" + entry.id())
+											.build())
+									.toList())
+							.build());
+				});
+
 		return client;
 	}
 }
\ No newline at end of file
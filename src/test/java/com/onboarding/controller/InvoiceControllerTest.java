@@ -1,8 +1,19 @@
 package com.onboarding.controller;
 
+import com.onboarding.dto.CursorPage;
+import com.onboarding.dto.ErrorCategory;
+import com.onboarding.dto.ExportFormat;
 import com.onboarding.dto.InvoiceDTO;
-import com.onboarding.dto.ProcessResult;
+import com.onboarding.dto.InvoiceTotals;
+import com.onboarding.dto.JobState;
+import com.onboarding.dto.JobStatus;
+import com.onboarding.dto.ProcessError;
 import com.onboarding.dto.response.ApiResponse;
+import com.onboarding.entity.AccountSummary;
+import com.onboarding.exception.ResourceNotFoundException;
+import com.onboarding.service.AccountSummaryService;
+import com.onboarding.service.InvoiceExportService;
+import com.onboarding.service.InvoiceJobService;
 import com.onboarding.service.InvoiceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,16 +24,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -36,6 +48,15 @@ class InvoiceControllerTest {
 	@Mock
 	private InvoiceService invoiceService;
 
+	@Mock
+	private InvoiceJobService invoiceJobService;
+
+	@Mock
+	private InvoiceExportService invoiceExportService;
+
+	@Mock
+	private AccountSummaryService accountSummaryService;
+
 	@InjectMocks
 	private InvoiceController invoiceController;
 
@@ -90,74 +111,140 @@ class InvoiceControllerTest {
 	}
 
 	@Test
-	void processInvoiceFile_shouldProcessSuccessfully() throws ExecutionException, InterruptedException {
+	void scrollInvoicesByAccountId_shouldReturnCursorPage() {
 		// Arrange
-		String filename = "invoice_20250301.csv";
-		ProcessResult processResult = ProcessResult.builder().filename(filename).build();
-		processResult.incrementSuccessCount(10);
+		CursorPage<InvoiceDTO> page = CursorPage.<InvoiceDTO>builder()
+				.content(List.of(new InvoiceDTO()))
+				.size(1)
+				.nextToken("token-2")
+				.build();
+		when(invoiceService.getInvoicesByAccountIdAfter("ACC001", "token-1", 1, false)).thenReturn(page);
+
+		// Act
+		ResponseEntity<CursorPage<InvoiceDTO>> response = invoiceController
+				.scrollInvoicesByAccountId("ACC001", "token-1", 1, false);
+
+		// Assert
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNotNull(response.getBody());
+		assertEquals("token-2", response.getBody().getNextToken());
+		assertTrue(response.getBody().isHasNext());
+	}
 
-		when(invoiceService.processFileAsync(filename))
-				.thenReturn(java.util.concurrent.CompletableFuture.completedFuture(processResult));
+	@Test
+	void getSummary_shouldReturnAccountSummary() {
+		// Arrange
+		AccountSummary summary = AccountSummary.builder().accountId("ACC001").invoiceCount(3)
+				.grossAmount(new BigDecimal("300.00")).build();
+		when(accountSummaryService.getSummary("ACC001")).thenReturn(summary);
 
 		// Act
-		ResponseEntity<ApiResponse<String>> response = invoiceController.processInvoiceFile(filename);
+		ResponseEntity<AccountSummary> response = invoiceController.getSummary("ACC001");
 
 		// Assert
-		assertNotNull(response);
 		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(summary, response.getBody());
+	}
 
-		ApiResponse<String> body = response.getBody();
-		assertNotNull(body);
-		assertEquals("Success", body.getMessage());
-		assertTrue(body.getBody().contains("Success: 10"));
-		assertNull(body.getErrors());
+	@Test
+	void getMonthlyTotals_shouldReturnOneEntryPerMonth() {
+		// Arrange
+		LocalDate from = LocalDate.of(2025, 1, 1);
+		LocalDate to = LocalDate.of(2025, 2, 28);
+		List<InvoiceTotals> totals = List.of(
+				InvoiceTotals.builder().accountId("ACC001").period("2025-01").invoiceCount(2)
+						.grossAmount(new BigDecimal("200.00")).build(),
+				InvoiceTotals.builder().accountId("ACC001").period("2025-02").invoiceCount(1)
+						.grossAmount(new BigDecimal("100.00")).build());
+		when(invoiceService.getMonthlyTotals("ACC001", from, to)).thenReturn(totals);
+
+		// Act
+		ResponseEntity<List<InvoiceTotals>> response = invoiceController.getMonthlyTotals("ACC001", from, to);
+
+		// Assert
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(totals, response.getBody());
 	}
 
 	@Test
-	void processInvoiceFile_shouldIncludeErrorsWhenPresent()
-            throws ExecutionException, InterruptedException {
+	void exportInvoicesByAccountId_shouldStreamCsvWithGzipWhenAccepted() {
 		// Arrange
-		String filename = "invoice_20250301.csv";
-		ProcessResult processResult = ProcessResult.builder().filename(filename).build();
-		processResult.incrementSuccessCount(8);
-		processResult.addError(3, "Invalid amount");
-		processResult.addError(7, "Missing field");
+		StreamingResponseBody body = out -> { };
+		when(invoiceExportService.export("ACC001", ExportFormat.CSV, true)).thenReturn(body);
 
-		when(invoiceService.processFileAsync(filename))
-				.thenReturn(java.util.concurrent.CompletableFuture.completedFuture(processResult));
+		// Act
+		ResponseEntity<StreamingResponseBody> response = invoiceController
+				.exportInvoicesByAccountId("ACC001", ExportFormat.CSV, "deflate, gzip");
+
+		// Assert
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertSame(body, response.getBody());
+		assertEquals("text/csv", response.getHeaders().getContentType().toString());
+		assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("ACC001.csv", response.getHeaders().getContentDisposition().getFilename());
+	}
+
+	@Test
+	void exportInvoicesByAccountId_shouldNotCompressWithoutAcceptEncoding() {
+		// Act
+		ResponseEntity<StreamingResponseBody> response = invoiceController
+				.exportInvoicesByAccountId("ACC001", ExportFormat.NDJSON, null);
+
+		// Assert
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+	}
+
+	@Test
+	void processInvoiceFile_shouldAcceptAndReturnJob() {
+		// Arrange
+		String filename = "invoice_20250301.csv";
+		JobStatus job = JobStatus.builder().id("job-1").filename(filename).state(JobState.QUEUED).build();
+		when(invoiceJobService.submit(filename)).thenReturn(job);
 
 		// Act
-		ResponseEntity<ApiResponse<String>> response = invoiceController.processInvoiceFile(filename);
+		ResponseEntity<ApiResponse<JobStatus>> response = invoiceController.processInvoiceFile(filename);
 
 		// Assert
 		assertNotNull(response);
-		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+		assertEquals(URI.create("/v1/invoice/jobs/job-1"), response.getHeaders().getLocation());
 
-		ApiResponse<String> body = response.getBody();
+		ApiResponse<JobStatus> body = response.getBody();
 		assertNotNull(body);
-		assertEquals("Success", body.getMessage());
-		assertTrue(body.getBody().contains("Success: 8"));
-		assertTrue(body.getBody().contains("Errors: 2"));
-		assertNotNull(body.getErrors());
-		assertInstanceOf(Map.class, body.getErrors());
-		Map<?, ?> errorsMap = (Map<?, ?>) body.getErrors();
-		assertEquals(2, errorsMap.size());
-		assertEquals("Invalid amount", errorsMap.get(3));
-		assertEquals("Missing field", errorsMap.get(7));
+		assertEquals("Accepted", body.getMessage());
+		assertEquals("job-1", body.getBody().getId());
+		assertEquals(JobState.QUEUED, body.getBody().getState());
 	}
 
 	@Test
-	void processInvoiceFile_shouldHandleExecutionException() {
+	void processInvoiceFile_shouldPropagateMissingFile() {
 		// Arrange
 		String filename = "invoice_20250301.csv";
-		when(invoiceService.processFileAsync(filename)).thenAnswer(invocation -> {
-			throw new ExecutionException("Processing failed", new RuntimeException("Error"));
-		});
+		when(invoiceJobService.submit(filename)).thenThrow(new ResourceNotFoundException("S3 access failed"));
 
 		// Act & Assert
-		ExecutionException exception = assertThrows(ExecutionException.class,
-				() -> invoiceController.processInvoiceFile(filename));
-		assertEquals("Processing failed", exception.getMessage());
+		assertThrows(ResourceNotFoundException.class, () -> invoiceController.processInvoiceFile(filename));
+	}
+
+	@Test
+	void getJobStatus_shouldReturnProgress() {
+		// Arrange
+		List<ProcessError> errors = List.of(new ProcessError(3, ErrorCategory.DECIMAL_FORMAT, "Invalid amount"));
+		JobStatus job = JobStatus.builder().id("job-1").state(JobState.RUNNING)
+				.linesRead(10).persisted(8).published(8).errorCount(1).errors(errors).build();
+		when(invoiceJobService.getStatus("job-1")).thenReturn(job);
+
+		// Act
+		ResponseEntity<ApiResponse<JobStatus>> response = invoiceController.getJobStatus("job-1");
+
+		// Assert
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		ApiResponse<JobStatus> body = response.getBody();
+		assertNotNull(body);
+		assertEquals("RUNNING", body.getMessage());
+		assertEquals(8, body.getBody().getPublished());
+		assertEquals("Invalid amount", body.getBody().getErrors().get(0).getMessage());
 	}
 
 }
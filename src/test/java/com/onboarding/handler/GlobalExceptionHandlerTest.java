@@ -1,7 +1,9 @@
 package com.onboarding.handler;
 
 import com.onboarding.dto.response.ApiResponse;
+import com.onboarding.exception.DependencyUnavailableException;
 import com.onboarding.exception.InvoiceProcessingException;
+import com.onboarding.exception.JobRejectedException;
 import com.onboarding.exception.MessageProcessingException;
 import com.onboarding.exception.ResourceNotFoundException;
 import jakarta.validation.ConstraintViolation;
@@ -40,6 +42,26 @@ class GlobalExceptionHandlerTest {
         assertEquals("Invoice error", response.getBody().getMessage());
     }
 
+    @Test
+    void handleJobRejectedException() {
+        JobRejectedException ex = new JobRejectedException("Too many invoice files in progress, try again later");
+        ResponseEntity<ApiResponse<String>> response =
+                globalExceptionHandler.handleJobRejectedException(ex);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Too many invoice files in progress, try again later", response.getBody().getMessage());
+    }
+
+    @Test
+    void handleDependencyUnavailableException() {
+        DependencyUnavailableException ex = new DependencyUnavailableException("mongo is unavailable, circuit is open");
+        ResponseEntity<ApiResponse<String>> response =
+                globalExceptionHandler.handleDependencyUnavailableException(ex);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("mongo is unavailable, circuit is open", response.getBody().getMessage());
+    }
+
     @Test
     void handleMessageProcessingException() {
         MessageProcessingException ex = new MessageProcessingException("SQS error");
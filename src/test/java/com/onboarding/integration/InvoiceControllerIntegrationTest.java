@@ -1,5 +1,6 @@
 package com.onboarding.integration;
 
+import com.jayway.jsonpath.JsonPath;
 import com.onboarding.config.S3TestConfig;
 import com.onboarding.config.SQSMockConfig;
 import com.onboarding.dto.InvoiceDTO;
@@ -18,6 +19,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.ResourceUtils;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -95,12 +97,15 @@ class InvoiceControllerIntegrationTest {
 		s3Client.putObject(PutObjectRequest.builder().bucket(testBucketName).key(fileName).build(),
 				RequestBody.fromBytes(content.getBytes(StandardCharsets.UTF_8)));
 
-		mockMvc.perform(post("/v1/invoice/{invoiceName}", fileName))
+		MvcResult accepted = mockMvc.perform(post("/v1/invoice/{invoiceName}", fileName))
+				.andExpectAll(status().isAccepted(), jsonPath("$.message").value("Accepted"),
+						header().string("Location", startsWith("/v1/invoice/jobs/")))
+				.andReturn();
+		String jobId = JsonPath.read(accepted.getResponse().getContentAsString(), "$.body.id");
 
-				.andExpectAll(status().isOk(), jsonPath("$.message").value("Success"),
-						jsonPath("$.body").value(containsString("Success: 2")));
-
-		await().atMost(5, SECONDS).until(() -> !invoiceRepository.findAll().isEmpty());
+		await().atMost(5, SECONDS).untilAsserted(() -> mockMvc.perform(get("/v1/invoice/jobs/{jobId}", jobId))
+				.andExpectAll(status().isOk(), jsonPath("$.body.state").value("COMPLETED"),
+						jsonPath("$.body.published").value(2)));
 
 		assertFalse(invoiceRepository.findAll().isEmpty());
 	}
@@ -148,6 +153,12 @@ class InvoiceControllerIntegrationTest {
 				.andExpect(status().isNotFound());
 	}
 
+	@Test
+	void getJobStatus_shouldReturnNotFoundForUnknownJob() throws Exception {
+		mockMvc.perform(get("/v1/invoice/jobs/{jobId}", "unknown-job"))
+				.andExpect(status().isNotFound());
+	}
+
 	@Test
 	void processInvoiceFile_shouldRejectInvalidFilename() throws Exception {
 		// Given
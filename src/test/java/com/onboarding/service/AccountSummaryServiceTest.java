@@ -0,0 +1,192 @@
+package com.onboarding.service;
+
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.entity.AccountSummary;
+import com.onboarding.entity.AccountSummaryRebuild;
+import com.onboarding.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountSummaryServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private BulkOperations bulkOperations;
+    @Mock
+    private BulkOperations marks;
+    @Mock
+    private CacheManager cacheManager;
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+    @InjectMocks
+    private AccountSummaryService accountSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountSummaryService, "enabled", true);
+    }
+
+    @Test
+    void apply_shouldUpsertOncePerAccountWithTheBatchDelta() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountSummary.class)).thenReturn(bulkOperations);
+
+        accountSummaryService.apply(List.of(
+                invoice("ACC1", LocalDate.of(2025, 3, 1), "120.00"),
+                invoice("ACC2", LocalDate.of(2025, 1, 1), "10.00"),
+                invoice("ACC1", LocalDate.of(2025, 1, 15), "30.50")));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).upsert(queries.capture(), updates.capture());
+        verify(bulkOperations).execute();
+        assertEquals("ACC1", queries.getAllValues().get(0).getQueryObject().get("accountId"));
+
+        Document first = updates.getAllValues().get(0).getUpdateObject();
+        Document inc = first.get("$inc", Document.class);
+        assertEquals(2L, inc.get("invoiceCount"));
+        assertEquals(new Decimal128(new BigDecimal("150.50")), inc.get("grossAmount"));
+        assertEquals(LocalDate.of(2025, 1, 15), first.get("$min", Document.class).get("firstIssueDate"));
+        assertEquals(LocalDate.of(2025, 3, 1), first.get("$max", Document.class).get("lastIssueDate"));
+    }
+
+    @Test
+    void apply_whenTheSummaryWriteFails_shouldMarkTheAccountsForRebuildWithoutRebuilding() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountSummary.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("Mongo unavailable"));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountSummaryRebuild.class)).thenReturn(marks);
+
+        assertDoesNotThrow(() -> accountSummaryService.apply(List.of(
+                invoice("ACC1", LocalDate.of(2025, 3, 1), "1.00"),
+                invoice("ACC2", LocalDate.of(2025, 3, 1), "2.00"))));
+
+        ArgumentCaptor<Query> marked = ArgumentCaptor.forClass(Query.class);
+        verify(marks, times(2)).upsert(marked.capture(), any(Update.class));
+        verify(marks).execute();
+        assertEquals("ACC1", marked.getAllValues().get(0).getQueryObject().get("accountId"));
+        verify(mongoTemplate, never()).aggregate(any(TypedAggregation.class), eq(Document.class));
+    }
+
+    @Test
+    void apply_whenMarkingFailsToo_shouldKeepTheAccountsAndMarkThemLater() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountSummary.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("Mongo unavailable"));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountSummaryRebuild.class)).thenReturn(marks);
+        when(marks.execute()).thenThrow(new DataAccessResourceFailureException("Mongo unavailable"))
+                .thenReturn(null);
+
+        accountSummaryService.apply(List.of(invoice("ACC1", LocalDate.of(2025, 3, 1), "1.00")));
+        accountSummaryService.rebuildMarked();
+
+        verify(marks, times(2)).execute();
+        verify(marks, times(2)).upsert(argThat(query -> "ACC1".equals(query.getQueryObject().get("accountId"))),
+                any(Update.class));
+    }
+
+    @Test
+    void rebuildMarked_shouldRebuildMarkedAccountsAndDropTheirMarks() {
+        LocalDateTime markedAt = LocalDateTime.of(2025, 3, 1, 12, 0);
+        when(mongoTemplate.findAll(AccountSummaryRebuild.class))
+                .thenReturn(List.of(new AccountSummaryRebuild("ACC1", markedAt)));
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .thenReturn(totals(new Document("invoiceCount", 3).append("grossAmount", new Decimal128(new BigDecimal("31.00")))));
+
+        accountSummaryService.rebuildMarked();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(AccountSummary.class));
+        assertEquals("ACC1", query.getValue().getQueryObject().get("accountId"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(3L, set.get("invoiceCount"));
+        assertEquals(new Decimal128(new BigDecimal("31.00")), set.get("grossAmount"));
+        assertEquals(new Decimal128(BigDecimal.ZERO), set.get("taxAmount"));
+        verify(mongoTemplate).remove(argThat(mark -> "ACC1".equals(mark.getQueryObject().get("accountId"))),
+                eq(AccountSummaryRebuild.class));
+    }
+
+    @Test
+    void rebuildMarked_whenTheRebuildFails_shouldKeepTheMark() {
+        when(mongoTemplate.findAll(AccountSummaryRebuild.class))
+                .thenReturn(List.of(new AccountSummaryRebuild("ACC1", LocalDateTime.now())));
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .thenThrow(new DataAccessResourceFailureException("Mongo unavailable"));
+
+        assertDoesNotThrow(() -> accountSummaryService.rebuildMarked());
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(AccountSummaryRebuild.class));
+    }
+
+    @Test
+    void rebuild_shouldRemoveSummaryOfAccountWithoutInvoices() {
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class))).thenReturn(totals());
+
+        accountSummaryService.rebuild("ACC9");
+
+        verify(mongoTemplate).remove(any(Query.class), eq(AccountSummary.class));
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(AccountSummary.class));
+    }
+
+    @Test
+    void apply_shouldDoNothingWhenDisabled() {
+        ReflectionTestUtils.setField(accountSummaryService, "enabled", false);
+
+        accountSummaryService.apply(List.of(invoice("ACC1", LocalDate.of(2025, 3, 1), "1.00")));
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void getSummary_shouldThrowForAccountWithoutInvoices() {
+        when(mongoTemplate.findById("ACC9", AccountSummary.class)).thenReturn(null);
+
+        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class,
+                () -> accountSummaryService.getSummary("ACC9"));
+        assertEquals("No invoices for account: ACC9", ex.getMessage());
+    }
+
+    private static AggregationResults<Document> totals(Document... rows) {
+        return new AggregationResults<>(List.of(rows), new Document());
+    }
+
+    private static InvoiceDTO invoice(String accountId, LocalDate issueDate, String gross) {
+        return InvoiceDTO.builder()
+                .accountId(accountId)
+                .issueDate(issueDate)
+                .grossAmount(new BigDecimal(gross))
+                .netAmount(BigDecimal.ONE)
+                .taxAmount(BigDecimal.ZERO)
+                .build();
+    }
+}
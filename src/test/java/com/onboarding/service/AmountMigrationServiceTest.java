@@ -0,0 +1,55 @@
+package com.onboarding.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AmountMigrationServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @InjectMocks
+    private AmountMigrationService amountMigrationService;
+
+    @Test
+    void migrate_shouldConvertEachAmountFieldThatIsStillAString() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(AggregationUpdate.class), eq("invoice")))
+                .thenReturn(UpdateResult.acknowledged(3, 3L, null));
+
+        assertEquals(9, amountMigrationService.migrate());
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<AggregationUpdate> updates = ArgumentCaptor.forClass(AggregationUpdate.class);
+        verify(mongoTemplate, times(3)).updateMulti(queries.capture(), updates.capture(), eq("invoice"));
+        assertEquals(List.of("gross_amount", "net_amount", "tax_amount"),
+                queries.getAllValues().stream().map(query -> query.getQueryObject().keySet().iterator().next()).toList());
+        assertTrue(queries.getValue().getQueryObject().toJson().contains("$type"));
+        assertTrue(updates.getValue().toString().contains("$toDecimal"));
+    }
+
+    @Test
+    void migrateOnStartup_shouldNotRunWhileDecimal128IsOff() {
+        ReflectionTestUtils.setField(amountMigrationService, "migrateOnStartup", true);
+        ReflectionTestUtils.setField(amountMigrationService, "decimal128", false);
+
+        amountMigrationService.migrateOnStartup();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,159 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.LineBatch;
+import com.onboarding.dto.S3ObjectInfo;
+import com.onboarding.entity.FileCheckpoint;
+import com.onboarding.repo.FileCheckpointRepository;
+import com.onboarding.service.aws.S3Service;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckpointServiceTest {
+
+    private static final String TEST_FILE_NAME = "invoice_20250301.csv";
+    private static final String ETAG = "\"etag-1\"";
+
+    @Mock
+    private FileCheckpointRepository checkpointRepository;
+    @Mock
+    private S3Service s3Service;
+    @InjectMocks
+    private CheckpointService checkpointService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(checkpointService, "saveEveryLines", 4);
+        when(s3Service.getObjectInfo(TEST_FILE_NAME)).thenReturn(new S3ObjectInfo(10_000, ETAG));
+    }
+
+    @Test
+    void open_shouldStartFromBeginningWithoutCheckpoint() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.empty());
+
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        assertFalse(checkpoint.isResumed());
+        assertEquals(1, checkpoint.getResumeLineNumber());
+        assertEquals(0, checkpoint.getResumeOffset());
+    }
+
+    @Test
+    void open_shouldResumeFromStoredCheckpoint() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.of(stored(ETAG, 500, 4096)));
+
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        assertTrue(checkpoint.isResumed());
+        assertEquals(501, checkpoint.getResumeLineNumber());
+        assertEquals(4096, checkpoint.getResumeOffset());
+    }
+
+    @Test
+    void open_shouldResumeCheckpointOneByteBeforeTheEnd() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.of(stored(ETAG, 500, 9_999)));
+
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        assertFalse(checkpoint.isAtEnd());
+        assertEquals(9_999, checkpoint.getResumeOffset());
+    }
+
+    @Test
+    void open_shouldReportCheckpointAtTheEndOfTheObjectAsFinished() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.of(stored(ETAG, 500, 10_000)));
+
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        assertTrue(checkpoint.isAtEnd());
+        checkpoint.complete();
+        verify(checkpointRepository).deleteById(TEST_FILE_NAME);
+    }
+
+    @Test
+    void open_shouldIgnoreCheckpointOfReplacedObject() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.of(stored("\"old\"", 500, 4096)));
+
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        assertEquals(1, checkpoint.getResumeLineNumber());
+        assertEquals(0, checkpoint.getResumeOffset());
+    }
+
+    @Test
+    void committed_shouldOnlyAdvanceOverContiguousBatches() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.empty());
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        checkpoint.committed(new LineBatch(3, List.of("c", "d"), 40));
+        checkpoint.committed(new LineBatch(5, List.of("e", "f"), 60));
+        verify(checkpointRepository, never()).save(any());
+
+        checkpoint.committed(new LineBatch(1, List.of("a", "b"), 20));
+
+        ArgumentCaptor<FileCheckpoint> saved = ArgumentCaptor.forClass(FileCheckpoint.class);
+        verify(checkpointRepository).save(saved.capture());
+        assertEquals(6, saved.getValue().getLastLineNumber());
+        assertEquals(60, saved.getValue().getByteOffset());
+        assertEquals(ETAG, saved.getValue().getETag());
+    }
+
+    @Test
+    void committed_withSaveEveryLine_shouldSaveEachBatchThatExtendsThePrefix() {
+        ReflectionTestUtils.setField(checkpointService, "saveEveryLines", 1);
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.empty());
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        checkpoint.committed(new LineBatch(1, List.of("a", "b"), 20));
+        checkpoint.committed(new LineBatch(5, List.of("e", "f"), 60));
+        checkpoint.committed(new LineBatch(3, List.of("c", "d"), 40));
+
+        ArgumentCaptor<FileCheckpoint> saved = ArgumentCaptor.forClass(FileCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(saved.capture());
+        assertEquals(2, saved.getAllValues().get(0).getLastLineNumber());
+        assertEquals(6, saved.getAllValues().get(1).getLastLineNumber());
+    }
+
+    @Test
+    void flush_shouldStorePositionBelowSaveThreshold() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.empty());
+        Checkpoint checkpoint = checkpointService.open(TEST_FILE_NAME);
+
+        checkpoint.committed(new LineBatch(1, List.of("a"), 10));
+        verify(checkpointRepository, never()).save(any());
+        checkpoint.flush();
+
+        verify(checkpointRepository).save(argThat(saved -> saved.getLastLineNumber() == 1 && saved.getByteOffset() == 10));
+    }
+
+    @Test
+    void complete_shouldDeleteCheckpoint() {
+        when(checkpointRepository.findById(TEST_FILE_NAME)).thenReturn(Optional.empty());
+
+        checkpointService.open(TEST_FILE_NAME).complete();
+
+        verify(checkpointRepository).deleteById(TEST_FILE_NAME);
+    }
+
+    private static FileCheckpoint stored(String eTag, int lastLine, long offset) {
+        return FileCheckpoint.builder()
+                .filename(TEST_FILE_NAME)
+                .eTag(eTag)
+                .lastLineNumber(lastLine)
+                .byteOffset(offset)
+                .build();
+    }
+}
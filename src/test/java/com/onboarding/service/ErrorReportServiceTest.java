@@ -0,0 +1,156 @@
+package com.onboarding.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onboarding.dto.ErrorCategory;
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.ProcessError;
+import com.onboarding.dto.ProcessResult;
+import com.onboarding.component.CSVParser;
+import com.onboarding.exception.InvoiceProcessingException;
+import com.onboarding.service.aws.S3Service;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ErrorReportServiceTest {
+
+    private static final String TEST_FILE_NAME = "invoice_20250301.csv";
+    private static final String REPORT_KEY = "error-reports/invoice_20250301.csv.errors.ndjson";
+
+    @Mock
+    private S3Service s3Service;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks
+    private ErrorReportService errorReportService;
+
+    private ProcessResult result;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(errorReportService, "samplesPerCategory", 2);
+        ReflectionTestUtils.setField(errorReportService, "maxMessageLength", 10);
+        ReflectionTestUtils.setField(errorReportService, "reportEnabled", false);
+        ReflectionTestUtils.setField(errorReportService, "reportPrefix", "error-reports/");
+        result = ProcessResult.builder().filename(TEST_FILE_NAME).build();
+    }
+
+    @Test
+    void open_shouldCountEveryErrorButKeepOnlyTheFirstSamplesPerCategory() {
+        errorReportService.open(result);
+
+        for (int line = 1; line <= 5; line++) {
+            result.addParseError(line, ErrorCategory.DATE_FORMAT, "Line " + line + ": bad date");
+        }
+        result.addError(9, ErrorCategory.DUPLICATE, "Duplicate bill ID found: BILL9");
+
+        assertEquals(6, result.getErrorCount());
+        assertEquals(5, result.getParseErrorCount());
+        assertEquals(Map.of(ErrorCategory.DATE_FORMAT, 5, ErrorCategory.DUPLICATE, 1), result.getErrorCounts());
+        assertEquals(List.of(
+                new ProcessError(1, ErrorCategory.DATE_FORMAT, "Line 1: ba..."),
+                new ProcessError(2, ErrorCategory.DATE_FORMAT, "Line 2: ba..."),
+                new ProcessError(9, ErrorCategory.DUPLICATE, "Duplicate ...")), result.getSampledErrors());
+    }
+
+    @Test
+    void open_shouldKeepErrorsThatAreNotTiedToALine() {
+        errorReportService.open(result);
+
+        result.addError(0, ErrorCategory.PERSISTENCE, "Failed");
+        result.addError(0, ErrorCategory.PERSISTENCE, "Failed too");
+
+        assertEquals(2, result.getErrorCount());
+        assertEquals(List.of("Failed", "Failed too"),
+                result.getSampledErrors().stream().map(ProcessError::getMessage).toList());
+    }
+
+    @Test
+    void close_shouldUploadEveryErrorWhenReportIsEnabled() throws Exception {
+        ReflectionTestUtils.setField(errorReportService, "reportEnabled", true);
+        List<String> uploaded = new ArrayList<>();
+        doAnswer(invocation -> uploaded.addAll(Files.readAllLines(invocation.getArgument(1, Path.class))))
+                .when(s3Service).putFile(eq(REPORT_KEY), any(Path.class), eq("application/x-ndjson"));
+
+        try (ErrorReport ignored = errorReportService.open(result)) {
+            for (int line = 1; line <= 5; line++) {
+                result.addParseError(line, ErrorCategory.FIELD_COUNT, "Line " + line + ": Insufficient fields");
+            }
+        }
+
+        assertEquals(5, uploaded.size());
+        assertEquals(new ProcessError(5, ErrorCategory.FIELD_COUNT, "Line 5: Insufficient fields"),
+                objectMapper.readValue(uploaded.get(4), ProcessErrorJson.class).toError());
+        assertEquals(REPORT_KEY, result.getErrorReportKey());
+        assertNull(result.getErrorSpill());
+    }
+
+    @Test
+    void close_shouldNotUploadAnEmptyReport() {
+        ReflectionTestUtils.setField(errorReportService, "reportEnabled", true);
+
+        errorReportService.open(result).close();
+
+        verifyNoInteractions(s3Service);
+        assertNull(result.getErrorReportKey());
+    }
+
+    @Test
+    void close_shouldNotFailTheRunWhenUploadFails() {
+        ReflectionTestUtils.setField(errorReportService, "reportEnabled", true);
+        doThrow(S3Exception.builder().message("Access denied").build())
+                .when(s3Service).putFile(any(), any(), any());
+
+        ErrorReport report = errorReportService.open(result);
+        result.addError(3, ErrorCategory.SQS_FAILURE, "Failed to send message to SQS");
+
+        assertDoesNotThrow(report::close);
+        assertNull(result.getErrorReportKey());
+    }
+
+    @Test
+    void ofParseFailure_shouldClassifyParserExceptions() {
+        CSVParser parser = new CSVParser();
+        String valid = "BILL1|;ACC1|;01.03.2025|;01.02.2025|;28.02.2025|;a|;b|;c|;d|;e|;John|;Doe|;f|;g|;h|;"
+                + "100.00|;80.00|;20.00";
+
+        assertEquals(ErrorCategory.FIELD_COUNT, categoryOf(parser, "BILL1|;ACC1"));
+        assertEquals(ErrorCategory.DATE_FORMAT, categoryOf(parser, valid.replace("01.03.2025", "2025-03-01")));
+        assertEquals(ErrorCategory.DECIMAL_FORMAT, categoryOf(parser, valid.replace("100.00", "1O0.00")));
+        InvoiceDTO dto = parser.parseLine(valid, 1);
+        assertEquals("BILL1", dto.getBillId());
+    }
+
+    private static ErrorCategory categoryOf(CSVParser parser, String line) {
+        InvoiceProcessingException e = assertThrows(InvoiceProcessingException.class, () -> parser.parseLine(line, 1));
+        return ErrorCategory.ofParseFailure(e);
+    }
+
+    private static final class ProcessErrorJson {
+        public int lineNumber;
+        public ErrorCategory category;
+        public String message;
+
+        private ProcessError toError() {
+            return new ProcessError(lineNumber, category, message);
+        }
+    }
+}
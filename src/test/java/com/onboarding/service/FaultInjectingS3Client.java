@@ -0,0 +1,94 @@
+package com.onboarding.service;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes the calls S3Service makes on to a real client, after applying the faults queued with
+ * {@link #failNext} and {@link #delayNext}, one per call.
+ */
+class FaultInjectingS3Client implements S3Client {
+    private final S3Client delegate;
+    private final Queue<Runnable> faults = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    FaultInjectingS3Client(S3Client delegate) {
+        this.delegate = delegate;
+    }
+
+    void failNext(int times, int statusCode) {
+        for (int i = 0; i < times; i++) {
+            faults.add(() -> {
+                throw (S3Exception) S3Exception.builder().statusCode(statusCode).message("Injected " + statusCode).build();
+            });
+        }
+    }
+
+    void delayNext(long millis) {
+        faults.add(() -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        inject();
+        return delegate.headObject(request);
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        inject();
+        return delegate.getObject(request);
+    }
+
+    @Override
+    public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+        inject();
+        return delegate.getObjectAsBytes(request);
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        inject();
+        return delegate.putObject(request, body);
+    }
+
+    @Override
+    public String serviceName() {
+        return delegate.serviceName();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void inject() {
+        requests.incrementAndGet();
+        Runnable fault = faults.poll();
+        if (fault != null) {
+            fault.run();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.InvoiceJob;
+import com.onboarding.dto.JobState;
+import com.onboarding.dto.S3ObjectInfo;
+import com.onboarding.entity.FileLedgerEntry;
+import com.onboarding.repo.FileLedgerRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileLedgerServiceTest {
+
+    private static final String TEST_FILE_NAME = "invoice_20250301.csv";
+    private static final S3ObjectInfo OBJECT = new S3ObjectInfo(10_000, "\"etag-1\"");
+
+    @Mock
+    private FileLedgerRepository ledgerRepository;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @InjectMocks
+    private FileLedgerService fileLedgerService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileLedgerService, "enabled", true);
+        ReflectionTestUtils.setField(fileLedgerService, "claimExpiryMinutes", 60L);
+    }
+
+    @Test
+    void findCompleted_shouldReturnCompletedEntry() {
+        when(ledgerRepository.findById(OBJECT.getETag())).thenReturn(Optional.of(entry(JobState.COMPLETED)));
+
+        assertTrue(fileLedgerService.findCompleted(OBJECT).isPresent());
+    }
+
+    @Test
+    void findCompleted_shouldIgnoreRunsThatDidNotComplete() {
+        when(ledgerRepository.findById(OBJECT.getETag())).thenReturn(Optional.of(entry(JobState.FAILED)));
+
+        assertTrue(fileLedgerService.findCompleted(OBJECT).isEmpty());
+    }
+
+    @Test
+    void findCompleted_shouldNotLookUpObjectsWithoutETag() {
+        assertTrue(fileLedgerService.findCompleted(new S3ObjectInfo(10_000, null)).isEmpty());
+        verifyNoInteractions(ledgerRepository);
+    }
+
+    @Test
+    void claim_shouldUpsertRunningEntryForTheJob() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+
+        assertTrue(fileLedgerService.claim(job, OBJECT).isEmpty());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(FileLedgerEntry.class));
+        assertEquals(OBJECT.getETag(), query.getValue().getQueryObject().get("_id"));
+        assertEquals("job-1", update.getValue().getUpdateObject().get("$set", Document.class).get("job_id"));
+        assertEquals(JobState.RUNNING, update.getValue().getUpdateObject().get("$set", Document.class).get("state"));
+    }
+
+    @Test
+    void claim_shouldReturnHolderWhenAnotherRunHoldsTheContent() {
+        InvoiceJob job = new InvoiceJob("job-2", TEST_FILE_NAME);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(FileLedgerEntry.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        FileLedgerEntry holder = entry(JobState.RUNNING);
+        holder.setJobId("job-1");
+        when(ledgerRepository.findById(OBJECT.getETag())).thenReturn(Optional.of(holder));
+
+        Optional<FileLedgerEntry> claimed = fileLedgerService.claim(job, OBJECT);
+
+        assertTrue(claimed.isPresent());
+        assertEquals("job-1", claimed.get().getJobId());
+    }
+
+    @Test
+    void claim_shouldNotTouchMongoWhenDisabled() {
+        ReflectionTestUtils.setField(fileLedgerService, "enabled", false);
+
+        assertTrue(fileLedgerService.claim(new InvoiceJob("job-1", TEST_FILE_NAME), OBJECT).isEmpty());
+        verifyNoInteractions(mongoTemplate, ledgerRepository);
+    }
+
+    @Test
+    void abandon_shouldOnlyRemoveTheJobsOwnClaim() {
+        fileLedgerService.abandon(new InvoiceJob("job-1", TEST_FILE_NAME), OBJECT);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(query.capture(), eq(FileLedgerEntry.class));
+        assertEquals("job-1", query.getValue().getQueryObject().get("job_id"));
+    }
+
+    @Test
+    void record_shouldStoreStateAndCountsUnderTheETag() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        job.getResult().incrementLinesRead(3);
+        job.getResult().incrementPersistedCount(3);
+        job.getResult().incrementSuccessCount(3);
+        job.complete();
+
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(FileLedgerEntry.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        fileLedgerService.record(job, OBJECT);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(FileLedgerEntry.class));
+        assertEquals(OBJECT.getETag(), query.getValue().getQueryObject().get("_id"));
+        assertEquals("job-1", query.getValue().getQueryObject().get("job_id"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(TEST_FILE_NAME, set.get("filename"));
+        assertEquals(JobState.COMPLETED, set.get("state"));
+        assertEquals(3, set.get("published"));
+        assertNotNull(set.get("updated_at"));
+    }
+
+    @Test
+    void refreshClaims_shouldKeepHeldClaimsAliveUntilTheJobIsRecorded() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(FileLedgerEntry.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        fileLedgerService.claim(job, OBJECT);
+
+        fileLedgerService.refreshClaims();
+
+        ArgumentCaptor<Query> refreshed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(refreshed.capture(), any(Update.class), eq(FileLedgerEntry.class));
+        assertEquals("job-1", refreshed.getValue().getQueryObject().get("job_id"));
+        assertEquals(JobState.RUNNING, refreshed.getValue().getQueryObject().get("state"));
+
+        job.complete();
+        fileLedgerService.record(job, OBJECT);
+        fileLedgerService.refreshClaims();
+
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(FileLedgerEntry.class));
+    }
+
+    @Test
+    void record_shouldNotOverwriteTheRunThatTookOverTheClaim() {
+        InvoiceJob stale = new InvoiceJob("job-1", TEST_FILE_NAME);
+        stale.complete();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(FileLedgerEntry.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        fileLedgerService.record(stale, OBJECT);
+
+        verify(ledgerRepository, never()).save(any());
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(FileLedgerEntry.class));
+    }
+
+    @Test
+    void record_shouldDoNothingWhenDisabled() {
+        ReflectionTestUtils.setField(fileLedgerService, "enabled", false);
+
+        fileLedgerService.record(new InvoiceJob("job-1", TEST_FILE_NAME), OBJECT);
+
+        verifyNoInteractions(mongoTemplate, ledgerRepository);
+    }
+
+    private static FileLedgerEntry entry(JobState state) {
+        return FileLedgerEntry.builder()
+                .eTag(OBJECT.getETag())
+                .filename(TEST_FILE_NAME)
+                .state(state)
+                .build();
+    }
+}
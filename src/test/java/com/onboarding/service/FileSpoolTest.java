@@ -0,0 +1,184 @@
+package com.onboarding.service;
+
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.service.aws.S3Service;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileSpoolTest {
+
+    private static final String FIRST = "invoice_20250301.csv";
+    private static final String SECOND = "invoice_20250302.csv";
+
+    @TempDir
+    Path spoolDir;
+
+    @Mock
+    private S3Service s3Service;
+    @Spy
+    private ResourceLimits resourceLimits = new ResourceLimits(1, 4, 1);
+    @InjectMocks
+    private FileSpool fileSpool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(fileSpool, "enabled", true);
+        ReflectionTestUtils.setField(fileSpool, "dir", spoolDir.toString());
+        ReflectionTestUtils.setField(fileSpool, "maxBytes", 10L);
+        ReflectionTestUtils.setField(fileSpool, "prefetchDepth", 2);
+        fileSpool.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileSpool.shutdown();
+    }
+
+    @Test
+    void init_shouldRemoveFilesLeftByAnEarlierRun() throws IOException {
+        Path leftover = Files.writeString(spoolDir.resolve("spool-123.csv"), "stale");
+
+        fileSpool.init();
+
+        assertFalse(Files.exists(leftover));
+    }
+
+    @Test
+    void acquire_shouldServePrefetchedFileAndDeleteItOnClose() throws Exception {
+        stubDownload(FIRST, "a|;b\n");
+
+        fileSpool.prefetch(FIRST, 5);
+        Path path;
+        try (FileSpool.SpooledFile file = fileSpool.acquire(FIRST)) {
+            path = file.getPath();
+            assertEquals("a|;b\n", Files.readString(path));
+            assertEquals(5, fileSpool.getUsedBytes());
+        }
+
+        assertFalse(Files.exists(path));
+        assertEquals(0, fileSpool.getUsedBytes());
+        verify(s3Service, times(1)).downloadTo(eq(FIRST), any());
+        verify(s3Service, never()).getObjectSize(any());
+    }
+
+    @Test
+    void prefetch_shouldStayWithinDepthAndDiskBudget() {
+        CountDownLatch release = new CountDownLatch(1);
+        // the prefetches may not have reached S3 by the time the test ends
+        lenient().when(s3Service.downloadTo(any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+
+        fileSpool.prefetch(FIRST, 6);
+        fileSpool.prefetch(SECOND, 6);
+        fileSpool.prefetch(FIRST, 1);
+        assertEquals(1, fileSpool.getPrefetchedCount());
+
+        ReflectionTestUtils.setField(fileSpool, "maxBytes", 100L);
+        fileSpool.prefetch(SECOND, 6);
+        fileSpool.prefetch("invoice_20250303.csv", 6);
+        assertEquals(2, fileSpool.getPrefetchedCount());
+        assertEquals(12, fileSpool.getUsedBytes());
+        release.countDown();
+    }
+
+    @Test
+    void acquire_shouldEvictNewestUnclaimedPrefetchWhenOverBudget() throws Exception {
+        fileSpool.shutdown();
+        ExecutorService downloads = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(fileSpool, "executor", downloads);
+        stubDownload(FIRST, "first\n");
+        stubDownload(SECOND, "second\n");
+        stubDownload("invoice_20250303.csv", "third\n");
+        when(s3Service.getObjectSize("invoice_20250303.csv")).thenReturn(4L);
+        fileSpool.prefetch(FIRST, 5);
+        fileSpool.prefetch(SECOND, 5);
+        downloads.submit(() -> { }).get();
+
+        try (FileSpool.SpooledFile third = fileSpool.acquire("invoice_20250303.csv")) {
+            assertEquals("third\n", Files.readString(third.getPath()));
+            assertEquals(1, fileSpool.getPrefetchedCount());
+            assertEquals(9, fileSpool.getUsedBytes());
+        }
+        try (FileSpool.SpooledFile first = fileSpool.acquire(FIRST)) {
+            assertEquals("first\n", Files.readString(first.getPath()));
+        }
+        verify(s3Service, times(1)).downloadTo(eq(FIRST), any());
+        verify(s3Service, never()).getObjectSize(FIRST);
+    }
+
+    @Test
+    void acquire_shouldDownloadAgainWhenPrefetchFailed() throws Exception {
+        when(s3Service.downloadTo(eq(FIRST), any()))
+                .thenThrow(new UncheckedIOException(new IOException("Connection reset")))
+                .thenAnswer(invocation -> {
+                    Files.writeString(invocation.getArgument(1, Path.class), "retried\n");
+                    return 8L;
+                });
+        when(s3Service.getObjectSize(FIRST)).thenReturn(8L);
+
+        fileSpool.prefetch(FIRST, 8);
+        try (FileSpool.SpooledFile file = fileSpool.acquire(FIRST)) {
+            assertEquals("retried\n", Files.readString(file.getPath()));
+            assertEquals(8, fileSpool.getUsedBytes());
+        }
+        assertEquals(0, fileSpool.getUsedBytes());
+    }
+
+    @Test
+    void release_shouldDropUnclaimedPrefetchAndFreeItsSlot() throws Exception {
+        fileSpool.shutdown();
+        ExecutorService downloads = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(fileSpool, "executor", downloads);
+        stubDownload(FIRST, "first\n");
+        stubDownload(SECOND, "second\n");
+        fileSpool.prefetch(FIRST, 5);
+        fileSpool.prefetch(SECOND, 5);
+        downloads.submit(() -> { }).get();
+
+        // the job of FIRST failed before it acquired its file
+        fileSpool.release(FIRST);
+        fileSpool.release("invoice_20250303.csv");
+
+        assertEquals(1, fileSpool.getPrefetchedCount());
+        assertEquals(5, fileSpool.getUsedBytes());
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            assertEquals(1, files.count());
+        }
+        fileSpool.prefetch("invoice_20250303.csv", 5);
+        assertEquals(2, fileSpool.getPrefetchedCount());
+        downloads.shutdownNow();
+    }
+
+    private void stubDownload(String key, String content) {
+        when(s3Service.downloadTo(eq(key), any())).thenAnswer(invocation -> {
+            Files.writeString(invocation.getArgument(1, Path.class), content);
+            return (long) content.length();
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.InvoiceJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryJobRegistryTest {
+
+    private InMemoryJobRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InMemoryJobRegistry();
+        ReflectionTestUtils.setField(registry, "maxSize", 2);
+    }
+
+    @Test
+    void register_shouldMakeJobFindable() {
+        InvoiceJob job = registry.register("invoice_20250301.csv");
+
+        assertSame(job, registry.find(job.getId()).orElseThrow());
+        assertTrue(registry.find("unknown").isEmpty());
+    }
+
+    @Test
+    void register_shouldEvictOldestFinishedJobWhenFull() {
+        InvoiceJob running = registry.register("invoice_20250301.csv");
+        InvoiceJob finished = registry.register("invoice_20250302.csv");
+        finished.complete();
+
+        InvoiceJob newest = registry.register("invoice_20250303.csv");
+
+        assertTrue(registry.find(running.getId()).isPresent());
+        assertTrue(registry.find(finished.getId()).isEmpty());
+        assertTrue(registry.find(newest.getId()).isPresent());
+    }
+}
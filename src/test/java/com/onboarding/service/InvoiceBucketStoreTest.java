@@ -0,0 +1,169 @@
+package com.onboarding.service;
+
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.dto.BatchSaveResult;
+import com.onboarding.dto.BucketCursor;
+import com.onboarding.dto.CursorPage;
+import com.onboarding.entity.Invoice;
+import com.onboarding.entity.InvoiceBucket;
+import com.onboarding.exception.InvoiceProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceBucketStoreTest {
+
+    private static final String ACCOUNT_ID = "ACC001";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private BulkOperations bulkOperations;
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+    @InjectMocks
+    private InvoiceBucketStore bucketStore;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bucketStore, "bucketSize", 2);
+        ReflectionTestUtils.setField(bucketStore, "exportCursorBatchSize", 10);
+    }
+
+    @Test
+    void insertAll_shouldAppendBucketSizedChunksAndReportDuplicates() {
+        List<Invoice> invoices = List.of(
+                invoice("BILL-1", LocalDate.of(2025, 1, 5)),
+                invoice("BILL-2", LocalDate.of(2025, 1, 9)),
+                invoice("BILL-3", LocalDate.of(2025, 1, 2)),
+                invoice("BILL-2", LocalDate.of(2025, 1, 9)),
+                invoice("BILL-OLD", LocalDate.of(2025, 2, 1)));
+        when(mongoTemplate.find(any(Query.class), eq(InvoiceBucket.class)))
+                .thenReturn(List.of(bucket("b0", "2025-02", "BILL-OLD")));
+        when(mongoTemplate.bulkOps(BulkMode.UNORDERED, InvoiceBucket.class)).thenReturn(bulkOperations);
+
+        BatchSaveResult result = bucketStore.insertAll(invoices);
+
+        assertEquals(3, result.getInsertedCount());
+        assertTrue(result.isDuplicate(3));
+        assertTrue(result.isDuplicate(4));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).upsert(query.capture(), update.capture());
+        assertEquals(0, query.getAllValues().get(0).getQueryObject().get("count", Document.class).get("$lte"));
+        assertEquals(1, query.getAllValues().get(1).getQueryObject().get("count", Document.class).get("$lte"));
+        assertEquals(LocalDate.of(2025, 1, 5),
+                update.getAllValues().get(0).getUpdateObject().get("$min", Document.class).get("firstIssueDate"));
+        assertTrue(invoices.stream().limit(3).allMatch(invoice -> invoice.getId() != null));
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    void insertAll_withOnlyDuplicates_shouldNotWrite() {
+        when(mongoTemplate.find(any(Query.class), eq(InvoiceBucket.class)))
+                .thenReturn(List.of(bucket("b0", "2025-01", "BILL-1")));
+
+        BatchSaveResult result = bucketStore.insertAll(List.of(invoice("BILL-1", LocalDate.of(2025, 1, 5))));
+
+        assertEquals(0, result.getInsertedCount());
+        assertTrue(result.isDuplicate(0));
+        verify(mongoTemplate, never()).bulkOps(any(BulkMode.class), eq(InvoiceBucket.class));
+    }
+
+    @Test
+    void findByAccountId_shouldFetchOnlyTheBucketsThePageSpans() {
+        List<InvoiceBucket> headers = List.of(header("b1", "2025-01", 2), header("b2", "2025-01", 2), header("b3", "2025-02", 2));
+        when(mongoTemplate.find(any(Query.class), eq(InvoiceBucket.class)))
+                .thenReturn(headers, List.of(bucket("b2", "2025-01", "BILL-3", "BILL-4"), bucket("b3", "2025-02", "BILL-5", "BILL-6")));
+
+        Page<Invoice> page = bucketStore.findByAccountId(ACCOUNT_ID, PageRequest.of(1, 3));
+
+        assertEquals(6, page.getTotalElements());
+        assertEquals(List.of("BILL-4", "BILL-5", "BILL-6"), page.getContent().stream().map(Invoice::getBillId).toList());
+        assertEquals(ACCOUNT_ID, page.getContent().get(0).getAccountId());
+    }
+
+    @Test
+    void findByAccountIdAfter_shouldContinueAfterTheCursorAndPointAtTheLastInvoice() {
+        when(mongoTemplate.stream(any(Query.class), eq(InvoiceBucket.class))).thenReturn(Stream.of(
+                bucket("b1", "2025-01", "BILL-1", "BILL-2"),
+                bucket("b2", "2025-02", "BILL-3", "BILL-4")));
+
+        CursorPage<Invoice> page = bucketStore.findByAccountIdAfter(ACCOUNT_ID,
+                new BucketCursor("2025-01", "b1", 0).encode(), 2);
+
+        assertEquals(List.of("BILL-2", "BILL-3"), page.getContent().stream().map(Invoice::getBillId).toList());
+        assertEquals(new BucketCursor("2025-02", "b2", 0), BucketCursor.decode(page.getNextToken()));
+    }
+
+    @Test
+    void findByAccountIdAfter_onTheLastPage_shouldNotReturnToken() {
+        when(mongoTemplate.stream(any(Query.class), eq(InvoiceBucket.class)))
+                .thenReturn(Stream.of(bucket("b1", "2025-01", "BILL-1", "BILL-2")));
+
+        CursorPage<Invoice> page = bucketStore.findByAccountIdAfter(ACCOUNT_ID, null, 2);
+
+        assertEquals(2, page.getSize());
+        assertNull(page.getNextToken());
+    }
+
+    @Test
+    void findByAccountIdAfter_withMalformedToken_shouldThrow() {
+        assertThrows(InvoiceProcessingException.class, () -> bucketStore.findByAccountIdAfter(ACCOUNT_ID, "not-a-token", 2));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static Invoice invoice(String billId, LocalDate issueDate) {
+        return Invoice.builder()
+                .billId(billId)
+                .accountId(ACCOUNT_ID)
+                .issueDate(issueDate)
+                .grossAmount(new BigDecimal("120.00"))
+                .build();
+    }
+
+    private static InvoiceBucket header(String id, String month, int count) {
+        return InvoiceBucket.builder().id(id).month(month).count(count).build();
+    }
+
+    private static InvoiceBucket bucket(String id, String month, String... billIds) {
+        List<InvoiceBucket.Entry> entries = new ArrayList<>();
+        for (String billId : billIds) {
+            entries.add(InvoiceBucket.Entry.builder().id(billId.toLowerCase()).billId(billId).build());
+        }
+        return InvoiceBucket.builder()
+                .id(id)
+                .accountId(ACCOUNT_ID)
+                .month(month)
+                .count(entries.size())
+                .invoices(entries)
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.onboarding.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.onboarding.dto.ExportFormat;
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.entity.Invoice;
+import com.onboarding.mapper.InvoiceDTOMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceExportServiceTest {
+
+    private static final String ACCOUNT_ID = "1234567890";
+
+    @Mock
+    private MongoService mongoService;
+    private InvoiceExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new InvoiceExportService(mongoService, Mappers.getMapper(InvoiceDTOMapper.class), objectMapper);
+    }
+
+    @Test
+    void export_ndjson_shouldWriteOneJsonObjectPerLineAndCloseCursor() throws Exception {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(mongoService.streamInvoicesByAccountId(ACCOUNT_ID))
+                .thenReturn(Stream.of(invoice("9999999999"), invoice("9999999998")).onClose(() -> closed.set(true)));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ACCOUNT_ID, ExportFormat.NDJSON, false).writeTo(out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals("9999999999", first.get("billId").asText());
+        assertEquals("2024-01-03", first.get("issueDate").asText());
+        assertEquals("9999999998", new ObjectMapper().readTree(lines[1]).get("billId").asText());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void export_csv_shouldUseIngestionDelimiterAndDateFormat() throws Exception {
+        // Given
+        when(mongoService.streamInvoicesByAccountId(ACCOUNT_ID)).thenReturn(Stream.of(invoice("9999999999")));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ACCOUNT_ID, ExportFormat.CSV, false).writeTo(out);
+
+        // Then
+        assertEquals("9999999999|;1234567890|;03.01.2024|;26.11.2023|;25.12.2023|;XXX GmbH|;183.97|;154.60|;29.37\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_csv_shouldWriteMissingValuesEmptyAndQuoteValuesThatBreakTheRow() throws Exception {
+        // Given
+        Invoice invoice = invoice("9999999999");
+        invoice.setName("XXX |; \"Holding\"\nGmbH");
+        invoice.setBillPeriodFrom(null);
+        invoice.setTaxAmount(null);
+        when(mongoService.streamInvoicesByAccountId(ACCOUNT_ID)).thenReturn(Stream.of(invoice));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ACCOUNT_ID, ExportFormat.CSV, false).writeTo(out);
+
+        // Then
+        assertEquals("9999999999|;1234567890|;03.01.2024|;|;25.12.2023|;\"XXX |; \"\"Holding\"\"\nGmbH\"|;183.97|;154.60|;\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_gzip_shouldWriteCompleteGzipStream() throws Exception {
+        // Given
+        when(mongoService.streamInvoicesByAccountId(ACCOUNT_ID)).thenReturn(Stream.of(invoice("9999999999")));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ACCOUNT_ID, ExportFormat.CSV, true).writeTo(out);
+
+        // Then
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).startsWith("9999999999|;"));
+        }
+    }
+
+    @Test
+    void export_shouldWriteNothingForAccountWithoutInvoices() throws Exception {
+        when(mongoService.streamInvoicesByAccountId(ACCOUNT_ID)).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ACCOUNT_ID, ExportFormat.NDJSON, false).writeTo(out);
+
+        assertEquals(0, out.size());
+    }
+
+    private static Invoice invoice(String billId) {
+        return Invoice.builder()
+                .billId(billId)
+                .accountId(ACCOUNT_ID)
+                .issueDate(LocalDate.of(2024, 1, 3))
+                .billPeriodFrom(LocalDate.of(2023, 11, 26))
+                .billPeriodTo(LocalDate.of(2023, 12, 25))
+                .name("XXX GmbH")
+                .grossAmount(new BigDecimal("183.97"))
+                .netAmount(new BigDecimal("154.60"))
+                .taxAmount(new BigDecimal("29.37"))
+                .build();
+    }
+}
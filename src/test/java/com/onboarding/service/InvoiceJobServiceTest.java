@@ -0,0 +1,298 @@
+package com.onboarding.service;
+
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.dto.InvoiceJob;
+import com.onboarding.dto.JobState;
+import com.onboarding.dto.JobStatus;
+import com.onboarding.dto.ProcessResult;
+import com.onboarding.dto.S3ObjectInfo;
+import com.onboarding.entity.FileLedgerEntry;
+import com.onboarding.exception.FileRejectedException;
+import com.onboarding.exception.InvoiceProcessingException;
+import com.onboarding.exception.JobConflictException;
+import com.onboarding.exception.JobRejectedException;
+import com.onboarding.exception.ResourceNotFoundException;
+import com.onboarding.service.aws.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceJobServiceTest {
+
+    private static final String TEST_FILE_NAME = "invoice_20250301.csv";
+
+    @Mock
+    private InvoiceService invoiceService;
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private JobRegistry jobRegistry;
+    @Mock
+    private FileSpool fileSpool;
+    @Mock
+    private FileLedgerService fileLedger;
+    @Mock
+    private AccountSummaryService accountSummaryService;
+    @Spy
+    private ResourceLimits resourceLimits = new ResourceLimits(1, 1, 1);
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+    @Spy
+    private Resilience resilience = Resilience.passThrough();
+    @InjectMocks
+    private InvoiceJobService invoiceJobService;
+
+    private final S3ObjectInfo object = new S3ObjectInfo(2048L, "\"etag\"");
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(s3Service.getObjectInfo(TEST_FILE_NAME)).thenReturn(object);
+    }
+
+    @Test
+    void submit_shouldReturnQueuedJobWithoutWaiting() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult())).thenReturn(new CompletableFuture<>());
+
+        JobStatus status = invoiceJobService.submit(TEST_FILE_NAME);
+
+        InOrder queued = inOrder(fileSpool, invoiceService);
+        queued.verify(fileSpool).prefetch(TEST_FILE_NAME, 2048L);
+        queued.verify(invoiceService).processFileAsync(TEST_FILE_NAME, job.getResult());
+        verify(fileSpool, never()).release(anyString());
+        assertEquals("job-1", status.getId());
+        assertEquals(JobState.QUEUED, status.getState());
+        assertNull(status.getFinishedAt());
+    }
+
+    @Test
+    void submit_shouldMarkJobCompletedWhenProcessingFinishes() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        CompletableFuture<ProcessResult> processing = new CompletableFuture<>();
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult())).thenReturn(processing);
+
+        invoiceJobService.submit(TEST_FILE_NAME);
+        job.getResult().incrementLinesRead(2);
+        assertEquals(JobState.RUNNING, job.getState());
+
+        job.getResult().incrementSuccessCount(2);
+        processing.complete(job.getResult());
+
+        assertEquals(JobState.COMPLETED, job.getState());
+        assertNotNull(job.getFinishedAt());
+        verify(fileLedger).record(job, object);
+        verify(accountSummaryService).rebuildMarked();
+    }
+
+    @Test
+    void submit_shouldSkipContentThatWasAlreadyIngested() {
+        InvoiceJob job = new InvoiceJob("job-2", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(fileLedger.findCompleted(object)).thenReturn(Optional.of(FileLedgerEntry.builder()
+                .eTag(object.getETag())
+                .filename("invoice_20250228.csv")
+                .state(JobState.COMPLETED)
+                .build()));
+
+        JobStatus status = invoiceJobService.submit(TEST_FILE_NAME);
+
+        assertEquals(JobState.SKIPPED, status.getState());
+        assertNotNull(status.getFinishedAt());
+        assertTrue(status.getFailureMessage().contains("invoice_20250228.csv"));
+        verify(invoiceService, never()).processFileAsync(anyString(), any());
+        verify(fileSpool, never()).prefetch(anyString(), anyLong());
+        assertTrue(resourceLimits.tryAcquireFile());
+    }
+
+    @Test
+    void submit_shouldRecordFailedJobsInTheLedger() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult()))
+                .thenReturn(CompletableFuture.failedFuture(new InvoiceProcessingException("DB Save error")));
+        doThrow(new RuntimeException("Mongo unavailable")).when(fileLedger).record(job, object);
+
+        invoiceJobService.submit(TEST_FILE_NAME);
+
+        assertEquals(JobState.FAILED, job.getState());
+        assertTrue(resourceLimits.tryAcquireFile());
+    }
+
+    @Test
+    void submit_shouldMarkJobFailedWithRootCause() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult()))
+                .thenReturn(CompletableFuture.failedFuture(new InvoiceProcessingException("DB Save error")));
+
+        invoiceJobService.submit(TEST_FILE_NAME);
+
+        assertEquals(JobState.FAILED, job.getState());
+        assertEquals("DB Save error", job.getFailureMessage());
+        verify(fileSpool).release(TEST_FILE_NAME);
+    }
+
+    @Test
+    void submit_shouldMarkJobRejectedWhenFileHasTooManyErrors() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult()))
+                .thenReturn(CompletableFuture.failedFuture(new FileRejectedException("Rejected after 5 errors")));
+
+        invoiceJobService.submit(TEST_FILE_NAME);
+
+        assertEquals(JobState.REJECTED, job.getState());
+        assertTrue(job.isFinished());
+        assertEquals("Rejected after 5 errors", job.getFailureMessage());
+    }
+
+    @Test
+    void submit_shouldRejectMissingFileBeforeRegistering() {
+        when(s3Service.getObjectInfo(TEST_FILE_NAME)).thenThrow(new ResourceNotFoundException("S3 access failed"));
+
+        assertThrows(ResourceNotFoundException.class, () -> invoiceJobService.submit(TEST_FILE_NAME));
+        verify(jobRegistry, never()).register(anyString());
+        verify(invoiceService, never()).processFileAsync(anyString(), any());
+    }
+
+    @Test
+    void submit_shouldRejectWhenFileLimitIsReached() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult())).thenReturn(new CompletableFuture<>());
+        invoiceJobService.submit(TEST_FILE_NAME);
+
+        JobRejectedException ex = assertThrows(JobRejectedException.class,
+                () -> invoiceJobService.submit(TEST_FILE_NAME));
+        assertEquals("Too many invoice files in progress, try again later", ex.getMessage());
+        verify(jobRegistry, times(1)).register(TEST_FILE_NAME);
+    }
+
+    @Test
+    void submit_shouldRejectWhileACircuitIsOpen() {
+        doReturn(true).when(resilience).isIngestPaused();
+        doReturn(List.of("mongo")).when(resilience).openCircuits();
+
+        JobRejectedException ex = assertThrows(JobRejectedException.class,
+                () -> invoiceJobService.submit(TEST_FILE_NAME));
+        assertEquals("Ingestion is paused while mongo is unavailable, try again later", ex.getMessage());
+        verify(ingestionMetrics).recordJobRejected("dependency-unavailable");
+        verifyNoInteractions(jobRegistry, invoiceService);
+        assertTrue(resourceLimits.tryAcquireFile());
+    }
+
+    @Test
+    void submit_shouldNotRebuildSummariesWhileOtherFilesAreInProgress() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        CompletableFuture<ProcessResult> processing = new CompletableFuture<>();
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult())).thenReturn(processing);
+        doReturn(1).when(resourceLimits).filesInProgress();
+
+        invoiceJobService.submit(TEST_FILE_NAME);
+        processing.complete(job.getResult());
+
+        verify(accountSummaryService, never()).rebuildMarked();
+    }
+
+    @Test
+    void submit_shouldReleasePermitWhenJobFinishes() {
+        InvoiceJob first = new InvoiceJob("job-1", TEST_FILE_NAME);
+        InvoiceJob second = new InvoiceJob("job-2", TEST_FILE_NAME);
+        CompletableFuture<ProcessResult> processing = new CompletableFuture<>();
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(first, second);
+        when(invoiceService.processFileAsync(eq(TEST_FILE_NAME), any()))
+                .thenReturn(processing, new CompletableFuture<>());
+
+        invoiceJobService.submit(TEST_FILE_NAME);
+        processing.complete(first.getResult());
+
+        assertEquals("job-2", invoiceJobService.submit(TEST_FILE_NAME).getId());
+    }
+
+    @Test
+    void submit_shouldTurnExecutorRejectionIntoJobRejection() {
+        InvoiceJob job = new InvoiceJob("job-1", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(job);
+        when(invoiceService.processFileAsync(TEST_FILE_NAME, job.getResult()))
+                .thenThrow(new TaskRejectedException("Executor did not accept task"));
+
+        assertThrows(JobRejectedException.class, () -> invoiceJobService.submit(TEST_FILE_NAME));
+        assertTrue(resourceLimits.tryAcquireFile());
+        verify(fileSpool).release(TEST_FILE_NAME);
+        verify(fileLedger).abandon(job, object);
+    }
+
+    @Test
+    void submit_shouldReturnRunningJobWhenSameContentIsAlreadyClaimed() {
+        InvoiceJob running = new InvoiceJob("job-1", "invoice_20250228.csv");
+        InvoiceJob duplicate = new InvoiceJob("job-2", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(duplicate);
+        when(fileLedger.claim(duplicate, object)).thenReturn(Optional.of(holder("job-1")));
+        when(jobRegistry.find("job-1")).thenReturn(Optional.of(running));
+
+        JobStatus status = invoiceJobService.submit(TEST_FILE_NAME);
+
+        assertEquals("job-1", status.getId());
+        assertEquals(JobState.SKIPPED, duplicate.getState());
+        verify(invoiceService, never()).processFileAsync(anyString(), any());
+        verify(fileSpool, never()).prefetch(anyString(), anyLong());
+        assertTrue(resourceLimits.tryAcquireFile());
+    }
+
+    @Test
+    void submit_shouldConflictWhenSameContentIsClaimedByAnotherInstance() {
+        InvoiceJob duplicate = new InvoiceJob("job-2", TEST_FILE_NAME);
+        when(jobRegistry.register(TEST_FILE_NAME)).thenReturn(duplicate);
+        when(fileLedger.claim(duplicate, object)).thenReturn(Optional.of(holder("job-elsewhere")));
+        when(jobRegistry.find("job-elsewhere")).thenReturn(Optional.empty());
+
+        JobConflictException ex = assertThrows(JobConflictException.class,
+                () -> invoiceJobService.submit(TEST_FILE_NAME));
+
+        assertTrue(ex.getMessage().contains("job-elsewhere"));
+        verify(invoiceService, never()).processFileAsync(anyString(), any());
+        assertTrue(resourceLimits.tryAcquireFile());
+    }
+
+    @Test
+    void getStatus_shouldThrowForUnknownJob() {
+        when(jobRegistry.find("missing")).thenReturn(Optional.empty());
+
+        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class,
+                () -> invoiceJobService.getStatus("missing"));
+        assertEquals("Job not found: missing", ex.getMessage());
+    }
+
+    private FileLedgerEntry holder(String jobId) {
+        return FileLedgerEntry.builder()
+                .eTag(object.getETag())
+                .jobId(jobId)
+                .filename("invoice_20250228.csv")
+                .state(JobState.RUNNING)
+                .build();
+    }
+}
@@ -0,0 +1,163 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.LineBatch;
+import com.onboarding.exception.InvoiceProcessingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoicePipelineTest {
+
+    private InvoicePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new InvoicePipeline();
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 1);
+        ReflectionTestUtils.setField(pipeline, "parseWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "persistWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "publishWorkers", 2);
+        pipeline.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void run_shouldPassEveryBatchThroughAllStages() {
+        AtomicInteger parsed = new AtomicInteger();
+        AtomicInteger persisted = new AtomicInteger();
+        AtomicInteger published = new AtomicInteger();
+
+        InvoicePipeline.Run run = pipeline.start("invoice_20250301.csv",
+                lines -> {
+                    parsed.addAndGet(lines.getLines().size());
+                    return toDtos(lines);
+                },
+                dtos -> {
+                    persisted.addAndGet(dtos.size());
+                    return dtos;
+                },
+                dtos -> published.addAndGet(dtos.size()));
+
+        for (int i = 0; i < 50; i++) {
+            run.submit(new LineBatch(i * 3 + 1, List.of("a", "b", "c")));
+        }
+        run.finish();
+
+        assertEquals(150, parsed.get());
+        assertEquals(150, persisted.get());
+        assertEquals(150, published.get());
+    }
+
+    @Test
+    void run_shouldSkipEmptyBatches() {
+        AtomicInteger persistCalls = new AtomicInteger();
+
+        InvoicePipeline.Run run = pipeline.start("invoice_20250301.csv",
+                lines -> Collections.emptyList(),
+                dtos -> {
+                    persistCalls.incrementAndGet();
+                    return dtos;
+                },
+                dtos -> { });
+
+        run.submit(new LineBatch(1, List.of("invalid")));
+        run.finish();
+
+        assertEquals(0, persistCalls.get());
+    }
+
+    @Test
+    void run_shouldCommitEverySourceBatchIncludingEmptyOnes() {
+        List<Integer> committed = Collections.synchronizedList(new ArrayList<>());
+
+        InvoicePipeline.Run run = pipeline.start("invoice_20250301.csv",
+                lines -> lines.getFirstLineNumber() % 2 == 0 ? Collections.emptyList() : toDtos(lines),
+                dtos -> dtos,
+                dtos -> { },
+                lines -> committed.add(lines.getFirstLineNumber()));
+
+        for (int i = 1; i <= 20; i++) {
+            run.submit(new LineBatch(i, List.of("line")));
+        }
+        run.finish();
+
+        Collections.sort(committed);
+        assertEquals(IntStream.rangeClosed(1, 20).boxed().toList(), committed);
+    }
+
+    @Test
+    void run_shouldRethrowStageFailure() {
+        InvoicePipeline.Run run = pipeline.start("invoice_20250301.csv",
+                InvoicePipelineTest::toDtos,
+                dtos -> {
+                    throw new InvoiceProcessingException("DB Save error");
+                },
+                dtos -> fail("Nothing should be published"));
+
+        InvoiceProcessingException ex = assertThrows(InvoiceProcessingException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                run.submit(new LineBatch(i + 1, List.of("line")));
+            }
+            run.finish();
+        });
+        assertEquals("DB Save error", ex.getMessage());
+    }
+
+    @Test
+    void submit_shouldBlockWhenDownstreamIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        InvoicePipeline.Run run = pipeline.start("invoice_20250301.csv",
+                InvoicePipelineTest::toDtos,
+                dtos -> {
+                    await(release);
+                    return dtos;
+                },
+                dtos -> { });
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20; i++) {
+                run.submit(new LineBatch(i + 1, List.of("line")));
+            }
+        });
+
+        assertThrows(TimeoutException.class, () -> producer.get(300, TimeUnit.MILLISECONDS));
+        release.countDown();
+        producer.get(5, TimeUnit.SECONDS);
+        run.finish();
+    }
+
+    private static List<InvoiceDTO> toDtos(LineBatch lines) {
+        List<InvoiceDTO> dtos = new ArrayList<>();
+        int lineNumber = lines.getFirstLineNumber();
+        for (String ignored : lines.getLines()) {
+            dtos.add(InvoiceDTO.builder().lineNumber(lineNumber++).build());
+        }
+        return dtos;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
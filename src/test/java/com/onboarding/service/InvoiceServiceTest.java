@@ -1,31 +1,53 @@
 package com.onboarding.service;
 
 import com.mongodb.MongoException;
+import com.onboarding.component.AccountCacheInvalidator;
+import com.onboarding.component.AdaptiveBatchSize;
 import com.onboarding.component.CSVParser;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.dto.BatchSaveResult;
+import com.onboarding.dto.ErrorCategory;
 import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.LineBatch;
+import com.onboarding.dto.ProcessError;
 import com.onboarding.dto.ProcessResult;
+import com.onboarding.dto.PublishResult;
 import com.onboarding.dto.SQSMessage;
 import com.onboarding.entity.Invoice;
+import com.onboarding.exception.FileRejectedException;
 import com.onboarding.exception.InvoiceProcessingException;
 import com.onboarding.mapper.InvoiceMapper;
 import com.onboarding.mapper.SQSMessageMapper;
+import com.onboarding.repo.FileCheckpointRepository;
+import com.onboarding.service.aws.S3RangedReader;
 import com.onboarding.service.aws.S3Service;
 import com.onboarding.service.aws.SqsService;
 import com.onboarding.exception.MessageProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.ResourceUtils;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -47,6 +69,26 @@ class InvoiceServiceTest {
     private SQSMessageMapper sqsMessageMapper;
     @Mock
     private SqsService sqsService;
+    @Mock
+    private S3RangedReader s3RangedReader;
+    @Mock
+    private CheckpointService checkpointService;
+    @Mock
+    private AccountCacheInvalidator accountCacheInvalidator;
+    @Mock
+    private AccountSummaryService accountSummaryService;
+    @Mock
+    private ErrorReportService errorReportService;
+    @Spy
+    private MappedFileReader mappedFileReader = new MappedFileReader();
+    @Mock
+    private FileSpool fileSpool;
+    @Mock
+    private AdaptiveBatchSize adaptiveBatchSize;
+    @Spy
+    private ResourceLimits resourceLimits = new ResourceLimits(1, 1, 1);
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
     @InjectMocks
     private InvoiceService invoiceService;
     private static final String TEST_FILE_NAME = "invoice_20250301.csv";
@@ -58,13 +100,30 @@ class InvoiceServiceTest {
         ReflectionTestUtils.setField(invoiceService, "batchSize", BATCH_SIZE);
     }
 
+    private void enableFailFast(int minLines, int maxErrors) {
+        ReflectionTestUtils.setField(invoiceService, "failFast", true);
+        ReflectionTestUtils.setField(invoiceService, "failFastMinLines", minLines);
+        ReflectionTestUtils.setField(invoiceService, "failFastWindowLines", 10_000);
+        ReflectionTestUtils.setField(invoiceService, "failFastMaxErrorRate", 0.2);
+        ReflectionTestUtils.setField(invoiceService, "failFastMaxErrors", maxErrors);
+    }
+
+    @Test
+    void getTotals_shouldRejectRangeEndingBeforeItStarts() {
+        InvoiceProcessingException ex = assertThrows(InvoiceProcessingException.class,
+                () -> invoiceService.getTotals("ACC1", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 2, 1)));
+
+        assertEquals("from must not be after to", ex.getMessage());
+        verifyNoInteractions(mongoService);
+    }
+
     @Test
     void processFileAsync_shouldProcessRealCSVFile() throws Exception {
         // Given
         File file = ResourceUtils.getFile(FILE_PATH);
         List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenReturn(Files.newInputStream(file.toPath()));
 
         InvoiceDTO dto1 = new InvoiceDTO();
@@ -95,7 +154,7 @@ class InvoiceServiceTest {
 
         // Create input with 3 lines (2 in first batch, 1 in second)
 
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenReturn(Files.newInputStream(file.toPath()));
 
         when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
@@ -120,7 +179,7 @@ class InvoiceServiceTest {
         // Given
         List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenReturn(Files.newInputStream(file.toPath()));
 
         when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
@@ -139,7 +198,29 @@ class InvoiceServiceTest {
 
         // Then
         assertEquals(1, result.getSuccessCount());
-        assertEquals(1, result.getErrors().size());
+        assertEquals(1, result.getErrorCount());
+    }
+
+    @Test
+    void processFileAsync_shouldReportProgressIntoSuppliedResult() throws Exception {
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
+        when(csvParser.parseLine(lines.get(1), 2))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+        when(invoiceMapper.mapDtosToEntities(anyList())).thenReturn(List.of(new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(anyList())).thenReturn(List.of(new SQSMessage()));
+
+        ProcessResult progress = ProcessResult.builder().filename(TEST_FILE_NAME).build();
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME, progress).get();
+
+        assertSame(progress, result);
+        assertEquals(2, result.getLinesRead());
+        assertEquals(1, result.getPersistedCount());
+        assertEquals(1, result.getSuccessCount());
     }
 
     @Test
@@ -148,7 +229,7 @@ class InvoiceServiceTest {
         // Given
         List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenReturn(Files.newInputStream(file.toPath()));
 
         when(csvParser.parseLine(lines.get(0), 1))
@@ -162,12 +243,102 @@ class InvoiceServiceTest {
 
         // Then
         assertEquals(0, result.getSuccessCount());
-        assertEquals(2, result.getErrors().size());
+        assertEquals(2, result.getErrorCount());
+    }
+
+    @Test
+    void processFileAsync_failFast_shouldRejectFileWhenErrorRateIsExceeded() throws Exception {
+        enableFailFast(1, 100);
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        when(csvParser.parseLine(lines.get(0), 1))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+
+        FileRejectedException ex = assertThrows(FileRejectedException.class,
+                () -> invoiceService.processFileAsync(TEST_FILE_NAME));
+
+        assertEquals("Rejected after 1 of the first 1 lines failed to parse", ex.getMessage());
+        verify(csvParser, never()).parseLine(lines.get(1), 2);
+        verifyNoInteractions(mongoService, sqsService);
+    }
+
+    @Test
+    void processFileAsync_failFast_shouldRejectFileWhenErrorCountIsExceeded() throws Exception {
+        enableFailFast(1000, 1);
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        when(csvParser.parseLine(lines.get(0), 1))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+        when(csvParser.parseLine(lines.get(1), 2))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+
+        FileRejectedException ex = assertThrows(FileRejectedException.class,
+                () -> invoiceService.processFileAsync(TEST_FILE_NAME));
+
+        assertEquals("Rejected after 2 errors in 2 lines", ex.getMessage());
+    }
+
+    @Test
+    void processFileAsync_failFast_shouldKeepGoingBelowTheThresholds() throws Exception {
+        enableFailFast(1, 100);
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        InvoiceDTO dto = InvoiceDTO.builder().accountId("ACC1").lineNumber(1).build();
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(dto);
+        when(csvParser.parseLine(lines.get(1), 2))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+        ReflectionTestUtils.setField(invoiceService, "failFastMaxErrorRate", 0.5);
+        when(invoiceMapper.mapDtosToEntities(anyList())).thenReturn(List.of(new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(anyList())).thenReturn(List.of(new SQSMessage()));
+
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+        assertEquals(2, result.getLinesRead());
+        assertEquals(1, result.getParseErrorCount());
+    }
+
+    @Test
+    void processFileAsync_parallelParse_shouldPersistAndPublishBatchesInFileOrder() throws Exception {
+        ReflectionTestUtils.setField(invoiceService, "parallelParse", true);
+        ReflectionTestUtils.setField(mappedFileReader, "parallelism", 4);
+        ReflectionTestUtils.setField(mappedFileReader, "segmentBytes", 1);
+        mappedFileReader.init();
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+        when(s3Service.downloadTo(eq(TEST_FILE_NAME), any())).thenAnswer(invocation -> {
+            Files.copy(file.toPath(), invocation.getArgument(1, Path.class), StandardCopyOption.REPLACE_EXISTING);
+            return file.length();
+        });
+        InvoiceDTO first = InvoiceDTO.builder().accountId("ACC1").lineNumber(1).build();
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(first);
+        when(csvParser.parseLine(lines.get(1), 2))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+        when(invoiceMapper.mapDtosToEntities(List.of(first))).thenReturn(List.of(new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(List.of(first))).thenReturn(List.of(new SQSMessage()));
+
+        try {
+            ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+            assertEquals(2, result.getLinesRead());
+            assertEquals(1, result.getSuccessCount());
+            assertEquals(List.of(new ProcessError(2, ErrorCategory.OTHER, "Invalid format")),
+                    result.getSampledErrors());
+            verify(s3Service, never()).getFileInputStream(anyString());
+        verify(s3Service, never()).getFileInputStream(anyString(), anyLong());
+        } finally {
+            mappedFileReader.shutdown();
+        }
     }
 
     @Test
     void processFileAsync_shouldHandleS3Exception() throws Exception {
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenThrow(new RuntimeException("S3 access failed"));
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> invoiceService.processFileAsync(TEST_FILE_NAME));
@@ -180,18 +351,18 @@ class InvoiceServiceTest {
 
         InputStream inputStream = new ByteArrayInputStream(
                 String.join("\n", List.of()).getBytes());
-        when(s3Service.getFileInputStream(TEST_FILE_NAME)).thenReturn(inputStream);
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0)).thenReturn(inputStream);
 
         ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
 
         assertEquals(0, result.getSuccessCount());
-        assertEquals(0, result.getErrors().size());
+        assertEquals(0, result.getErrorCount());
     }
 
     @Test
     void processFileAsync_shouldThrowInvoiceProcessingException_whenIOExceptionOccurs() throws Exception {
         // Given
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenThrow(new IOException("Stream read error"));
 
         // When & Then
@@ -207,7 +378,7 @@ class InvoiceServiceTest {
         File file = ResourceUtils.getFile(FILE_PATH);
         List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenReturn(Files.newInputStream(file.toPath()));
         when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
 
@@ -230,7 +401,7 @@ class InvoiceServiceTest {
         File file = ResourceUtils.getFile(FILE_PATH);
         List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenReturn(Files.newInputStream(file.toPath()));
         when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
 
@@ -252,7 +423,7 @@ class InvoiceServiceTest {
         File file = ResourceUtils.getFile(FILE_PATH);
         List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
-        when(s3Service.getFileInputStream(TEST_FILE_NAME))
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
                 .thenReturn(Files.newInputStream(file.toPath()));
         when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
 
@@ -272,11 +443,292 @@ class InvoiceServiceTest {
         assertTrue(ex.getMessage().contains("SQS Send Error"));
     }
 
+    @Test
+    void processFileAsync_bulkInsert_shouldSkipRejectedInvoicesAndReportTheirLines() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(invoiceService, "batchSize", 2);
+        ReflectionTestUtils.setField(invoiceService, "bulkInsert", true);
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        InvoiceDTO first = InvoiceDTO.builder().billId("BILL1").accountId("ACC1").lineNumber(1).build();
+        InvoiceDTO duplicate = InvoiceDTO.builder().billId("BILL2").accountId("ACC2").lineNumber(2).build();
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(first);
+        when(csvParser.parseLine(lines.get(1), 2)).thenReturn(duplicate);
 
+        when(invoiceMapper.mapDtosToEntities(anyList()))
+                .thenReturn(List.of(new Invoice(), new Invoice()));
+        when(mongoService.insertAll(anyList())).thenReturn(BatchSaveResult.builder()
+                .insertedCount(1)
+                .failures(new LinkedHashMap<>(Map.of(1, "Duplicate bill ID found: BILL2")))
+                .duplicates(Set.of(1))
+                .build());
+        when(sqsMessageMapper.mapDtosToSqsMessages(List.of(first)))
+                .thenReturn(List.of(new SQSMessage()));
 
+        // When
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
 
+        // Then
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(List.of(new ProcessError(2, ErrorCategory.DUPLICATE, "Duplicate bill ID found: BILL2")),
+                result.getSampledErrors());
+        verify(mongoService, never()).saveAll(anyList());
+        verify(sqsService, times(1)).sendInvoice(any());
+        verify(accountCacheInvalidator).evictAccounts(Set.of("ACC1"));
+    }
 
-}
+    @Test
+    void processFileAsync_filterPersisted_shouldSkipInvoicesStoredByAnEarlierRun() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(invoiceService, "batchSize", 2);
+        ReflectionTestUtils.setField(invoiceService, "filterPersisted", true);
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        InvoiceDTO stored = InvoiceDTO.builder().billId("BILL1").accountId("ACC1").lineNumber(1).build();
+        InvoiceDTO fresh = InvoiceDTO.builder().billId("BILL2").accountId("ACC2").lineNumber(2).build();
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(stored);
+        when(csvParser.parseLine(lines.get(1), 2)).thenReturn(fresh);
+
+        when(mongoService.findExistingBillIds(List.of("BILL1", "BILL2"))).thenReturn(Set.of("BILL1"));
+        when(invoiceMapper.mapDtosToEntities(List.of(fresh))).thenReturn(List.of(new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(List.of(fresh)))
+                .thenReturn(List.of(new SQSMessage()));
+
+        // When
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+        // Then
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(1, result.getSkippedCount());
+        assertFalse(result.hasErrors());
+        verify(sqsService, times(1)).sendInvoice(any());
+        verify(accountSummaryService).apply(List.of(fresh));
+        verify(accountCacheInvalidator).evictAccounts(Set.of("ACC2"));
+    }
+
+    @Test
+    void processFileAsync_batchPublish_shouldCountOnlyAcknowledgedMessages() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(invoiceService, "batchSize", 2);
+        ReflectionTestUtils.setField(invoiceService, "batchPublish", true);
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(InvoiceDTO.builder().lineNumber(1).build());
+        when(csvParser.parseLine(lines.get(1), 2)).thenReturn(InvoiceDTO.builder().lineNumber(2).build());
+        when(invoiceMapper.mapDtosToEntities(anyList()))
+                .thenReturn(List.of(new Invoice(), new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(anyList()))
+                .thenReturn(List.of(new SQSMessage(), new SQSMessage()));
+        PublishResult published = new PublishResult();
+        published.incrementSuccessCount(1);
+        published.addFailure(1, "Failed to send message to SQS: ServiceUnavailable");
+        when(sqsService.sendInvoices(anyList())).thenReturn(published);
+
+        // When
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+        // Then
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(List.of(new ProcessError(2, ErrorCategory.SQS_FAILURE,
+                "Failed to send message to SQS: ServiceUnavailable")), result.getSampledErrors());
+        verify(sqsService, never()).sendInvoice(any());
+    }
+
+    @Test
+    void processFileAsync_pipelined_shouldProcessAllLinesThroughStages() throws Exception {
+        // Given
+        InvoicePipeline pipeline = new InvoicePipeline();
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 2);
+        ReflectionTestUtils.setField(pipeline, "parseWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "persistWorkers", 2);
+        ReflectionTestUtils.setField(pipeline, "publishWorkers", 2);
+        pipeline.init();
+        ReflectionTestUtils.setField(invoiceService, "invoicePipeline", pipeline);
+        ReflectionTestUtils.setField(invoiceService, "pipelined", true);
+
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
+
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
+        when(csvParser.parseLine(lines.get(1), 2))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+        when(invoiceMapper.mapDtosToEntities(anyList()))
+                .thenReturn(List.of(new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(anyList()))
+                .thenReturn(List.of(new SQSMessage()));
+
+        try {
+            // When
+            ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+            // Then
+            assertEquals(1, result.getSuccessCount());
+            assertEquals(List.of(new ProcessError(2, ErrorCategory.OTHER, "Invalid format")),
+                    result.getSampledErrors());
+            verify(mongoService, times(1)).saveAll(anyList());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void processFileAsync_pipelined_shouldRethrowPersistenceFailure() throws Exception {
+        // Given
+        InvoicePipeline pipeline = new InvoicePipeline();
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 2);
+        ReflectionTestUtils.setField(pipeline, "parseWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "persistWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "publishWorkers", 1);
+        pipeline.init();
+        ReflectionTestUtils.setField(invoiceService, "invoicePipeline", pipeline);
+        ReflectionTestUtils.setField(invoiceService, "pipelined", true);
+
+        File file = ResourceUtils.getFile(FILE_PATH);
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(Files.newInputStream(file.toPath()));
+        when(csvParser.parseLine(anyString(), anyInt())).thenReturn(new InvoiceDTO());
+        when(invoiceMapper.mapDtosToEntities(anyList()))
+                .thenReturn(List.of(new Invoice()));
+        doThrow(new MongoException("Mongo Error"))
+                .when(mongoService).saveAll(anyList());
+
+        try {
+            // When & Then
+            MongoException ex = assertThrows(MongoException.class,
+                    () -> invoiceService.processFileAsync(TEST_FILE_NAME));
+            assertTrue(ex.getMessage().contains("Mongo Error"));
+            verifyNoInteractions(sqsService);
+        } finally {
+            pipeline.shutdown();
+        }
+    }
 
+    @Test
+    void processFileAsync_rangedRead_shouldProcessLineBatchesFromReader() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(invoiceService, "rangedRead", true);
+        File file = ResourceUtils.getFile(FILE_PATH);
+        List<String> lines = Files.readAllLines(Paths.get(file.getAbsolutePath()));
 
+        doAnswer(invocation -> {
+            Consumer<LineBatch> sink = invocation.getArgument(4);
+            sink.accept(new LineBatch(1, List.of(lines.get(0))));
+            sink.accept(new LineBatch(2, List.of(lines.get(1))));
+            return null;
+        }).when(s3RangedReader).read(eq(TEST_FILE_NAME), eq(1), eq(0L),
+                argThat((IntSupplier size) -> size.getAsInt() == BATCH_SIZE), any());
+        when(csvParser.parseLine(lines.get(0), 1)).thenReturn(new InvoiceDTO());
+        when(csvParser.parseLine(lines.get(1), 2))
+                .thenThrow(new InvoiceProcessingException("Invalid format"));
+        when(invoiceMapper.mapDtosToEntities(anyList()))
+                .thenReturn(List.of(new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(anyList()))
+                .thenReturn(List.of(new SQSMessage()));
+
+        // When
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+        // Then
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(List.of(new ProcessError(2, ErrorCategory.OTHER, "Invalid format")), result.getSampledErrors());
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    void processFileAsync_adaptiveBatchSize_shouldCutBatchesAtCurrentSizeAndReportWrites() throws Exception {
+        // Given
+        when(adaptiveBatchSize.isEnabled()).thenReturn(true);
+        when(adaptiveBatchSize.current()).thenReturn(2);
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(new ByteArrayInputStream("line1\nline2\nline3\n".getBytes()));
+        when(csvParser.parseLine(anyString(), anyInt())).thenReturn(new InvoiceDTO());
+        when(invoiceMapper.mapDtosToEntities(anyList())).thenReturn(List.of(new Invoice(), new Invoice()), List.of(new Invoice()));
+        when(mongoService.insertAll(anyList())).thenReturn(BatchSaveResult.builder().insertedCount(2).build(),
+                BatchSaveResult.builder().insertedCount(1).build());
+        when(sqsMessageMapper.mapDtosToSqsMessages(anyList()))
+                .thenReturn(List.of(new SQSMessage(), new SQSMessage()), List.of(new SQSMessage()));
+        ReflectionTestUtils.setField(invoiceService, "bulkInsert", true);
+
+        // When
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+        // Then
+        assertEquals(3, result.getSuccessCount());
+        verify(adaptiveBatchSize).recordWrite(eq(2), anyLong(), eq(0));
+        verify(adaptiveBatchSize).recordWrite(eq(1), anyLong(), eq(0));
+        verify(adaptiveBatchSize).recordPublish(eq(2), anyLong());
+    }
+
+    @Test
+    void processFileAsync_mongoFailure_shouldReportWholeBatchToAdaptiveBatchSize() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(invoiceService, "batchSize", 2);
+        ReflectionTestUtils.setField(invoiceService, "bulkInsert", true);
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 0))
+                .thenReturn(new ByteArrayInputStream("line1\nline2\n".getBytes()));
+        when(csvParser.parseLine(anyString(), anyInt())).thenReturn(new InvoiceDTO());
+        when(invoiceMapper.mapDtosToEntities(anyList())).thenReturn(List.of(new Invoice(), new Invoice()));
+        when(mongoService.insertAll(anyList())).thenThrow(new MongoException("timeout"));
+
+        // When
+        assertThrows(MongoException.class, () -> invoiceService.processFileAsync(TEST_FILE_NAME));
+
+        // Then
+        verify(adaptiveBatchSize).recordWrite(eq(2), anyLong(), eq(2));
+        verify(adaptiveBatchSize, never()).recordPublish(anyInt(), anyLong());
+    }
+
+    @Test
+    void processFileAsync_checkpointing_shouldResumeAfterLastCheckpoint() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(invoiceService, "checkpointing", true);
+        FileCheckpointRepository checkpointRepository = mock(FileCheckpointRepository.class);
+        when(checkpointService.open(TEST_FILE_NAME))
+                .thenReturn(new Checkpoint(TEST_FILE_NAME, "\"etag\"", checkpointRepository, 1, 1, 6));
+        when(s3Service.getFileInputStream(TEST_FILE_NAME, 6))
+                .thenReturn(new ByteArrayInputStream("line2\n".getBytes()));
+        when(csvParser.parseLine("line2", 2)).thenReturn(new InvoiceDTO());
+        when(invoiceMapper.mapDtosToEntities(anyList()))
+                .thenReturn(List.of(new Invoice()));
+        when(sqsMessageMapper.mapDtosToSqsMessages(anyList()))
+                .thenReturn(List.of(new SQSMessage()));
+
+        // When
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+        // Then
+        assertEquals(1, result.getSuccessCount());
+        verify(csvParser).parseLine("line2", 2);
+        verify(checkpointRepository).save(argThat(saved -> saved.getLastLineNumber() == 2 && saved.getByteOffset() == 12));
+        verify(checkpointRepository).deleteById(TEST_FILE_NAME);
+    }
+
+    @Test
+    void processFileAsync_checkpointAtEnd_shouldCompleteWithoutReading() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(invoiceService, "checkpointing", true);
+        FileCheckpointRepository checkpointRepository = mock(FileCheckpointRepository.class);
+        when(checkpointService.open(TEST_FILE_NAME))
+                .thenReturn(Checkpoint.atEnd(TEST_FILE_NAME, "\"etag\"", checkpointRepository, 2, 12));
+
+        // When
+        ProcessResult result = invoiceService.processFileAsync(TEST_FILE_NAME).get();
+
+        // Then
+        assertEquals(0, result.getSuccessCount());
+        verify(s3Service, never()).getFileInputStream(anyString());
+        verify(s3Service, never()).getFileInputStream(anyString(), anyLong());
+        verify(checkpointRepository).deleteById(TEST_FILE_NAME);
+    }
+}
@@ -0,0 +1,125 @@
+package com.onboarding.service;
+
+import com.onboarding.component.LineBatchAssembler;
+import com.onboarding.dto.LineBatch;
+import com.onboarding.exception.FileRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileReaderTest {
+
+    private static final String SAMPLE_FILE = "src/test/resources/invoices/success/csv/invoice_20250301.csv";
+
+    @TempDir
+    Path tempDir;
+
+    private MappedFileReader reader;
+
+    @AfterEach
+    void tearDown() {
+        reader.shutdown();
+    }
+
+    @ParameterizedTest(name = "segment size {0}")
+    @ValueSource(ints = {1, 3, 16, 64, 1 << 20})
+    void read_shouldMatchBufferedReaderAndKeepLineNumbersInOrder(int segmentBytes) throws IOException {
+        startReader(4, segmentBytes);
+        StringBuilder content = new StringBuilder(Files.readString(Paths.get(SAMPLE_FILE)));
+        for (int i = 0; i < 200; i++) {
+            content.append("line-").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        content.append("Müller\rlast");
+        Path file = write(content.toString());
+
+        List<String> lines = new ArrayList<>();
+        AtomicInteger expectedFirstLine = new AtomicInteger(1);
+        reader.read(file, 1, 0, 7, batch -> batch.getLines().size(), (batch, parsed) -> {
+            assertEquals(expectedFirstLine.get(), batch.getFirstLineNumber());
+            assertEquals(batch.getLines().size(), parsed);
+            expectedFirstLine.addAndGet(batch.getLines().size());
+            lines.addAll(batch.getLines());
+        });
+
+        assertEquals(new BufferedReader(new StringReader(content.toString())).lines().toList(), lines);
+    }
+
+    @Test
+    void read_shouldReportTheSameOffsetsAsTheStreamingAssembler() throws IOException {
+        startReader(3, 10);
+        String content = "Müller\r\nb\nc\rd\n\nlonger line here\ne";
+        Path file = write(content);
+
+        List<LineBatch> expected = new ArrayList<>();
+        LineBatchAssembler assembler = new LineBatchAssembler(1, 1, expected::add);
+        assembler.accept(content.getBytes(StandardCharsets.UTF_8));
+        assembler.finish();
+        List<LineBatch> actual = new ArrayList<>();
+        reader.read(file, 1, 0, 1, batch -> null, (batch, ignored) -> actual.add(batch));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void read_shouldResumeFromOffset() throws IOException {
+        startReader(2, 4);
+        String content = "first\nsecond\nthird\nfourth\n";
+        Path file = write(content);
+
+        List<LineBatch> batches = new ArrayList<>();
+        reader.read(file, 3, "first\nsecond\n".length(), 10, batch -> null, (batch, ignored) -> batches.add(batch));
+
+        assertEquals(List.of(new LineBatch(3, List.of("third"), 19),
+                new LineBatch(4, List.of("fourth"), content.length())), batches);
+    }
+
+    @Test
+    void read_shouldRethrowParseFailureAndStopFeedingTheSink() throws IOException {
+        startReader(2, 1);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("line-").append(i).append('\n');
+        }
+        Path file = write(content.toString());
+        AtomicInteger consumed = new AtomicInteger();
+
+        FileRejectedException ex = assertThrows(FileRejectedException.class, () -> reader.read(file, 1, 0, 1,
+                batch -> {
+                    if (batch.getFirstLineNumber() == 10) {
+                        throw new FileRejectedException("Too many errors");
+                    }
+                    return batch;
+                },
+                (batch, parsed) -> consumed.incrementAndGet()));
+
+        assertEquals("Too many errors", ex.getMessage());
+        assertEquals(9, consumed.get());
+    }
+
+    private void startReader(int parallelism, int segmentBytes) {
+        reader = new MappedFileReader();
+        ReflectionTestUtils.setField(reader, "parallelism", parallelism);
+        ReflectionTestUtils.setField(reader, "segmentBytes", segmentBytes);
+        reader.init();
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("invoice_20250301.csv"), content, StandardCharsets.UTF_8);
+    }
+}
@@ -4,30 +4,64 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.onboarding.component.AccountCacheInvalidator;
+import com.onboarding.component.CacheValueCodec;
+import com.onboarding.component.DependencyGuard;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.component.TwoTierCache;
+import com.onboarding.dto.BatchSaveResult;
+import com.onboarding.dto.CursorPage;
+import com.onboarding.dto.InvoiceCursor;
 import com.onboarding.dto.InvoiceDTO;
+import com.onboarding.dto.InvoiceTotals;
 import com.onboarding.entity.Invoice;
 import com.onboarding.mapper.InvoiceDTOMapper;
 import com.onboarding.repo.InvoiceRepository;
 import com.onboarding.exception.InvoiceProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.ResourceUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
@@ -38,7 +72,19 @@ class MongoServiceTest {
     private InvoiceRepository invoiceRepo;
     @Mock
     private InvoiceDTOMapper invoiceDTOMapper;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private BulkOperations bulkOperations;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private InvoiceBucketStore bucketStore;
 
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+    @Spy
+    private Resilience resilience = Resilience.passThrough();
     @InjectMocks
     private MongoService mongoService;
     private static List<Invoice> testInvoices;
@@ -81,6 +127,92 @@ class MongoServiceTest {
         assertTrue(ex.getMessage().contains("Failed to save invoices to MongoDB"), "Exception message should contain 'Failed to save'");
     }
 
+    @Test
+    void insertAll_WithValidInvoices_ShouldInsertInOneBulkWrite() {
+        // Given
+        BulkWriteResult writeResult = mock(BulkWriteResult.class);
+        when(writeResult.getInsertedCount()).thenReturn(testInvoices.size());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Invoice.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(testInvoices)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(writeResult);
+
+        // When
+        BatchSaveResult result = mongoService.insertAll(testInvoices);
+
+        // Then
+        assertEquals(testInvoices.size(), result.getInsertedCount());
+        assertFalse(result.hasFailures());
+        verify(bulkOperations, times(1)).execute();
+        verifyNoInteractions(invoiceRepo);
+    }
+
+    @Test
+    void insertAll_ShouldReportDuplicatedInvoicesAndKeepTheRest() {
+        // Given
+        BulkWriteResult writeResult = mock(BulkWriteResult.class);
+        when(writeResult.getInsertedCount()).thenReturn(testInvoices.size() - 1);
+        BulkOperationException bulkException = mock(BulkOperationException.class);
+        when(bulkException.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1)));
+        when(bulkException.getResult()).thenReturn(writeResult);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Invoice.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(testInvoices)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(bulkException);
+
+        // When
+        BatchSaveResult result = mongoService.insertAll(testInvoices);
+
+        // Then
+        assertEquals(testInvoices.size() - 1, result.getInsertedCount());
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.isFailed(1));
+        assertTrue(result.isDuplicate(1));
+        assertEquals("Duplicate bill ID found: " + testInvoices.get(1).getBillId(), result.getFailures().get(1));
+    }
+
+    @Test
+    void insertAll_ShouldHandleDataAccessExceptions() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Invoice.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(testInvoices)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // Then
+        RuntimeException ex = assertThrows(MongoException.class, () -> mongoService.insertAll(testInvoices));
+        assertTrue(ex.getMessage().contains("Failed to save invoices to MongoDB"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertAll_AfterTransientFailure_ShouldRetryOnlyInvoicesNotYetStored() {
+        // Given
+        DependencyGuard mongo = DependencyGuard.builder()
+                .name("mongo")
+                .maxAttempts(3)
+                .failureThreshold(10)
+                .transientFailure(Resilience::isTransientMongoFailure)
+                .build();
+        ReflectionTestUtils.setField(mongoService, "resilience", new Resilience(resilience.s3(), mongo, resilience.sqs()));
+        BulkWriteResult writeResult = mock(BulkWriteResult.class);
+        when(writeResult.getInsertedCount()).thenReturn(testInvoices.size() - 1);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Invoice.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute())
+                .thenThrow(new DataAccessResourceFailureException("Connection reset"))
+                .thenReturn(writeResult);
+        when(mongoTemplate.find(any(Query.class), eq(Invoice.class))).thenReturn(List.of(testInvoices.get(0)));
+
+        // When
+        BatchSaveResult result = mongoService.insertAll(testInvoices);
+
+        // Then
+        ArgumentCaptor<List<Invoice>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, times(2)).insert(inserted.capture());
+        assertEquals(testInvoices.subList(1, testInvoices.size()), inserted.getAllValues().get(1));
+        assertEquals(testInvoices.size(), result.getInsertedCount());
+        assertFalse(result.hasFailures());
+    }
+
     @Test
     void getByAccountId_WithNonExistingAccount_ShouldReturnEmptyPage() {
         // Given
@@ -129,4 +261,189 @@ class MongoServiceTest {
 
     }
 
+
+    @Test
+    void getMonthlyTotals_ShouldGroupByMonthAndSortPeriods() {
+        // Given
+        AggregationResults<Document> results = new AggregationResults<>(List.of(
+                new Document("_id", "2025-03").append("invoiceCount", 1)
+                        .append("grossAmount", new Decimal128(new BigDecimal("120.00")))
+                        .append("netAmount", new Decimal128(new BigDecimal("100.00")))
+                        .append("taxAmount", new Decimal128(new BigDecimal("20.00"))),
+                new Document("_id", "2025-01").append("invoiceCount", 2)
+                        .append("grossAmount", new Decimal128(new BigDecimal("240.00")))
+                        .append("netAmount", new Decimal128(new BigDecimal("200.00")))
+                        .append("taxAmount", new Decimal128(new BigDecimal("40.00")))), new Document());
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class))).thenReturn(results);
+
+        // When
+        List<InvoiceTotals> totals = mongoService.getMonthlyTotals("ACC001", LocalDate.of(2025, 1, 1), null);
+
+        // Then
+        ArgumentCaptor<TypedAggregation> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(Document.class));
+        String pipeline = aggregation.getValue().toString();
+        assertTrue(pipeline.contains("$toDecimal"));
+        assertTrue(pipeline.contains("$dateToString"));
+        assertEquals(List.of("2025-01", "2025-03"), totals.stream().map(InvoiceTotals::getPeriod).toList());
+        assertEquals(2, totals.get(0).getInvoiceCount());
+        assertEquals(new BigDecimal("240.00"), totals.get(0).getGrossAmount());
+        verifyNoInteractions(invoiceRepo);
+    }
+
+    @Test
+    void getTotals_WithoutInvoices_ShouldReturnZeroes() {
+        // Given
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // When
+        InvoiceTotals totals = mongoService.getTotals("ACC001", null, null);
+
+        // Then
+        assertEquals("ACC001", totals.getAccountId());
+        assertNull(totals.getPeriod());
+        assertEquals(0, totals.getInvoiceCount());
+        assertEquals(BigDecimal.ZERO, totals.getGrossAmount());
+    }
+
+    @Test
+    void findExistingBillIds_ShouldQueryOnlyBillIdsWithIn() {
+        // Given
+        Invoice stored = testInvoices.get(0);
+        when(mongoTemplate.find(any(Query.class), eq(Invoice.class))).thenReturn(List.of(stored));
+
+        // When
+        Set<String> existing = mongoService.findExistingBillIds(List.of(stored.getBillId(), "NEW-BILL"));
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Invoice.class));
+        assertTrue(query.getValue().getQueryObject().toJson().contains("$in"));
+        assertEquals(1, query.getValue().getFieldsObject().get("billId"));
+        assertEquals(Set.of(stored.getBillId()), existing);
+    }
+
+    @Test
+    void findExistingBillIds_WithNoIds_ShouldNotQuery() {
+        assertTrue(mongoService.findExistingBillIds(List.of()).isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void getInvoicesByAccountIdAfter_FirstPage_ShouldReturnTokenWhenMoreInvoicesExist() {
+        // Given
+        List<Invoice> fetched = testInvoices.subList(0, 2);
+        when(mongoTemplate.find(any(Query.class), eq(Invoice.class))).thenReturn(fetched);
+        when(invoiceDTOMapper.mapEntityToDto(any())).thenReturn(new InvoiceDTO());
+
+        // When
+        CursorPage<InvoiceDTO> result = mongoService.getInvoicesByAccountIdAfter("ACC001", null, 1, false);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Invoice.class));
+        assertEquals(2, query.getValue().getLimit());
+        assertFalse(query.getValue().getQueryObject().containsKey("$or"));
+        assertEquals(1, result.getSize());
+        assertTrue(result.isHasNext());
+        assertNull(result.getTotalElements());
+        Invoice last = fetched.get(0);
+        assertEquals(new InvoiceCursor(last.getIssueDate(), last.getId()), InvoiceCursor.decode(result.getNextToken()));
+        verifyNoInteractions(invoiceRepo);
+    }
+
+    @Test
+    void getInvoicesByAccountIdAfter_WithToken_ShouldSeekPastCursorAndCount() {
+        // Given
+        String token = new InvoiceCursor(LocalDate.of(2025, 3, 1), "inv-2").encode();
+        when(mongoTemplate.find(any(Query.class), eq(Invoice.class))).thenReturn(List.of(testInvoices.get(1)));
+        when(invoiceRepo.countByAccountId("ACC001")).thenReturn(3L);
+
+        // When
+        CursorPage<InvoiceDTO> result = mongoService.getInvoicesByAccountIdAfter("ACC001", token, 2, true);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Invoice.class));
+        assertTrue(query.getValue().getQueryObject().containsKey("$or"));
+        assertEquals(1, result.getSize());
+        assertFalse(result.isHasNext());
+        assertEquals(3L, result.getTotalElements());
+    }
+
+    @Test
+    void getInvoicesByAccountIdAfter_WithMalformedToken_ShouldThrow() {
+        InvoiceProcessingException ex = assertThrows(InvoiceProcessingException.class,
+                () -> mongoService.getInvoicesByAccountIdAfter("ACC001", "not-a-token", 2, false));
+
+        assertEquals("Invalid page token", ex.getMessage());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void getByAccountId_ShouldServeRepeatedPageFromCache() {
+        // Given
+        TwoTierCache cache = TwoTierCache.builder()
+                .name(AccountCacheInvalidator.ACCOUNT_INVOICES)
+                .l1MaxBytes(1024 * 1024)
+                .ttl(Duration.ofMinutes(5))
+                .codec(new CacheValueCodec())
+                .accountOf(AccountCacheInvalidator::accountIdOfPageKey)
+                .build();
+        when(cacheManager.getCache(AccountCacheInvalidator.ACCOUNT_INVOICES)).thenReturn(cache);
+        Invoice testInvoice = testInvoices.get(0);
+        when(invoiceRepo.findByAccountId(testInvoice.getAccountId(), DEFAULT_PAGE))
+                .thenReturn(new PageImpl<>(List.of(testInvoice), DEFAULT_PAGE, 1));
+        when(invoiceDTOMapper.mapToPageDto(any())).thenReturn(new PageImpl<>(List.of(new InvoiceDTO())));
+
+        // When
+        mongoService.getInvoicesByAccountId(testInvoice.getAccountId(), 0, 10);
+        mongoService.getInvoicesByAccountId(testInvoice.getAccountId(), 0, 10);
+
+        // Then
+        verify(invoiceRepo, times(1)).findByAccountId(testInvoice.getAccountId(), DEFAULT_PAGE);
+        assertNotNull(cache.get(testInvoice.getAccountId() + "_0_10"));
+    }
+
+    @Test
+    void bucketLayout_ShouldDelegateWritesAndCursorPagesToBucketStore() {
+        // Given
+        ReflectionTestUtils.setField(mongoService, "layout", "bucket");
+        when(bucketStore.insertAll(testInvoices)).thenReturn(BatchSaveResult.builder().insertedCount(testInvoices.size()).build());
+        when(bucketStore.findByAccountIdAfter("ACC001", null, 2)).thenReturn(CursorPage.<Invoice>builder()
+                .content(testInvoices.subList(0, 2)).size(2).nextToken("next").build());
+        when(bucketStore.countByAccountId("ACC001")).thenReturn(7L);
+        when(invoiceDTOMapper.mapEntityToDto(any())).thenReturn(new InvoiceDTO());
+
+        // When
+        BatchSaveResult saved = mongoService.insertAll(testInvoices);
+        CursorPage<InvoiceDTO> page = mongoService.getInvoicesByAccountIdAfter("ACC001", null, 2, true);
+
+        // Then
+        assertEquals(testInvoices.size(), saved.getInsertedCount());
+        assertEquals(2, page.getSize());
+        assertEquals("next", page.getNextToken());
+        assertEquals(7L, page.getTotalElements());
+        verifyNoInteractions(invoiceRepo, mongoTemplate);
+    }
+
+    @Test
+    void bucketLayout_Totals_ShouldUnwindBucketsOfTheMonthsInRange() {
+        // Given
+        ReflectionTestUtils.setField(mongoService, "layout", "bucket");
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // When
+        mongoService.getTotals("ACC001", LocalDate.of(2025, 1, 15), LocalDate.of(2025, 2, 10));
+
+        // Then
+        ArgumentCaptor<TypedAggregation> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(Document.class));
+        String pipeline = aggregation.getValue().toString();
+        assertTrue(pipeline.contains("$unwind"));
+        assertTrue(pipeline.contains("2025-01"));
+        assertTrue(pipeline.contains("invoices.issueDate"));
+    }
 }
@@ -0,0 +1,231 @@
+package com.onboarding.service;
+
+import com.onboarding.component.DependencyGuard;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.component.ResourceLimits;
+import com.onboarding.dto.LineBatch;
+import com.onboarding.exception.DependencyUnavailableException;
+import com.onboarding.exception.ResourceNotFoundException;
+import com.onboarding.service.aws.S3RangedReader;
+import com.onboarding.service.aws.S3Service;
+import io.findify.s3mock.S3Mock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class S3RangedReaderTest {
+
+    private static final int S3_MOCK_PORT = 9097;
+    private static final String BUCKET = "ranged-bucket";
+    private static final String INVOICE_NAME = "invoice_20250301.csv";
+    private static final String FILE_PATH = "src/test/resources/invoices/success/csv/invoice_20250301.csv";
+
+    private S3Mock s3Mock;
+    private S3Client s3Client;
+    private FaultInjectingS3Client faultyClient;
+    private MeterRegistry registry;
+    private S3RangedReader rangedReader;
+
+    @BeforeAll
+    void startS3() {
+        s3Mock = new S3Mock.Builder().withPort(S3_MOCK_PORT).withInMemoryBackend().build();
+        s3Mock.start();
+        s3Client = S3Client.builder()
+                .endpointOverride(URI.create("http://localhost:" + S3_MOCK_PORT))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .region(Region.US_EAST_1)
+                .serviceConfiguration(b -> b.pathStyleAccessEnabled(true))
+                .build();
+        s3Client.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+    }
+
+    @AfterAll
+    void stopS3() {
+        rangedReader.shutdown();
+        s3Client.close();
+        s3Mock.shutdown();
+    }
+
+    @BeforeEach
+    void setUp() {
+        startReader(Resilience.passThrough(), 0);
+    }
+
+    private void startReader(Resilience resilience, long hedgeAfterMillis) {
+        registry = new SimpleMeterRegistry();
+        resilience.bindTo(registry);
+        IngestionMetrics ingestionMetrics = new IngestionMetrics(registry);
+        faultyClient = new FaultInjectingS3Client(s3Client);
+        S3Service s3Service = new S3Service(faultyClient, ingestionMetrics, resilience);
+        ReflectionTestUtils.setField(s3Service, "bucketName", BUCKET);
+        if (rangedReader != null) {
+            rangedReader.shutdown();
+        }
+        rangedReader = new S3RangedReader(s3Service, new ResourceLimits(1, 2, 1), ingestionMetrics);
+        ReflectionTestUtils.setField(rangedReader, "chunkSize", 37);
+        ReflectionTestUtils.setField(rangedReader, "parallelism", 3);
+        ReflectionTestUtils.setField(rangedReader, "hedgeAfterMillis", hedgeAfterMillis);
+        rangedReader.init();
+    }
+
+    private static Resilience retrying(int maxAttempts, int failureThreshold) {
+        DependencyGuard s3 = DependencyGuard.builder()
+                .name("s3")
+                .maxAttempts(maxAttempts)
+                .baseDelay(Duration.ofMillis(1))
+                .failureThreshold(failureThreshold)
+                .openFor(Duration.ofMinutes(1))
+                .transientFailure(Resilience::isTransientAwsFailure)
+                .build();
+        Resilience passThrough = Resilience.passThrough();
+        return new Resilience(s3, passThrough.mongo(), passThrough.sqs());
+    }
+
+    private String putLines(int count) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            content.append("line").append(i).append('\n');
+        }
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key(INVOICE_NAME).build(),
+                RequestBody.fromString(content.toString(), StandardCharsets.UTF_8));
+        return content.toString();
+    }
+
+    private List<String> readLines() {
+        List<String> lines = new ArrayList<>();
+        rangedReader.read(INVOICE_NAME, 4, batch -> lines.addAll(batch.getLines()));
+        return lines;
+    }
+
+    @Test
+    void read_shouldReturnAllLinesInOrderWithLineNumbers() throws IOException {
+        // Given
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            content.append(Files.readString(Paths.get(FILE_PATH))).append('\n');
+        }
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key(INVOICE_NAME).build(),
+                RequestBody.fromString(content.toString(), StandardCharsets.UTF_8));
+
+        // When
+        List<LineBatch> batches = new ArrayList<>();
+        rangedReader.read(INVOICE_NAME, 5, batches::add);
+
+        // Then
+        List<String> lines = new ArrayList<>();
+        for (LineBatch batch : batches) {
+            assertEquals(lines.size() + 1, batch.getFirstLineNumber());
+            lines.addAll(batch.getLines());
+        }
+        assertEquals(content.toString().lines().toList(), lines);
+    }
+
+    @Test
+    void read_fromOffset_shouldContinueWithGlobalLineNumbers() {
+        // Given
+        String content = "line1\nline2\nline3\nline4\nline5\n";
+        s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key(INVOICE_NAME).build(),
+                RequestBody.fromString(content, StandardCharsets.UTF_8));
+
+        // When
+        List<LineBatch> batches = new ArrayList<>();
+        rangedReader.read(INVOICE_NAME, 3, 12, 2, batches::add);
+
+        // Then
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get(0).getFirstLineNumber());
+        assertEquals(List.of("line3", "line4"), batches.get(0).getLines());
+        assertEquals(24, batches.get(0).getEndOffset());
+        assertEquals(List.of("line5"), batches.get(1).getLines());
+        assertEquals(content.length(), batches.get(1).getEndOffset());
+    }
+
+    @Test
+    void read_shouldFailForMissingFile() {
+        assertThrows(ResourceNotFoundException.class,
+                () -> rangedReader.read("invoice_21220301.csv", 5, batch -> fail("No batch expected")));
+    }
+
+    @Test
+    void read_withSlowChunk_shouldUseTheHedgedRequest() {
+        // Given
+        startReader(Resilience.passThrough(), 100);
+        String content = putLines(30);
+        faultyClient.delayNext(0);
+        faultyClient.delayNext(5_000);
+
+        // When
+        long start = System.nanoTime();
+        List<String> lines = readLines();
+
+        // Then
+        assertEquals(content.lines().toList(), lines);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 5_000);
+        assertTrue(registry.counter("invoice.s3.hedges", "outcome", "won").count() >= 1);
+        assertTrue(registry.counter("invoice.s3.hedges", "outcome", "issued").count() >= 1);
+    }
+
+    @Test
+    void read_withTransientErrors_shouldRetryTheChunk() {
+        // Given
+        startReader(retrying(3, 10), 0);
+        String content = putLines(30);
+        faultyClient.delayNext(0);
+        faultyClient.failNext(2, 503);
+
+        // When
+        List<String> lines = readLines();
+
+        // Then
+        assertEquals(content.lines().toList(), lines);
+        assertEquals(2, registry.counter("resilience.retries", "dependency", "s3").count());
+    }
+
+    @Test
+    void read_withClientError_shouldNotRetry() {
+        // Given
+        startReader(retrying(3, 10), 0);
+        putLines(30);
+        faultyClient.failNext(1, 403);
+
+        // Then
+        assertThrows(ResourceNotFoundException.class, this::readLines);
+        assertEquals(1, faultyClient.requests());
+    }
+
+    @Test
+    void read_afterRepeatedOutages_shouldFailFastWithOpenCircuit() {
+        // Given
+        startReader(retrying(1, 2), 0);
+        putLines(30);
+        faultyClient.failNext(2, 503);
+        assertThrows(ResourceNotFoundException.class, this::readLines);
+        assertThrows(ResourceNotFoundException.class, this::readLines);
+
+        // Then
+        assertThrows(DependencyUnavailableException.class, this::readLines);
+        assertEquals(2, faultyClient.requests());
+        assertEquals(2, registry.get("resilience.circuit.state").tag("dependency", "s3").gauge().value());
+    }
+}
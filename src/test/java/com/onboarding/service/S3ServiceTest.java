@@ -1,17 +1,27 @@
 package com.onboarding.service;
 
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.dto.S3ObjectInfo;
 import com.onboarding.exception.ResourceNotFoundException;
 import com.onboarding.service.aws.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.util.ResourceUtils;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.Abortable;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.ByteArrayInputStream;
@@ -22,6 +32,7 @@ import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +40,10 @@ class S3ServiceTest {
 
     @Mock
     private S3Client s3Client;
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+    @Spy
+    private Resilience resilience = Resilience.passThrough();
     @InjectMocks
     private S3Service s3Service;
     private static final String INVOICE_NAME = "invoice_20250301.csv";
@@ -60,4 +75,79 @@ class S3ServiceTest {
 
         assertThrows(ResourceNotFoundException.class, () -> s3Service.getFileInputStream(INVOICE_NAME));
     }
+
+    @Test
+    void getObjectSize_ShouldReturnContentLength() {
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(1234L).build());
+
+        assertEquals(1234L, s3Service.getObjectSize(INVOICE_NAME));
+    }
+
+    @Test
+    void getObjectSize_ShouldWrapS3ExceptionAsResourceException() {
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenThrow(S3Exception.builder().message("Error").build());
+
+        assertThrows(ResourceNotFoundException.class, () -> s3Service.getObjectSize(INVOICE_NAME));
+    }
+
+    @Test
+    void getFileRange_ShouldRequestInclusiveByteRange() {
+        byte[] bytes = "range".getBytes();
+        when(s3Client.getObjectAsBytes(argThat((GetObjectRequest request) -> "bytes=10-14".equals(request.range()))))
+                .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), bytes));
+
+        assertArrayEquals(bytes, s3Service.getFileRange(INVOICE_NAME, 10, 14));
+    }
+
+    @Test
+    void getFileInputStream_withOffset_ShouldRequestOpenEndedRange() throws IOException {
+        ResponseInputStream<GetObjectResponse> mockResponse = new ResponseInputStream<>(
+                GetObjectResponse.builder().build(), new ByteArrayInputStream("rest".getBytes()));
+        when(s3Client.getObject(argThat((GetObjectRequest request) -> "bytes=100-".equals(request.range()))))
+                .thenReturn(mockResponse);
+
+        try (InputStream result = s3Service.getFileInputStream(INVOICE_NAME, 100)) {
+            assertEquals("rest", new String(result.readAllBytes()));
+        }
+    }
+
+    @Test
+    void getFileInputStream_ShouldAbortRequestWhenClosedEarly() throws IOException {
+        Abortable request = mock(Abortable.class);
+        when(s3Client.getObject((GetObjectRequest) any())).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream("line1\nline2\n".getBytes()), request)));
+
+        try (InputStream result = s3Service.getFileInputStream(INVOICE_NAME)) {
+            assertEquals('l', result.read());
+        }
+
+        verify(request).abort();
+    }
+
+    @Test
+    void getFileInputStream_ShouldNotAbortFullyReadStream() throws IOException {
+        Abortable request = mock(Abortable.class);
+        when(s3Client.getObject((GetObjectRequest) any())).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream("line1\n".getBytes()), request)));
+
+        try (InputStream result = s3Service.getFileInputStream(INVOICE_NAME)) {
+            result.readAllBytes();
+        }
+
+        verify(request, never()).abort();
+    }
+
+    @Test
+    void getObjectInfo_ShouldReturnSizeAndETag() {
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(1234L).eTag("\"abc\"").build());
+
+        S3ObjectInfo info = s3Service.getObjectInfo(INVOICE_NAME);
+
+        assertEquals(1234L, info.getSize());
+        assertEquals("\"abc\"", info.getETag());
+    }
 }
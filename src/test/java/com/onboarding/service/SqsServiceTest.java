@@ -2,26 +2,36 @@ package com.onboarding.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onboarding.component.DependencyGuard;
+import com.onboarding.component.IngestionMetrics;
+import com.onboarding.component.Resilience;
+import com.onboarding.dto.PublishResult;
 import com.onboarding.dto.SQSMessage;
 import com.onboarding.service.aws.SqsService;
 import com.onboarding.exception.MessageProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
-import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
-import software.amazon.awssdk.services.sqs.model.SqsException;
+import software.amazon.awssdk.services.sqs.model.*;
 
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -37,6 +47,10 @@ class SqsServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+    @Spy
+    private Resilience resilience = Resilience.passThrough();
     @InjectMocks
     private SqsService sqsService;
 
@@ -47,6 +61,9 @@ class SqsServiceTest {
         Field field = SqsService.class.getDeclaredField("queueUrl");
         field.setAccessible(true);
         field.set(sqsService, "mockQueueUrl");
+        ReflectionTestUtils.setField(sqsService, "maxInFlight", 2);
+        ReflectionTestUtils.setField(sqsService, "maxRetries", 2);
+        sqsService.init();
 
         sampleSqsMessage = SQSMessage.builder()
                 .accountId("acc123")
@@ -105,4 +122,152 @@ class SqsServiceTest {
                 sqsService.sendInvoice(sampleSqsMessage));
     }
 
+    @Test
+    void sendInvoices_shouldGroupMessagesIntoBatchesOfTen() throws Exception {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("serialized");
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        acknowledge(invocation.getArgument(0), Collections.emptyList())));
+
+        // Act
+        PublishResult result = sqsService.sendInvoices(Collections.nCopies(25, sampleSqsMessage));
+
+        // Assert
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(3)).sendMessageBatch(captor.capture());
+        assertThat(captor.getAllValues()).extracting(request -> request.entries().size())
+                .containsExactly(10, 10, 5);
+        assertThat(result.getSuccessCount()).isEqualTo(25);
+        assertThat(result.hasFailures()).isFalse();
+    }
+
+    @Test
+    void sendInvoices_shouldSplitBatchesOnPayloadLimit() throws Exception {
+        // Arrange
+        String body = "x".repeat(100 * 1024);
+        when(objectMapper.writeValueAsString(any())).thenReturn(body);
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        acknowledge(invocation.getArgument(0), Collections.emptyList())));
+
+        // Act
+        PublishResult result = sqsService.sendInvoices(Collections.nCopies(5, sampleSqsMessage));
+
+        // Assert
+        verify(sqsAsyncClient, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertThat(result.getSuccessCount()).isEqualTo(5);
+    }
+
+    @Test
+    void sendInvoices_shouldRetryOnlyFailedEntries() throws Exception {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("serialized");
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        acknowledge(invocation.getArgument(0), List.of("1"))))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        acknowledge(invocation.getArgument(0), Collections.emptyList())));
+
+        // Act
+        PublishResult result = sqsService.sendInvoices(Collections.nCopies(3, sampleSqsMessage));
+
+        // Assert
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsAsyncClient, times(2)).sendMessageBatch(captor.capture());
+        assertThat(captor.getAllValues().get(1).entries()).extracting(SendMessageBatchRequestEntry::id)
+                .containsExactly("1");
+        assertThat(result.getSuccessCount()).isEqualTo(3);
+        assertThat(result.hasFailures()).isFalse();
+    }
+
+    @Test
+    void sendInvoices_shouldReportEntriesThatKeepFailing() throws Exception {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("serialized");
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        acknowledge(invocation.getArgument(0), List.of("0"))));
+
+        // Act
+        PublishResult result = sqsService.sendInvoices(Collections.nCopies(2, sampleSqsMessage));
+
+        // Assert
+        verify(sqsAsyncClient, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertThat(result.getSuccessCount()).isEqualTo(1);
+        assertThat(result.getFailures()).containsOnlyKeys(0);
+    }
+
+    @Test
+    void sendInvoices_shouldFailWholeBatchWhenRequestKeepsFailing() throws Exception {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("serialized");
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(SqsException.builder().message("down").build()));
+
+        // Act
+        PublishResult result = sqsService.sendInvoices(Collections.nCopies(2, sampleSqsMessage));
+
+        // Assert
+        assertThat(result.getSuccessCount()).isZero();
+        assertThat(result.getFailures()).containsOnlyKeys(0, 1);
+    }
+
+    @Test
+    void sendInvoices_whenCircuitOpens_shouldFailTheRestWithoutSending() throws Exception {
+        // Arrange
+        DependencyGuard sqs = DependencyGuard.builder()
+                .name("sqs")
+                .maxAttempts(1)
+                .failureThreshold(1)
+                .openFor(Duration.ofMinutes(1))
+                .transientFailure(Resilience::isTransientAwsFailure)
+                .build();
+        ReflectionTestUtils.setField(sqsService, "resilience",
+                new Resilience(resilience.s3(), resilience.mongo(), sqs));
+        when(objectMapper.writeValueAsString(any())).thenReturn("serialized");
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(SqsException.builder().statusCode(503).message("down").build()));
+
+        // Act
+        PublishResult result = sqsService.sendInvoices(Collections.nCopies(2, sampleSqsMessage));
+
+        // Assert
+        verify(sqsAsyncClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertThat(sqs.isOpen()).isTrue();
+        assertThat(result.getFailures()).containsOnly(entry(0, "SQS is unavailable"), entry(1, "SQS is unavailable"));
+        assertThrows(MessageProcessingException.class, () -> sqsService.sendInvoice(sampleSqsMessage));
+    }
+
+    @Test
+    void sendInvoices_shouldReportSerializationFailures() throws Exception {
+        // Arrange
+        SQSMessage broken = SQSMessage.builder().accountId("broken").build();
+        when(objectMapper.writeValueAsString(sampleSqsMessage)).thenReturn("serialized");
+        when(objectMapper.writeValueAsString(broken)).thenThrow(new JsonProcessingException("JSON fail") {});
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        acknowledge(invocation.getArgument(0), Collections.emptyList())));
+
+        // Act
+        PublishResult result = sqsService.sendInvoices(List.of(sampleSqsMessage, broken));
+
+        // Assert
+        assertThat(result.getSuccessCount()).isEqualTo(1);
+        assertThat(result.getFailures()).containsEntry(1, "Failed to serialize message");
+    }
+
+    private static SendMessageBatchResponse acknowledge(SendMessageBatchRequest request, List<String> failedIds) {
+        return SendMessageBatchResponse.builder()
+                .successful(request.entries().stream()
+                        .filter(entry -> !failedIds.contains(entry.id()))
+                        .map(entry -> SendMessageBatchResultEntry.builder().id(entry.id()).messageId("m-" + entry.id()).build())
+                        .toList())
+                .failed(request.entries().stream()
+                        .filter(entry -> failedIds.contains(entry.id()))
+                        .map(entry -> BatchResultErrorEntry.builder().id(entry.id()).code("ServiceUnavailable")
+                                .senderFault(false).build())
+                        .toList())
+                .build();
+    }
 }